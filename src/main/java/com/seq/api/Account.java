@@ -6,6 +6,7 @@ import com.google.gson.annotations.SerializedName;
 import com.google.gson.annotations.Expose;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A container that holds tokens in a ledger.
@@ -35,8 +36,21 @@ public class Account {
    * User-specified key-value data describing the account.
    */
   @Expose
+  @Tags(TagKind.ACCOUNT)
   public Map<String, Object> tags;
 
+  /**
+   * Returns the account's tags as an instance of the given class. Tags
+   * decoded by a codec with that class registered for account tags are
+   * returned as decoded; otherwise they are converted from the map.
+   * @param type the class of the tags
+   * @param <T> the class of the tags
+   * @return the tags, or null if the account has none
+   */
+  public <T> T getTags(Class<T> type) {
+    return TagBinding.bind(tags, type);
+  }
+
   /**
    * A single page of accounts returned from a query.
    */
@@ -62,7 +76,19 @@ public class Account {
      * @throws ChainException
      */
     public Page getPage(Client client) throws ChainException {
-      return client.request("list-accounts", this.next, Page.class);
+      return client.request("list-accounts", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Executes the query, returning a page of accounts that match the query,
+     * or failing when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a page of accounts
+     * @throws ChainException
+     */
+    public Page getPage(Client client, Deadline deadline) throws ChainException {
+      return client.request("list-accounts", this.next, Page.class, deadline, requestClass);
     }
 
     /**
@@ -74,9 +100,42 @@ public class Account {
      * @throws ChainException
      */
     public Page getPage(Client client, String cursor) throws ChainException {
-      Query next = new Query();
-      next.cursor = cursor;
-      return client.request("list-accounts", next, Page.class);
+      Query next = this.next.atCursor(cursor);
+      return client.request("list-accounts", next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of accounts
+     * that match the query.
+     * @param client ledger API connection object
+     * @return a future page of accounts
+     */
+    public CompletableFuture<Page> getPageAsync(Client client) {
+      return client.requestAsync("list-accounts", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of accounts
+     * that match the query.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future page of accounts
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, Deadline deadline) {
+      return client.requestAsync("list-accounts", this.next, Page.class, deadline, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of accounts
+     * that match the query beginning with provided cursor.
+     * @param client ledger API connection object
+     * @param cursor string representing encoded query object
+     * @return a future page of accounts
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, String cursor) {
+      Query next = this.next.atCursor(cursor);
+      return client.requestAsync("list-accounts", next, Page.class, null, requestClass);
     }
 
     /**
@@ -86,7 +145,7 @@ public class Account {
      * @throws ChainException
      */
     public ItemIterable getIterable(Client client) throws ChainException {
-      return new ItemIterable(client, "list-accounts", this.next);
+      return withRequestClass(new ItemIterable(client, "list-accounts", this.next));
     }
   }
 
@@ -121,6 +180,38 @@ public class Account {
       return client.request("create-account", this, Account.class);
     }
 
+    /**
+     * Creates a new account in the ledger.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return an account
+     * @throws ChainException
+     */
+    public Account create(Client client, Deadline deadline) throws ChainException {
+      return client.request("create-account", this, Account.class, deadline);
+    }
+
+    /**
+     * Asynchronously creates a new account in the ledger, without blocking the calling thread.
+     * @param client ledger API connection object
+     * @return a future completed with an account
+     */
+    public CompletableFuture<Account> createAsync(Client client) {
+      return client.requestAsync("create-account", this, Account.class);
+    }
+
+    /**
+     * Asynchronously creates a new account in the ledger, without blocking the calling thread.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future completed with an account
+     */
+    public CompletableFuture<Account> createAsync(Client client, Deadline deadline) {
+      return client.requestAsync("create-account", this, Account.class, deadline);
+    }
+
     /**
      * Specifies the id for the new account.
      * @param id unique identifier. Will be auto-generated if not provided.
@@ -216,5 +307,36 @@ public class Account {
     public void update(Client client) throws ChainException {
       client.request("update-account-tags", this, SuccessMessage.class);
     }
+
+    /**
+     * Updates the account's tags.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @throws ChainException
+     */
+    public void update(Client client, Deadline deadline) throws ChainException {
+      client.request("update-account-tags", this, SuccessMessage.class, deadline);
+    }
+
+    /**
+     * Asynchronously updates the account's tags.
+     * @param client ledger API connection object
+     * @return a future that completes once the tags are updated
+     */
+    public CompletableFuture<SuccessMessage> updateAsync(Client client) {
+      return client.requestAsync("update-account-tags", this, SuccessMessage.class);
+    }
+
+    /**
+     * Asynchronously updates the account's tags.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future that completes once the tags are updated
+     */
+    public CompletableFuture<SuccessMessage> updateAsync(Client client, Deadline deadline) {
+      return client.requestAsync("update-account-tags", this, SuccessMessage.class, deadline);
+    }
   }
 }
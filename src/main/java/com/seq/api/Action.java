@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Action queries are designed to provide insights into those actions.
@@ -57,6 +58,13 @@ public class Action {
   @Expose
   public Date timestamp;
 
+  /**
+   * Time of the action, in milliseconds since the epoch, or 0 if it has no
+   * timestamp. Decoded along with {@link #timestamp}, or instead of it if
+   * the client's codec uses {@link com.seq.http.TimestampMode#EPOCH_MILLIS}.
+   */
+  public long timestampMillis;
+
   /**
    * The ID of the flavor held by the action.
    */
@@ -91,14 +99,28 @@ public class Action {
    */
   @SerializedName("tags")
   @Expose
+  @Tags(TagKind.ACTION)
   public Map<String, Object> tags;
 
+  /**
+   * Returns the action's tags as an instance of the given class. Tags
+   * decoded by a codec with that class registered for action tags are
+   * returned as decoded; otherwise they are converted from the map.
+   * @param type the class of the tags
+   * @param <T> the class of the tags
+   * @return the tags, or null if the action has none
+   */
+  public <T> T getTags(Class<T> type) {
+    return TagBinding.bind(tags, type);
+  }
+
   public static class Snapshot {
     /**
      * A snapshot of the actions's tags at the time of action creation
      */
     @SerializedName("action_tags")
     @Expose
+    @Tags(TagKind.ACTION)
     public Map<String, Object> actionTags;
 
     /**
@@ -106,6 +128,7 @@ public class Action {
      */
     @SerializedName("flavor_tags")
     @Expose
+    @Tags(TagKind.FLAVOR)
     public Map<String, Object> flavorTags;
 
     /**
@@ -113,6 +136,7 @@ public class Action {
      */
     @SerializedName("source_account_tags")
     @Expose
+    @Tags(TagKind.ACCOUNT)
     public Map<String, Object> sourceAccountTags;
 
     /**
@@ -120,6 +144,7 @@ public class Action {
      */
     @SerializedName("destination_account_tags")
     @Expose
+    @Tags(TagKind.ACCOUNT)
     public Map<String, Object> destinationAccountTags;
 
     /**
@@ -127,6 +152,7 @@ public class Action {
      */
     @SerializedName("token_tags")
     @Expose
+    @Tags(TagKind.TOKEN)
     public Map<String, Object> tokenTags;
 
     /**
@@ -134,6 +160,7 @@ public class Action {
      */
     @SerializedName("transaction_tags")
     @Expose
+    @Tags(TagKind.TRANSACTION)
     public Map<String, Object> transactionTags;
   }
 
@@ -174,7 +201,19 @@ public class Action {
      * @throws ChainException
      */
     public Page getPage(Client client) throws ChainException {
-      return client.request("list-actions", this.next, Page.class);
+      return client.request("list-actions", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Executes the query, returning a page of actions that match the query,
+     * or failing when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a page of actions
+     * @throws ChainException
+     */
+    public Page getPage(Client client, Deadline deadline) throws ChainException {
+      return client.request("list-actions", this.next, Page.class, deadline, requestClass);
     }
 
     /**
@@ -186,9 +225,42 @@ public class Action {
      * @throws ChainException
      */
     public Page getPage(Client client, String cursor) throws ChainException {
-      Query next = new Query();
-      next.cursor = cursor;
-      return client.request("list-actions", next, Page.class);
+      Query next = this.next.atCursor(cursor);
+      return client.request("list-actions", next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of actions
+     * that match the query.
+     * @param client ledger API connection object
+     * @return a future page of actions
+     */
+    public CompletableFuture<Page> getPageAsync(Client client) {
+      return client.requestAsync("list-actions", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of actions
+     * that match the query.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future page of actions
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, Deadline deadline) {
+      return client.requestAsync("list-actions", this.next, Page.class, deadline, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of actions
+     * that match the query beginning with provided cursor.
+     * @param client ledger API connection object
+     * @param cursor string representing encoded query object
+     * @return a future page of actions
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, String cursor) {
+      Query next = this.next.atCursor(cursor);
+      return client.requestAsync("list-actions", next, Page.class, null, requestClass);
     }
 
     /**
@@ -199,7 +271,7 @@ public class Action {
      * @throws ChainException
      */
     public ItemIterable getIterable(Client client) throws ChainException {
-      return new ItemIterable(client, "list-actions", this.next);
+      return withRequestClass(new ItemIterable(client, "list-actions", this.next));
     }
   }
 
@@ -214,7 +286,19 @@ public class Action {
      * @throws ChainException
      */
     public ActionSum.Page getPage(Client client) throws ChainException {
-      return client.request("sum-actions", this.next, ActionSum.Page.class);
+      return client.request("sum-actions", this.next, ActionSum.Page.class, null, requestClass);
+    }
+
+    /**
+     * Executes the query, returning a page of actionsums that match the query,
+     * or failing when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a page of actionsums
+     * @throws ChainException
+     */
+    public ActionSum.Page getPage(Client client, Deadline deadline) throws ChainException {
+      return client.request("sum-actions", this.next, ActionSum.Page.class, deadline, requestClass);
     }
 
     /**
@@ -226,9 +310,42 @@ public class Action {
      * @throws ChainException
      */
     public ActionSum.Page getPage(Client client, String cursor) throws ChainException {
-      Query next = new Query();
-      next.cursor = cursor;
-      return client.request("sum-actions", next, ActionSum.Page.class);
+      Query next = this.next.atCursor(cursor);
+      return client.request("sum-actions", next, ActionSum.Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of actionsums
+     * that match the query.
+     * @param client ledger API connection object
+     * @return a future page of actionsums
+     */
+    public CompletableFuture<ActionSum.Page> getPageAsync(Client client) {
+      return client.requestAsync("sum-actions", this.next, ActionSum.Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of actionsums
+     * that match the query.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future page of actionsums
+     */
+    public CompletableFuture<ActionSum.Page> getPageAsync(Client client, Deadline deadline) {
+      return client.requestAsync("sum-actions", this.next, ActionSum.Page.class, deadline, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of actionsums
+     * that match the query beginning with provided cursor.
+     * @param client ledger API connection object
+     * @param cursor string representing encoded query object
+     * @return a future page of actionsums
+     */
+    public CompletableFuture<ActionSum.Page> getPageAsync(Client client, String cursor) {
+      Query next = this.next.atCursor(cursor);
+      return client.requestAsync("sum-actions", next, ActionSum.Page.class, null, requestClass);
     }
 
     /**
@@ -239,7 +356,7 @@ public class Action {
      * @throws ChainException
      */
     public ActionSum.ItemIterable getIterable(Client client) throws ChainException {
-      return new ActionSum.ItemIterable(client, "sum-actions", this.next);
+      return withRequestClass(new ActionSum.ItemIterable(client, "sum-actions", this.next));
     }
 
     /**
@@ -305,5 +422,36 @@ public class Action {
     public void update(Client client) throws ChainException {
       client.request("update-action-tags", this, SuccessMessage.class);
     }
+
+    /**
+     * Updates the action's tags.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @throws ChainException
+     */
+    public void update(Client client, Deadline deadline) throws ChainException {
+      client.request("update-action-tags", this, SuccessMessage.class, deadline);
+    }
+
+    /**
+     * Asynchronously updates the action's tags.
+     * @param client ledger API connection object
+     * @return a future that completes once the tags are updated
+     */
+    public CompletableFuture<SuccessMessage> updateAsync(Client client) {
+      return client.requestAsync("update-action-tags", this, SuccessMessage.class);
+    }
+
+    /**
+     * Asynchronously updates the action's tags.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future that completes once the tags are updated
+     */
+    public CompletableFuture<SuccessMessage> updateAsync(Client client, Deadline deadline) {
+      return client.requestAsync("update-action-tags", this, SuccessMessage.class, deadline);
+    }
   }
 }
@@ -10,7 +10,11 @@ import com.seq.exception.JSONException;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.annotations.Expose;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -54,6 +58,13 @@ public class ActionSum {
   @Expose
   public Date timestamp;
 
+  /**
+   * Time of the action, in milliseconds since the epoch, or 0 if it has no
+   * timestamp. Decoded along with {@link #timestamp}, or instead of it if
+   * the client's codec uses {@link com.seq.http.TimestampMode#EPOCH_MILLIS}.
+   */
+  public long timestampMillis;
+
   /**
    * The ID of the flavor of the tokens held by the action.
    */
@@ -88,6 +99,7 @@ public class ActionSum {
    */
   @SerializedName("tags")
   @Expose
+  @Tags(TagKind.ACTION)
   public Map<String, Object> tags;
 
   /**
@@ -103,4 +115,50 @@ public class ActionSum {
       super(client, path, nextQuery, Page.class);
     }
   }
+
+  /**
+   * Merges partial sums, such as those returned by the partitions of a
+   * {@link PartitionedScan}, by adding together the amounts of sums that
+   * belong to the same group. The first sum of each group is updated in
+   * place and returned.
+   * @param sums partial sums over disjoint sets of actions
+   * @return one sum per group, in order of first appearance
+   */
+  public static List<ActionSum> merge(Iterable<ActionSum> sums) {
+    Map<List<Object>, ActionSum> groups = new LinkedHashMap<>();
+    for (ActionSum sum : sums) {
+      List<Object> key = sum.groupKey();
+      ActionSum group = groups.get(key);
+      if (group == null) {
+        groups.put(key, sum);
+      } else {
+        group.amount += sum.amount;
+      }
+    }
+    return new ArrayList<>(groups.values());
+  }
+
+  /**
+   * Returns the values of every field other than amount, which together
+   * identify the group the sum belongs to.
+   */
+  private List<Object> groupKey() {
+    return Arrays.<Object>asList(
+        type,
+        id,
+        transactionId,
+        timestamp,
+        timestampMillis,
+        flavorId,
+        sourceAccountId,
+        destinationAccountId,
+        tags,
+        snapshot == null ? null : Arrays.<Object>asList(
+            snapshot.actionTags,
+            snapshot.flavorTags,
+            snapshot.sourceAccountTags,
+            snapshot.destinationAccountTags,
+            snapshot.tokenTags,
+            snapshot.transactionTags));
+  }
 }
@@ -2,18 +2,40 @@ package com.seq.api;
 
 import com.seq.exception.ChainException;
 import com.seq.http.Client;
+import com.seq.http.PageReader;
+import com.seq.http.RequestClass;
 
+import java.io.Closeable;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 
-public abstract class BaseItemIterable<T> implements Iterable<T> {
+public abstract class BaseItemIterable<T> implements Iterable<T>, Closeable {
 
   private Client client;
   private String path;
   private Query initialQuery;
   private final Type itemClass;
+  private boolean streaming;
+  private long maxPageBytes = Long.MAX_VALUE;
+  private int prefetchPages;
+  private RequestClass requestClass;
+  private StreamingIterator streamingIterator;
+
+  /**
+   * When set, contains the exception thrown by the iterator that caused
+   * it to exit prematurely.
+   */
+  public ChainException exception;
 
   public BaseItemIterable(Client client, String path, Query query, final Type itemClass) {
     this.client = client;
@@ -22,17 +44,110 @@ public abstract class BaseItemIterable<T> implements Iterable<T> {
     this.itemClass = itemClass;
   }
 
+  /**
+   * Enables or disables streaming mode. In streaming mode, each item is
+   * decoded from the response as it is consumed, rather than reading the
+   * entire page into memory before returning its first item. The response
+   * stays open until its last item is read, so an iteration that stops
+   * early should {@link #close()} the iterable.
+   * @param streaming whether to stream pages
+   * @return this iterable
+   */
+  public BaseItemIterable<T> setStreaming(boolean streaming) {
+    this.streaming = streaming;
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of response bytes read for a single page in
+   * streaming mode. Iteration stops with an exception if a page is larger.
+   * @param maxPageBytes the maximum size of a page in bytes
+   * @return this iterable
+   */
+  public BaseItemIterable<T> setMaxPageBytes(long maxPageBytes) {
+    this.maxPageBytes = maxPageBytes;
+    return this;
+  }
+
+  /**
+   * Enables read-ahead of pages. As soon as a page arrives, the request for
+   * the following page is sent in the background, keeping at most the given
+   * number of pages buffered ahead of the consumer. Prefetching applies to
+   * buffered iteration only and has no effect in streaming mode.
+   * @param pages the number of pages to read ahead, or 0 to disable
+   * @return this iterable
+   */
+  public BaseItemIterable<T> setPrefetch(int pages) {
+    this.prefetchPages = pages;
+    return this;
+  }
+
+  /**
+   * Sends the iterable's requests in the lane of the given class, instead
+   * of the lane derived from the action.
+   * @param requestClass the class of the requests, or null
+   * @return this iterable
+   */
+  public BaseItemIterable<T> setRequestClass(RequestClass requestClass) {
+    this.requestClass = requestClass;
+    return this;
+  }
+
   private BasePage<T> getPage() throws ChainException {
-    return this.client.request(this.path, this.initialQuery, this.itemClass);
+    return this.client.request(this.path, this.initialQuery, this.itemClass, null, this.requestClass);
   }
 
   private BasePage<T> getPage(String cursor) throws ChainException {
-    Query next = new Query();
-    next.cursor = cursor;
-    return this.client.request(this.path, next, this.itemClass);
+    Query next = this.initialQuery.atCursor(cursor);
+    return this.client.request(this.path, next, this.itemClass, null, this.requestClass);
+  }
+
+  private CompletableFuture<BasePage<T>> getPageAsync(String cursor) {
+    Query next = this.initialQuery;
+    if (cursor != null) {
+      next = this.initialQuery.atCursor(cursor);
+    }
+    return this.client.requestAsync(this.path, next, this.itemClass, null, this.requestClass);
+  }
+
+  private PageReader<T> getPageReader() throws ChainException {
+    Object query = this.initialQuery;
+    if (this.initialQuery.cursor != null) {
+      query = this.initialQuery.atCursor(this.initialQuery.cursor);
+    }
+    return this.client.requestPage(this.path, query, itemType(), this.maxPageBytes, this.requestClass);
+  }
+
+  /**
+   * Releases the response of the page being read by the last iterator
+   * returned in streaming mode, and ends that iteration. Has no effect on
+   * buffered iteration, which does not keep responses open.
+   */
+  @Override
+  public void close() {
+    StreamingIterator iterator = this.streamingIterator;
+    if (iterator != null) {
+      iterator.close();
+    }
+  }
+
+  /**
+   * Returns the type of the items in a page, as declared by the page class.
+   */
+  private Type itemType() {
+    Type page = ((Class<?>) this.itemClass).getGenericSuperclass();
+    return ((ParameterizedType) page).getActualTypeArguments()[0];
   }
 
   public Iterator<T> iterator() {
+    if (this.streaming) {
+      this.streamingIterator = new StreamingIterator();
+      return this.streamingIterator;
+    }
+    if (this.prefetchPages > 0) {
+      return new PrefetchingIterator();
+    }
+
     return new Iterator<T>() {
       private int pos = 0;
       private List<T> items = new ArrayList<>();
@@ -71,6 +186,7 @@ public abstract class BaseItemIterable<T> implements Iterable<T> {
 
               return this.items.size() > 0;
             } catch (ChainException e) {
+              BaseItemIterable.this.exception = e;
               return false;
             }
           }
@@ -86,4 +202,183 @@ public abstract class BaseItemIterable<T> implements Iterable<T> {
       }
     };
   }
+
+  /**
+   * Iterates over the results one page reader at a time. Each item is
+   * decoded by hasNext, so that a decoding error ends the iteration like
+   * any other error instead of being thrown by next.
+   */
+  private class StreamingIterator implements Iterator<T>, Closeable {
+    private PageReader<T> reader;
+    private boolean lastPage = false;
+    private T item;
+    private boolean hasItem = false;
+
+    /**
+     * Returns the next item in the results items.
+     * @return api object of type T
+     */
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      hasItem = false;
+      T next = item;
+      item = null;
+      return next;
+    }
+
+    /**
+     * Returns true if there is another item in the results items.
+     * @return boolean
+     */
+    public boolean hasNext() {
+      if (hasItem) {
+        return true;
+      }
+      try {
+        while (true) {
+          if (reader != null) {
+            if (reader.hasNext()) {
+              item = reader.next();
+              hasItem = true;
+              return true;
+            }
+            this.lastPage = reader.lastPage;
+            initialQuery.cursor = reader.cursor;
+            reader = null;
+          }
+
+          if (lastPage) {
+            return false;
+          }
+          reader = getPageReader();
+          if (!reader.hasNext()) {
+            // An empty page ends the results, as in buffered iteration.
+            this.lastPage = reader.lastPage;
+            initialQuery.cursor = reader.cursor;
+            reader = null;
+            return false;
+          }
+        }
+      } catch (ChainException e) {
+        BaseItemIterable.this.exception = e;
+        close();
+        return false;
+      }
+    }
+
+    /**
+     * Releases the response of the page being read, and ends the iteration.
+     */
+    public void close() {
+      if (reader != null) {
+        reader.close();
+        reader = null;
+      }
+      lastPage = true;
+      hasItem = false;
+      item = null;
+    }
+
+    /**
+     * This method is unsupported.
+     * @throws UnsupportedOperationException
+     */
+    public void remove() throws UnsupportedOperationException {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Iterates over the results while pages further along are fetched in the
+   * background. Each pending page is chained onto the one before it, since
+   * its request needs that page's cursor.
+   */
+  private class PrefetchingIterator implements Iterator<T> {
+    private final Deque<CompletableFuture<BasePage<T>>> pending = new ArrayDeque<>();
+    private CompletableFuture<BasePage<T>> last;
+    private int pos = 0;
+    private List<T> items = new ArrayList<>();
+    private boolean lastPage = false;
+
+    private final Function<BasePage<T>, CompletionStage<BasePage<T>>> fetchNext =
+        new Function<BasePage<T>, CompletionStage<BasePage<T>>>() {
+          public CompletionStage<BasePage<T>> apply(BasePage<T> page) {
+            if (page == null || page.lastPage) {
+              return CompletableFuture.completedFuture(null);
+            }
+            return getPageAsync(page.cursor);
+          }
+        };
+
+    /**
+     * Keeps the configured number of pages requested ahead of the consumer.
+     * Each request is chained onto the last one sent, which may already
+     * have been consumed, so the cursor of the query is only read for the
+     * first page.
+     */
+    private void fill() {
+      if (last == null) {
+        last = getPageAsync(initialQuery.cursor);
+        pending.add(last);
+      }
+      while (pending.size() < prefetchPages) {
+        last = last.thenCompose(fetchNext);
+        pending.add(last);
+      }
+    }
+
+    /**
+     * Returns the next item in the results items.
+     * @return api object of type T
+     */
+    public T next() {
+      return items.get(pos++);
+    }
+
+    /**
+     * Returns true if there is another item in the results items.
+     * @return boolean
+     */
+    public boolean hasNext() {
+      if (pos < items.size()) {
+        return true;
+      } else if (lastPage) {
+        return false;
+      }
+
+      fill();
+      BasePage<T> page;
+      try {
+        page = pending.poll().join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof ChainException) {
+          BaseItemIterable.this.exception = (ChainException) e.getCause();
+          return false;
+        }
+        throw e;
+      }
+      fill();
+
+      if (page == null) {
+        this.lastPage = true;
+        return false;
+      }
+      this.pos = 0;
+      this.items = page.items;
+      this.lastPage = page.lastPage;
+      initialQuery.cursor = page.cursor;
+
+      return this.items.size() > 0;
+    }
+
+    /**
+     * This method is unsupported.
+     * @throws UnsupportedOperationException
+     */
+    public void remove() throws UnsupportedOperationException {
+      throw new UnsupportedOperationException();
+    }
+  }
 }
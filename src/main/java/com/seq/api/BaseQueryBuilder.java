@@ -2,9 +2,13 @@ package com.seq.api;
 
 import com.seq.exception.ChainException;
 import com.seq.http.Client;
+import com.seq.http.RequestClass;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Abstract base class providing an interface for building queries.
@@ -12,6 +16,7 @@ import java.util.List;
  */
 public abstract class BaseQueryBuilder<T extends BaseQueryBuilder<T>> {
   protected Query next;
+  protected RequestClass requestClass;
 
   /**
    * Execute the API query and return one page of items.
@@ -71,4 +76,76 @@ public abstract class BaseQueryBuilder<T extends BaseQueryBuilder<T>> {
     this.next.filterParams = new ArrayList<>(params);
     return (T) this;
   }
+
+  /**
+   * Decodes only the given fields of each item, named as in the API's JSON,
+   * for example "amount" or "flavor_id". The other fields of each item are
+   * skipped in the response without being decoded, and keep their default
+   * values. Selecting no fields decodes every field.
+   * @param fields the JSON names of the fields to decode
+   * @return updated builder
+   */
+  public T select(String... fields) {
+    this.next.select = fields.length == 0 ? null : new ArrayList<>(Arrays.asList(fields));
+    return (T) this;
+  }
+
+  /**
+   * Sends the query's requests in the lane of the given class, instead of
+   * the lane derived from the action.
+   * @param requestClass the class of the query's requests
+   * @return updated builder
+   */
+  public T setRequestClass(RequestClass requestClass) {
+    this.requestClass = requestClass;
+    return (T) this;
+  }
+
+  /**
+   * Applies the builder's request class to an iterable over its results.
+   */
+  protected <I extends BaseItemIterable<?>> I withRequestClass(I items) {
+    items.setRequestClass(this.requestClass);
+    return items;
+  }
+
+  /**
+   * Returns a copy of this builder whose filter is narrowed by an additional
+   * predicate. Parameter references in the predicate are numbered from $1
+   * and are renumbered to follow the builder's own filter parameters.
+   * @param partition the predicate and its parameters
+   * @return a new builder of the same type
+   */
+  T narrow(Partition partition) {
+    T copy;
+    try {
+      copy = (T) getClass().getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException ex) {
+      throw new IllegalStateException("unable to copy " + getClass().getName(), ex);
+    }
+
+    Query query = new Query(this.next);
+    int offset = query.filterParams.size();
+    Matcher m = PARAM_REF.matcher(partition.filter);
+    StringBuffer predicate = new StringBuffer();
+    while (m.find()) {
+      m.appendReplacement(predicate, "\\$" + (Integer.parseInt(m.group(1)) + offset));
+    }
+    m.appendTail(predicate);
+
+    if (predicate.length() == 0) {
+      // An empty predicate leaves the query unchanged.
+    } else if (query.filter == null || query.filter.isEmpty()) {
+      query.filter = predicate.toString();
+    } else {
+      query.filter = "(" + query.filter + ") AND (" + predicate + ")";
+    }
+    query.filterParams.addAll(partition.filterParams);
+
+    copy.next = query;
+    copy.requestClass = this.requestClass;
+    return copy;
+  }
+
+  private static final Pattern PARAM_REF = Pattern.compile("\\$(\\d+)");
 }
@@ -6,6 +6,8 @@ import com.google.gson.annotations.SerializedName;
 import com.google.gson.annotations.Expose;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class Feed<T> implements Iterable<T> {
   /**
@@ -223,6 +225,52 @@ public class Feed<T> implements Iterable<T> {
       return feed;
     }
 
+    /**
+     * Creates a new feed for the ledger.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a feed
+     * @throws ChainException
+     */
+    public Feed<T> create(Client client, Deadline deadline) throws ChainException {
+      Feed<T> feed = client.request("create-feed", this, Feed.class, deadline);
+      feed._client = client;
+      return feed;
+    }
+
+    /**
+     * Asynchronously creates a new feed for the ledger.
+     * @param client ledger API connection object
+     * @return a future feed
+     */
+    public CompletableFuture<Feed<T>> createAsync(final Client client) {
+      return client.<Feed<T>>requestAsync("create-feed", this, Feed.class)
+          .thenApply(new Function<Feed<T>, Feed<T>>() {
+            public Feed<T> apply(Feed<T> feed) {
+              feed._client = client;
+              return feed;
+            }
+          });
+    }
+
+    /**
+     * Asynchronously creates a new feed for the ledger.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future feed
+     */
+    public CompletableFuture<Feed<T>> createAsync(final Client client, Deadline deadline) {
+      return client.<Feed<T>>requestAsync("create-feed", this, Feed.class, deadline)
+          .thenApply(new Function<Feed<T>, Feed<T>>() {
+            public Feed<T> apply(Feed<T> feed) {
+              feed._client = client;
+              return feed;
+            }
+          });
+    }
+
     /**
      * Specifies the id for the new feed.
      * @param id unique identifier. Will be auto-generated if not provided.
@@ -301,7 +349,19 @@ public class Feed<T> implements Iterable<T> {
      * @throws ChainException
      */
     public Page getPage(Client client) throws ChainException {
-      return client.request("list-feeds", this.next, Page.class);
+      return client.request("list-feeds", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Executes the query, returning a page of feeds that match the query,
+     * or failing when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a page of feeds
+     * @throws ChainException
+     */
+    public Page getPage(Client client, Deadline deadline) throws ChainException {
+      return client.request("list-feeds", this.next, Page.class, deadline, requestClass);
     }
 
     /**
@@ -313,9 +373,42 @@ public class Feed<T> implements Iterable<T> {
      * @throws ChainException
      */
     public Page getPage(Client client, String cursor) throws ChainException {
-      Query next = new Query();
-      next.cursor = cursor;
-      return client.request("list-feeds", next, Page.class);
+      Query next = this.next.atCursor(cursor);
+      return client.request("list-feeds", next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of feeds
+     * that match the query.
+     * @param client ledger API connection object
+     * @return a future page of feeds
+     */
+    public CompletableFuture<Page> getPageAsync(Client client) {
+      return client.requestAsync("list-feeds", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of feeds
+     * that match the query.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future page of feeds
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, Deadline deadline) {
+      return client.requestAsync("list-feeds", this.next, Page.class, deadline, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of feeds
+     * that match the query beginning with provided cursor.
+     * @param client ledger API connection object
+     * @param cursor string representing encoded query object
+     * @return a future page of feeds
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, String cursor) {
+      Query next = this.next.atCursor(cursor);
+      return client.requestAsync("list-feeds", next, Page.class, null, requestClass);
     }
 
     /**
@@ -325,7 +418,7 @@ public class Feed<T> implements Iterable<T> {
      * @throws ChainException
      */
     public ItemIterable getIterable(Client client) throws ChainException {
-      return new ItemIterable(client, "list-feeds", this.next);
+      return withRequestClass(new ItemIterable(client, "list-feeds", this.next));
     }
   }
 }
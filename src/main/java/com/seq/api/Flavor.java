@@ -6,6 +6,7 @@ import com.google.gson.annotations.SerializedName;
 import com.google.gson.annotations.Expose;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A taxonomy used to differentiate different types of tokens in a ledger.
@@ -35,6 +36,7 @@ public class Flavor {
    * User-specified key-value data describing the flavor.
    */
   @Expose
+  @Tags(TagKind.FLAVOR)
   public Map<String, Object> tags;
 
   /**
@@ -62,7 +64,19 @@ public class Flavor {
      * @throws ChainException
      */
     public Page getPage(Client client) throws ChainException {
-      return client.request("list-flavors", this.next, Page.class);
+      return client.request("list-flavors", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Executes the query, returning a page of flavors that match the query,
+     * or failing when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a page of flavors
+     * @throws ChainException
+     */
+    public Page getPage(Client client, Deadline deadline) throws ChainException {
+      return client.request("list-flavors", this.next, Page.class, deadline, requestClass);
     }
 
     /**
@@ -74,9 +88,42 @@ public class Flavor {
      * @throws ChainException
      */
     public Page getPage(Client client, String cursor) throws ChainException {
-      Query next = new Query();
-      next.cursor = cursor;
-      return client.request("list-flavors", next, Page.class);
+      Query next = this.next.atCursor(cursor);
+      return client.request("list-flavors", next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of flavors
+     * that match the query.
+     * @param client ledger API connection object
+     * @return a future page of flavors
+     */
+    public CompletableFuture<Page> getPageAsync(Client client) {
+      return client.requestAsync("list-flavors", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of flavors
+     * that match the query.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future page of flavors
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, Deadline deadline) {
+      return client.requestAsync("list-flavors", this.next, Page.class, deadline, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of flavors
+     * that match the query beginning with provided cursor.
+     * @param client ledger API connection object
+     * @param cursor string representing encoded query object
+     * @return a future page of flavors
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, String cursor) {
+      Query next = this.next.atCursor(cursor);
+      return client.requestAsync("list-flavors", next, Page.class, null, requestClass);
     }
 
     /**
@@ -86,7 +133,7 @@ public class Flavor {
      * @throws ChainException
      */
     public ItemIterable getIterable(Client client) throws ChainException {
-      return new ItemIterable(client, "list-flavors", this.next);
+      return withRequestClass(new ItemIterable(client, "list-flavors", this.next));
     }
   }
 
@@ -121,6 +168,38 @@ public class Flavor {
       return client.request("create-flavor", this, Flavor.class);
     }
 
+    /**
+     * Creates a new flavor in the ledger.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a flavor
+     * @throws ChainException
+     */
+    public Flavor create(Client client, Deadline deadline) throws ChainException {
+      return client.request("create-flavor", this, Flavor.class, deadline);
+    }
+
+    /**
+     * Asynchronously creates a new flavor in the ledger, without blocking the calling thread.
+     * @param client ledger API connection object
+     * @return a future completed with a flavor
+     */
+    public CompletableFuture<Flavor> createAsync(Client client) {
+      return client.requestAsync("create-flavor", this, Flavor.class);
+    }
+
+    /**
+     * Asynchronously creates a new flavor in the ledger, without blocking the calling thread.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future completed with a flavor
+     */
+    public CompletableFuture<Flavor> createAsync(Client client, Deadline deadline) {
+      return client.requestAsync("create-flavor", this, Flavor.class, deadline);
+    }
+
     /**
      * Specifies the id for the new flavor.
      * @param id a unique, user-specified identifier
@@ -215,5 +294,36 @@ public class Flavor {
     public void update(Client client) throws ChainException {
       client.request("update-flavor-tags", this, SuccessMessage.class);
     }
+
+    /**
+     * Updates the flavor's tags.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @throws ChainException
+     */
+    public void update(Client client, Deadline deadline) throws ChainException {
+      client.request("update-flavor-tags", this, SuccessMessage.class, deadline);
+    }
+
+    /**
+     * Asynchronously updates the flavor's tags.
+     * @param client ledger API connection object
+     * @return a future that completes once the tags are updated
+     */
+    public CompletableFuture<SuccessMessage> updateAsync(Client client) {
+      return client.requestAsync("update-flavor-tags", this, SuccessMessage.class);
+    }
+
+    /**
+     * Asynchronously updates the flavor's tags.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future that completes once the tags are updated
+     */
+    public CompletableFuture<SuccessMessage> updateAsync(Client client, Deadline deadline) {
+      return client.requestAsync("update-flavor-tags", this, SuccessMessage.class, deadline);
+    }
   }
 }
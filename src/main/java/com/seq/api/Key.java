@@ -2,10 +2,12 @@ package com.seq.api;
 
 import com.seq.exception.*;
 import com.seq.http.Client;
+import com.seq.http.Deadline;
 import com.google.gson.annotations.Expose;
 
 import java.net.MalformedURLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Keys are used to sign transactions.
@@ -43,6 +45,38 @@ public class Key {
     public Key create(Client client) throws ChainException {
       return client.request("create-key", this, Key.class);
     }
+
+    /**
+     * Creates a key.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a key object
+     * @throws ChainException
+     */
+    public Key create(Client client, Deadline deadline) throws ChainException {
+      return client.request("create-key", this, Key.class, deadline);
+    }
+
+    /**
+     * Asynchronously creates a key, without blocking the calling thread.
+     * @param client ledger API connection object
+     * @return a future completed with a key object
+     */
+    public CompletableFuture<Key> createAsync(Client client) {
+      return client.requestAsync("create-key", this, Key.class);
+    }
+
+    /**
+     * Asynchronously creates a key, without blocking the calling thread.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future completed with a key object
+     */
+    public CompletableFuture<Key> createAsync(Client client, Deadline deadline) {
+      return client.requestAsync("create-key", this, Key.class, deadline);
+    }
   }
 
   public static class Page extends BasePage<Key> {}
@@ -64,7 +98,19 @@ public class Key {
      * @throws ChainException
      */
     public Page getPage(Client client) throws ChainException {
-      return client.request("list-keys", this.next, Page.class);
+      return client.request("list-keys", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Executes the query, returning a page of keys that match the query,
+     * or failing when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a page of keys
+     * @throws ChainException
+     */
+    public Page getPage(Client client, Deadline deadline) throws ChainException {
+      return client.request("list-keys", this.next, Page.class, deadline, requestClass);
     }
 
     /**
@@ -76,9 +122,42 @@ public class Key {
      * @throws ChainException
      */
     public Page getPage(Client client, String cursor) throws ChainException {
-      Query next = new Query();
-      next.cursor = cursor;
-      return client.request("list-keys", next, Page.class);
+      Query next = this.next.atCursor(cursor);
+      return client.request("list-keys", next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of keys
+     * that match the query.
+     * @param client ledger API connection object
+     * @return a future page of keys
+     */
+    public CompletableFuture<Page> getPageAsync(Client client) {
+      return client.requestAsync("list-keys", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of keys
+     * that match the query.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future page of keys
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, Deadline deadline) {
+      return client.requestAsync("list-keys", this.next, Page.class, deadline, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of keys
+     * that match the query beginning with provided cursor.
+     * @param client ledger API connection object
+     * @param cursor string representing encoded query object
+     * @return a future page of keys
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, String cursor) {
+      Query next = this.next.atCursor(cursor);
+      return client.requestAsync("list-keys", next, Page.class, null, requestClass);
     }
 
     /**
@@ -88,7 +167,7 @@ public class Key {
      * @throws ChainException
      */
     public ItemIterable getIterable(Client client) throws ChainException {
-      return new ItemIterable(client, "list-keys", this.next);
+      return withRequestClass(new ItemIterable(client, "list-keys", this.next));
     }
   }
 }
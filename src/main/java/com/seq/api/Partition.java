@@ -0,0 +1,111 @@
+package com.seq.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A filter predicate that selects one disjoint slice of a query's results.
+ * Partitions are combined with a query's own filter by
+ * {@link PartitionedScan}, so that each slice can be scanned independently.
+ */
+public class Partition {
+  /**
+   * The filter predicate, with parameters numbered from $1. An empty
+   * predicate selects every item.
+   */
+  public final String filter;
+
+  /**
+   * The parameters interpolated into the predicate.
+   */
+  public final List<Object> filterParams;
+
+  /**
+   * Creates a partition from a filter predicate.
+   * @param filter a filter expression, with parameters numbered from $1
+   * @param filterParams parameters interpolated into the filter expression
+   */
+  public Partition(String filter, List<?> filterParams) {
+    this.filter = filter;
+    this.filterParams = Collections.unmodifiableList(new ArrayList<Object>(filterParams));
+  }
+
+  /**
+   * Splits the timestamp axis into n contiguous ranges, with evenly spaced
+   * boundaries between start and end. The first range is open toward the
+   * past and the last toward the future, so that together the ranges cover
+   * every item. Suitable for actions and transactions.
+   * @param start the start of the interval to split
+   * @param end the end of the interval to split
+   * @param n the number of partitions
+   * @return a list of n partitions
+   */
+  public static List<Partition> timestampRanges(Date start, Date end, int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("number of partitions must be positive");
+    }
+    if (!end.after(start)) {
+      throw new IllegalArgumentException("end must be after start");
+    }
+
+    List<String> bounds = new ArrayList<>();
+    long span = end.getTime() - start.getTime();
+    for (int i = 1; i < n; i++) {
+      bounds.add(new Date(start.getTime() + span * i / n).toInstant().toString());
+    }
+
+    List<Partition> partitions = new ArrayList<>();
+    if (n == 1) {
+      partitions.add(new Partition("", Collections.emptyList()));
+      return partitions;
+    }
+    partitions.add(new Partition("timestamp < $1", Collections.singletonList(bounds.get(0))));
+    for (int i = 1; i < bounds.size(); i++) {
+      List<Object> params = new ArrayList<>();
+      params.add(bounds.get(i - 1));
+      params.add(bounds.get(i));
+      partitions.add(new Partition("timestamp >= $1 AND timestamp < $2", params));
+    }
+    partitions.add(new Partition("timestamp >= $1", Collections.singletonList(bounds.get(bounds.size() - 1))));
+    return partitions;
+  }
+
+  /**
+   * Distributes a set of values of a field into n buckets, each of which
+   * selects the items whose field equals one of the bucket's values. Only
+   * items matching one of the given values are covered. Suitable for
+   * bucketing tokens by account ID, for example.
+   * @param field the name of the field, such as "account_id"
+   * @param values the values of the field to scan
+   * @param n the number of partitions
+   * @return a list of at most n partitions
+   */
+  public static List<Partition> valueBuckets(String field, List<?> values, int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("number of partitions must be positive");
+    }
+
+    List<List<Object>> buckets = new ArrayList<>();
+    for (int i = 0; i < Math.min(n, values.size()); i++) {
+      buckets.add(new ArrayList<>());
+    }
+    for (int i = 0; i < values.size(); i++) {
+      buckets.get(i % buckets.size()).add(values.get(i));
+    }
+
+    List<Partition> partitions = new ArrayList<>();
+    for (List<Object> bucket : buckets) {
+      StringBuilder filter = new StringBuilder();
+      for (int i = 0; i < bucket.size(); i++) {
+        if (i > 0) {
+          filter.append(" OR ");
+        }
+        filter.append(field).append(" = $").append(i + 1);
+      }
+      partitions.add(new Partition(filter.toString(), bucket));
+    }
+    return partitions;
+  }
+}
@@ -0,0 +1,151 @@
+package com.seq.api;
+
+import com.seq.exception.ChainException;
+import com.seq.http.Client;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A PartitionedScan splits a query into disjoint sub-queries, one per
+ * {@link Partition}, and exposes their combined results as a
+ * {@link Spliterator}. Each sub-query follows its own chain of cursors, so a
+ * parallel stream scans the partitions concurrently.
+ *
+ * <p>Scan all actions of the last day on four partitions:</p>
+ * <pre>{@code
+ * PartitionedScan<Action> scan = new PartitionedScan<>(
+ *   ledger,
+ *   new Action.ListBuilder().setFilter("flavor_id = $1").addFilterParameter("usd"),
+ *   Partition.timestampRanges(yesterday, now, 4));
+ * long total = scan.stream(true).mapToLong(a -> a.amount).sum();
+ * }</pre>
+ *
+ * For sum queries, the partial sums of each partition can be combined with
+ * {@link ActionSum#merge} or {@link TokenSum#merge}.
+ *
+ * @param <T> type of api object
+ */
+public class PartitionedScan<T> {
+  private final Client client;
+  private final BaseQueryBuilder<?> builder;
+  private final List<Partition> partitions;
+  private int prefetchPages;
+
+  /**
+   * When set, contains the first exception that caused the scan of a
+   * partition to exit prematurely.
+   */
+  public volatile ChainException exception;
+
+  /**
+   * Creates a scan of the given query split along the given partitions.
+   * @param client ledger API connection object
+   * @param builder the query to scan
+   * @param partitions disjoint predicates covering the query's results
+   */
+  public PartitionedScan(Client client, BaseQueryBuilder<?> builder, List<Partition> partitions) {
+    this.client = client;
+    this.builder = builder;
+    this.partitions = partitions;
+  }
+
+  /**
+   * Enables read-ahead of pages within each partition.
+   * @param pages the number of pages to read ahead, or 0 to disable
+   * @return this scan
+   * @see BaseItemIterable#setPrefetch(int)
+   */
+  public PartitionedScan<T> setPrefetch(int pages) {
+    this.prefetchPages = pages;
+    return this;
+  }
+
+  /**
+   * Returns a spliterator over the results of all partitions. Splitting
+   * divides the remaining partitions between the two halves.
+   * @return a spliterator over api objects of type T
+   */
+  public Spliterator<T> spliterator() {
+    return new PartitionSpliterator(0, partitions.size());
+  }
+
+  /**
+   * Returns a stream over the results of all partitions.
+   * @param parallel whether to scan partitions concurrently
+   * @return a stream of api objects of type T
+   */
+  public Stream<T> stream(boolean parallel) {
+    return StreamSupport.stream(spliterator(), parallel);
+  }
+
+  private BaseItemIterable<T> iterable(Partition partition) {
+    BaseItemIterable<T> iterable;
+    try {
+      iterable = builder.narrow(partition).getIterable(client);
+    } catch (ChainException e) {
+      throw new IllegalStateException(e);
+    }
+    return iterable.setPrefetch(prefetchPages);
+  }
+
+  /**
+   * Spliterator over the partitions in [from, to).
+   */
+  private class PartitionSpliterator implements Spliterator<T> {
+    private int from;
+    private final int to;
+    private BaseItemIterable<T> current;
+    private Iterator<T> items;
+
+    PartitionSpliterator(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      while (true) {
+        if (items != null && items.hasNext()) {
+          action.accept(items.next());
+          return true;
+        }
+        if (current != null && current.exception != null && exception == null) {
+          exception = current.exception;
+        }
+        if (from >= to) {
+          return false;
+        }
+        current = iterable(partitions.get(from++));
+        items = current.iterator();
+      }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      // Only partitions that have not been started can be handed off.
+      int remaining = to - from;
+      if (remaining < 2) {
+        return null;
+      }
+      int mid = from + remaining / 2;
+      PartitionSpliterator split = new PartitionSpliterator(from, mid);
+      this.from = mid;
+      return split;
+    }
+
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      return Spliterator.NONNULL;
+    }
+  }
+}
@@ -49,10 +49,48 @@ public class Query {
 
   public List<String> ids;
 
+  /**
+   * The JSON fields of each item to decode from the response, or null for
+   * all of them. Not sent to the API.
+   */
+  public List<String> select;
+
   public Query() {
     this.filterParams = new ArrayList<>();
     this.sumBy = new ArrayList<>();
     this.groupBy = new ArrayList<>();
     this.ids = new ArrayList<>();
   }
+
+  /**
+   * Creates a copy of another query.
+   * @param other the query to copy
+   */
+  Query(Query other) {
+    this.filter = other.filter;
+    this.filterParams = new ArrayList<>(other.filterParams);
+    this.pageSize = other.pageSize;
+    this.cursor = other.cursor;
+    this.timeout = other.timeout;
+    this.startTime = other.startTime;
+    this.endTime = other.endTime;
+    this.timestamp = other.timestamp;
+    this.sumBy = new ArrayList<>(other.sumBy);
+    this.groupBy = other.groupBy == null ? null : new ArrayList<>(other.groupBy);
+    this.ids = new ArrayList<>(other.ids);
+    this.select = other.select == null ? null : new ArrayList<>(other.select);
+  }
+
+  /**
+   * Creates a query for the page at a cursor, decoding the same fields as
+   * this query.
+   * @param cursor the cursor of the page
+   * @return a new query
+   */
+  Query atCursor(String cursor) {
+    Query next = new Query();
+    next.cursor = cursor;
+    next.select = this.select;
+    return next;
+  }
 }
@@ -0,0 +1,36 @@
+package com.seq.api;
+
+/**
+ * The kinds of object that carry tags. Tags of one kind have the same
+ * shape wherever they appear, for example the tags of an account and the
+ * source and destination account tags in an action's snapshot.
+ */
+public enum TagKind {
+  /**
+   * The tags of accounts, including the account tags of tokens and the
+   * account tags in action snapshots.
+   */
+  ACCOUNT,
+
+  /**
+   * The tags of actions, including the action tags in action snapshots.
+   */
+  ACTION,
+
+  /**
+   * The tags of flavors, including the flavor tags of tokens and action
+   * snapshots.
+   */
+  FLAVOR,
+
+  /**
+   * The tags of tokens, including the token tags in action snapshots.
+   */
+  TOKEN,
+
+  /**
+   * The tags of transactions, including the transaction tags in action
+   * snapshots.
+   */
+  TRANSACTION,
+}
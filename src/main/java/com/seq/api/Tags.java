@@ -0,0 +1,17 @@
+package com.seq.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field that holds the tags of an object of the given kind, so
+ * that a codec can decode them into the class registered for that kind.
+ * See {@link com.seq.http.GsonCodec#setTagType(TagKind, Class)}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Tags {
+  TagKind value();
+}
@@ -4,6 +4,8 @@ import com.seq.exception.APIException;
 import com.seq.exception.BadURLException;
 import com.seq.exception.ChainException;
 import com.seq.http.Client;
+import com.seq.http.Deadline;
+import com.seq.http.TagBinding;
 
 import com.seq.exception.ConnectivityException;
 import com.seq.exception.JSONException;
@@ -14,6 +16,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Token queries are designed to provide insights into tokens contained in an
@@ -44,6 +47,7 @@ public class Token {
    */
   @SerializedName("flavor_tags")
   @Expose
+  @Tags(TagKind.FLAVOR)
   public Map<String, Object> flavorTags;
 
   /**
@@ -58,6 +62,7 @@ public class Token {
    */
   @SerializedName("account_tags")
   @Expose
+  @Tags(TagKind.ACCOUNT)
   public Map<String, Object> accountTags;
 
   /**
@@ -65,8 +70,21 @@ public class Token {
    */
   @SerializedName("tags")
   @Expose
+  @Tags(TagKind.TOKEN)
   public Map<String, Object> tags;
 
+  /**
+   * Returns the token's tags as an instance of the given class. Tags
+   * decoded by a codec with that class registered for token tags are
+   * returned as decoded; otherwise they are converted from the map.
+   * @param type the class of the tags
+   * @param <T> the class of the tags
+   * @return the tags, or null if the token has none
+   */
+  public <T> T getTags(Class<T> type) {
+    return TagBinding.bind(tags, type);
+  }
+
   /**
    * A single page of tokens returned from a query.
    */
@@ -104,7 +122,19 @@ public class Token {
      * @throws ChainException
      */
     public Page getPage(Client client) throws ChainException {
-      return client.request("list-tokens", this.next, Page.class);
+      return client.request("list-tokens", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Executes the query, returning a page of tokens that match the query,
+     * or failing when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a page of tokens
+     * @throws ChainException
+     */
+    public Page getPage(Client client, Deadline deadline) throws ChainException {
+      return client.request("list-tokens", this.next, Page.class, deadline, requestClass);
     }
 
     /**
@@ -116,9 +146,42 @@ public class Token {
      * @throws ChainException
      */
     public Page getPage(Client client, String cursor) throws ChainException {
-      Query next = new Query();
-      next.cursor = cursor;
-      return client.request("list-tokens", next, Page.class);
+      Query next = this.next.atCursor(cursor);
+      return client.request("list-tokens", next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of tokens
+     * that match the query.
+     * @param client ledger API connection object
+     * @return a future page of tokens
+     */
+    public CompletableFuture<Page> getPageAsync(Client client) {
+      return client.requestAsync("list-tokens", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of tokens
+     * that match the query.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future page of tokens
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, Deadline deadline) {
+      return client.requestAsync("list-tokens", this.next, Page.class, deadline, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of tokens
+     * that match the query beginning with provided cursor.
+     * @param client ledger API connection object
+     * @param cursor string representing encoded query object
+     * @return a future page of tokens
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, String cursor) {
+      Query next = this.next.atCursor(cursor);
+      return client.requestAsync("list-tokens", next, Page.class, null, requestClass);
     }
 
     /**
@@ -129,7 +192,7 @@ public class Token {
      * @throws ChainException
      */
     public ItemIterable getIterable(Client client) throws ChainException {
-      return new ItemIterable(client, "list-tokens", this.next);
+      return withRequestClass(new ItemIterable(client, "list-tokens", this.next));
     }
   }
 
@@ -144,7 +207,19 @@ public class Token {
      * @throws ChainException
      */
     public TokenSum.Page getPage(Client client) throws ChainException {
-      return client.request("sum-tokens", this.next, TokenSum.Page.class);
+      return client.request("sum-tokens", this.next, TokenSum.Page.class, null, requestClass);
+    }
+
+    /**
+     * Executes the query, returning a page of token sums that match the query,
+     * or failing when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a page of token sums
+     * @throws ChainException
+     */
+    public TokenSum.Page getPage(Client client, Deadline deadline) throws ChainException {
+      return client.request("sum-tokens", this.next, TokenSum.Page.class, deadline, requestClass);
     }
 
     /**
@@ -156,9 +231,42 @@ public class Token {
      * @throws ChainException
      */
     public TokenSum.Page getPage(Client client, String cursor) throws ChainException {
-      Query next = new Query();
-      next.cursor = cursor;
-      return client.request("sum-tokens", next, TokenSum.Page.class);
+      Query next = this.next.atCursor(cursor);
+      return client.request("sum-tokens", next, TokenSum.Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of token sums
+     * that match the query.
+     * @param client ledger API connection object
+     * @return a future page of token sums
+     */
+    public CompletableFuture<TokenSum.Page> getPageAsync(Client client) {
+      return client.requestAsync("sum-tokens", this.next, TokenSum.Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of token sums
+     * that match the query.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future page of token sums
+     */
+    public CompletableFuture<TokenSum.Page> getPageAsync(Client client, Deadline deadline) {
+      return client.requestAsync("sum-tokens", this.next, TokenSum.Page.class, deadline, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of token sums
+     * that match the query beginning with provided cursor.
+     * @param client ledger API connection object
+     * @param cursor string representing encoded query object
+     * @return a future page of token sums
+     */
+    public CompletableFuture<TokenSum.Page> getPageAsync(Client client, String cursor) {
+      Query next = this.next.atCursor(cursor);
+      return client.requestAsync("sum-tokens", next, TokenSum.Page.class, null, requestClass);
     }
 
     /**
@@ -169,7 +277,7 @@ public class Token {
      * @throws ChainException
      */
     public TokenSum.ItemIterable getIterable(Client client) throws ChainException {
-      return new TokenSum.ItemIterable(client, "sum-tokens", this.next);
+      return withRequestClass(new TokenSum.ItemIterable(client, "sum-tokens", this.next));
     }
 
     /**
@@ -10,7 +10,11 @@ import com.seq.exception.JSONException;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.annotations.Expose;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -40,6 +44,7 @@ public class TokenSum {
    */
   @SerializedName("flavor_tags")
   @Expose
+  @Tags(TagKind.FLAVOR)
   public Map<String, Object> flavorTags;
 
   /**
@@ -54,6 +59,7 @@ public class TokenSum {
    */
   @SerializedName("account_tags")
   @Expose
+  @Tags(TagKind.ACCOUNT)
   public Map<String, Object> accountTags;
 
   /**
@@ -61,6 +67,7 @@ public class TokenSum {
    */
   @SerializedName("tags")
   @Expose
+  @Tags(TagKind.TOKEN)
   public Map<String, Object> tags;
 
   /**
@@ -76,4 +83,39 @@ public class TokenSum {
       super(client, path, nextQuery, Page.class);
     }
   }
+
+  /**
+   * Merges partial sums, such as those returned by the partitions of a
+   * {@link PartitionedScan}, by adding together the amounts of sums that
+   * belong to the same group. The first sum of each group is updated in
+   * place and returned.
+   * @param sums partial sums over disjoint sets of tokens
+   * @return one sum per group, in order of first appearance
+   */
+  public static List<TokenSum> merge(Iterable<TokenSum> sums) {
+    Map<List<Object>, TokenSum> groups = new LinkedHashMap<>();
+    for (TokenSum sum : sums) {
+      List<Object> key = sum.groupKey();
+      TokenSum group = groups.get(key);
+      if (group == null) {
+        groups.put(key, sum);
+      } else {
+        group.amount += sum.amount;
+      }
+    }
+    return new ArrayList<>(groups.values());
+  }
+
+  /**
+   * Returns the values of every field other than amount, which together
+   * identify the group the sum belongs to.
+   */
+  private List<Object> groupKey() {
+    return Arrays.<Object>asList(
+        flavorId,
+        flavorTags,
+        accountId,
+        accountTags,
+        tags);
+  }
 }
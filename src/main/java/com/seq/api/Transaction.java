@@ -6,6 +6,7 @@ import com.google.gson.annotations.Expose;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 import com.seq.exception.*;
 import com.seq.http.*;
@@ -28,6 +29,14 @@ public class Transaction {
   @Expose
   public Date timestamp;
 
+  /**
+   * Time of the transaction, in milliseconds since the epoch, or 0 if it
+   * has no timestamp. Decoded along with {@link #timestamp}, or instead of
+   * it if the client's codec uses
+   * {@link com.seq.http.TimestampMode#EPOCH_MILLIS}.
+   */
+  public long timestampMillis;
+
   /**
    * Sequence number of the transaction.
    */
@@ -45,8 +54,21 @@ public class Transaction {
    * User-specified key-value data embedded into the transaction.
    */
   @Expose
+  @Tags(TagKind.TRANSACTION)
   public Map<String, Object> tags;
 
+  /**
+   * Returns the transaction's tags as an instance of the given class. Tags
+   * decoded by a codec with that class registered for transaction tags are
+   * returned as decoded; otherwise they are converted from the map.
+   * @param type the class of the tags
+   * @param <T> the class of the tags
+   * @return the tags, or null if the transaction has none
+   */
+  public <T> T getTags(Class<T> type) {
+    return TagBinding.bind(tags, type);
+  }
+
   /**
    * A single page of transactions returned from a query.
    */
@@ -72,7 +94,19 @@ public class Transaction {
      * @throws ChainException
      */
     public Page getPage(Client client) throws ChainException {
-      return client.request("list-transactions", this.next, Page.class);
+      return client.request("list-transactions", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Executes the query, returning a page of transactions, or failing when
+     * the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a page of transactions
+     * @throws ChainException
+     */
+    public Page getPage(Client client, Deadline deadline) throws ChainException {
+      return client.request("list-transactions", this.next, Page.class, deadline, requestClass);
     }
 
     /**
@@ -84,9 +118,42 @@ public class Transaction {
      * @throws ChainException
      */
     public Page getPage(Client client, String cursor) throws ChainException {
-      Query next = new Query();
-      next.cursor = cursor;
-      return client.request("list-transactions", next, Page.class);
+      Query next = this.next.atCursor(cursor);
+      return client.request("list-transactions", next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of transactions
+     * that match the query.
+     * @param client ledger API connection object
+     * @return a future page of transactions
+     */
+    public CompletableFuture<Page> getPageAsync(Client client) {
+      return client.requestAsync("list-transactions", this.next, Page.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of transactions
+     * that match the query.
+     * Fails when the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future page of transactions
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, Deadline deadline) {
+      return client.requestAsync("list-transactions", this.next, Page.class, deadline, requestClass);
+    }
+
+    /**
+     * Asynchronously executes the query, returning a future page of transactions
+     * that match the query beginning with provided cursor.
+     * @param client ledger API connection object
+     * @param cursor string representing encoded query object
+     * @return a future page of transactions
+     */
+    public CompletableFuture<Page> getPageAsync(Client client, String cursor) {
+      Query next = this.next.atCursor(cursor);
+      return client.requestAsync("list-transactions", next, Page.class, null, requestClass);
     }
 
     /**
@@ -97,7 +164,7 @@ public class Transaction {
      * @throws ChainException
      */
     public ItemIterable getIterable(Client client) throws ChainException {
-      return new ItemIterable(client, "list-transactions", this.next);
+      return withRequestClass(new ItemIterable(client, "list-transactions", this.next));
     }
   }
 
@@ -159,6 +226,7 @@ public class Transaction {
      */
     @SerializedName("tags")
     @Expose
+    @Tags(TagKind.ACTION)
     public Map<String, Object> tags;
 
     public static class Snapshot {
@@ -167,6 +235,7 @@ public class Transaction {
        */
       @SerializedName("action_tags")
       @Expose
+      @Tags(TagKind.ACTION)
       public Map<String, Object> actionTags;
 
       /**
@@ -174,6 +243,7 @@ public class Transaction {
        */
       @SerializedName("flavor_tags")
       @Expose
+      @Tags(TagKind.FLAVOR)
       public Map<String, Object> flavorTags;
 
       /**
@@ -181,6 +251,7 @@ public class Transaction {
        */
       @SerializedName("source_account_tags")
       @Expose
+      @Tags(TagKind.ACCOUNT)
       public Map<String, Object> sourceAccountTags;
 
       /**
@@ -188,6 +259,7 @@ public class Transaction {
        */
       @SerializedName("destination_account_tags")
       @Expose
+      @Tags(TagKind.ACCOUNT)
       public Map<String, Object> destinationAccountTags;
 
       /**
@@ -195,6 +267,7 @@ public class Transaction {
        */
       @SerializedName("token_tags")
       @Expose
+      @Tags(TagKind.TOKEN)
       public Map<String, Object> tokenTags;
 
       /**
@@ -202,6 +275,7 @@ public class Transaction {
        */
       @SerializedName("transaction_tags")
       @Expose
+      @Tags(TagKind.TRANSACTION)
       public Map<String, Object> transactionTags;
     }
   }
@@ -217,6 +291,8 @@ public class Transaction {
     @Expose
     protected Map<String, Object> transactionTags;
 
+    protected RequestClass requestClass;
+
     /**
      * Builds, signs, and submits a tranasaction.
      * @param client ledger API connection object
@@ -224,7 +300,41 @@ public class Transaction {
      * @throws ChainException
      */
     public Transaction transact(Client client) throws ChainException {
-      return client.request("transact", this, Transaction.class);
+      return client.request("transact", this, Transaction.class, null, requestClass);
+    }
+
+    /**
+     * Builds, signs, and submits a transaction, failing when the deadline
+     * passes or is cancelled. A transaction whose request was abandoned may
+     * still have been committed.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return the submitted transaction object
+     * @throws ChainException
+     */
+    public Transaction transact(Client client, Deadline deadline) throws ChainException {
+      return client.request("transact", this, Transaction.class, deadline, requestClass);
+    }
+
+    /**
+     * Asynchronously builds, signs, and submits a transaction, without
+     * blocking the calling thread.
+     * @param client ledger API connection object
+     * @return a future completed with the submitted transaction object
+     */
+    public CompletableFuture<Transaction> transactAsync(Client client) {
+      return client.requestAsync("transact", this, Transaction.class, null, requestClass);
+    }
+
+    /**
+     * Asynchronously builds, signs, and submits a transaction, failing when
+     * the deadline passes or is cancelled.
+     * @param client ledger API connection object
+     * @param deadline bound on the request's total time
+     * @return a future completed with the submitted transaction object
+     */
+    public CompletableFuture<Transaction> transactAsync(Client client, Deadline deadline) {
+      return client.requestAsync("transact", this, Transaction.class, deadline, requestClass);
     }
 
     public Builder() {
@@ -242,6 +352,18 @@ public class Transaction {
       return this;
     }
 
+    /**
+     * Sends the transaction in the lane of the given class, for example
+     * {@link RequestClass#BULK} for batch imports that should not compete
+     * with interactive payments.
+     * @param requestClass the class of the request
+     * @return updated builder
+     */
+    public Builder setRequestClass(RequestClass requestClass) {
+      this.requestClass = requestClass;
+      return this;
+    }
+
     /**
      * Adds a key-value pair to the transaction's tags.
      * @param key key of the tag field
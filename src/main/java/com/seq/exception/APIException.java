@@ -92,6 +92,32 @@ public class APIException extends ChainException {
     public Integer index;
   }
 
+  /**
+   * Initializes an error to be decoded from a response, without a stack
+   * trace. Retriable errors are expected in bulk, so the client captures
+   * a stack trace only for the errors it passes to the caller as they
+   * are, see {@link #APIException(APIException)}.
+   */
+  public APIException() {
+    super(null, null, false);
+  }
+
+  /**
+   * Copies an error decoded from a response, capturing the stack trace of
+   * the current thread.
+   * @param err the decoded error
+   */
+  public APIException(APIException err) {
+    super();
+    this.seqCode = err.seqCode;
+    this.chainMessage = err.chainMessage;
+    this.detail = err.detail;
+    this.data = err.data;
+    this.retriable = err.retriable;
+    this.requestId = err.requestId;
+    this.statusCode = err.statusCode;
+  }
+
   @Override
   public String getMessage() {
     String s = "";
@@ -15,4 +15,18 @@ public class ChainException extends Exception {
   public ChainException(String message, Throwable cause) {
     super(message, cause);
   }
+
+  /**
+   * Initializes an exception that may skip capturing its stack trace. Used
+   * for failures that are expected in bulk, such as retriable errors and
+   * fast-failed requests, where the stack trace is not worth its cost.
+   * Suppression is disabled, since such an exception may be shared by
+   * several failures.
+   * @param message the error message
+   * @param cause the original cause
+   * @param writableStackTrace whether to capture the stack trace
+   */
+  protected ChainException(String message, Throwable cause, boolean writableStackTrace) {
+    super(message, cause, false, writableStackTrace);
+  }
 }
@@ -0,0 +1,13 @@
+package com.seq.exception;
+
+/**
+ * CircuitOpenException is thrown when a request is not sent because recent
+ * requests to the same ledger endpoint have failed, and the client's
+ * circuit breaker is waiting before trying it again. A single instance is
+ * reused for every rejection, without a stack trace.
+ */
+public class CircuitOpenException extends ChainException {
+  public CircuitOpenException(String message) {
+    super(message, null, false);
+  }
+}
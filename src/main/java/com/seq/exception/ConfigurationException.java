@@ -20,4 +20,15 @@ public class ConfigurationException extends ChainException {
   public ConfigurationException(String message, Throwable cause) {
     super(message, cause);
   }
+
+  /**
+   * Initializes new exception while storing original cause, optionally
+   * without a stack trace. Used for I/O errors that are retried.
+   * @param message the error message
+   * @param cause the original cause
+   * @param writableStackTrace whether to capture the stack trace
+   */
+  public ConfigurationException(String message, Throwable cause, boolean writableStackTrace) {
+    super(message, cause, writableStackTrace);
+  }
 }
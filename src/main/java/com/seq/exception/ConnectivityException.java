@@ -9,10 +9,13 @@ import java.io.IOException;
  * not contain headers that are included in all Sequence API responses. This
  * could arise due to a badly-configured proxy, or other upstream network
  * issues.
+ * <br>
+ * ConnectivityExceptions are always retried, so they are created without a
+ * stack trace.
  */
 public class ConnectivityException extends ChainException {
   public ConnectivityException(Response resp) {
-    super(formatMessage(resp));
+    super(formatMessage(resp), null, false);
   }
 
   private static String formatMessage(Response resp) {
@@ -0,0 +1,13 @@
+package com.seq.exception;
+
+/**
+ * DeadlineExceededException is thrown when a request runs out of time
+ * before a successful response is received, either while an attempt is in
+ * flight or because the remaining time could not fit another retry. The
+ * cause, if any, is the failure of the last attempt.
+ */
+public class DeadlineExceededException extends ChainException {
+  public DeadlineExceededException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,12 @@
+package com.seq.exception;
+
+/**
+ * LimitExceededException is thrown when a request is rejected by the
+ * client's concurrency limiter, either immediately or after waiting too
+ * long for a slot. The request was never sent to the ledger.
+ */
+public class LimitExceededException extends ChainException {
+  public LimitExceededException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,12 @@
+package com.seq.exception;
+
+/**
+ * RequestCancelledException is thrown when a request is abandoned because
+ * its deadline was cancelled by the caller. An attempt that was already
+ * sent may still have been processed by the ledger.
+ */
+public class RequestCancelledException extends ChainException {
+  public RequestCancelledException(String message) {
+    super(message);
+  }
+}
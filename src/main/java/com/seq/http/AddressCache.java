@@ -0,0 +1,134 @@
+package com.seq.http;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keeps the ledger addresses returned by /hello on disk, one file per
+ * ledger, so that a new process can send its first request without waiting
+ * for /hello. Files are replaced atomically, and an address is not used
+ * after its TTL. The credential is not stored, only a digest of it, so an
+ * address is never used with a credential of another team.
+ */
+class AddressCache {
+  private final Path directory;
+  private final Gson gson = new Gson();
+
+  AddressCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * A cached /hello response.
+   */
+  static class Entry {
+    @SerializedName("team_name")
+    String teamName;
+
+    @SerializedName("addr")
+    String addr;
+
+    @SerializedName("addr_ttl_seconds")
+    int addrTtlSeconds;
+
+    @SerializedName("expires_at")
+    long expiresAtMillis;
+
+    @SerializedName("credential_digest")
+    String credentialDigest;
+  }
+
+  /**
+   * Returns the unexpired address of a ledger, or null if there is none.
+   */
+  Entry load(String ledger, String credential, long nowMillis) {
+    Entry entry;
+    try (Reader r = Files.newBufferedReader(file(ledger), StandardCharsets.UTF_8)) {
+      entry = gson.fromJson(r, Entry.class);
+    } catch (NoSuchFileException ex) {
+      return null;
+    } catch (IOException | JsonParseException ex) {
+      // A damaged file is replaced by the next successful /hello.
+      return null;
+    }
+    if (entry == null || entry.addr == null || entry.teamName == null
+        || !digest(credential).equals(entry.credentialDigest)
+        || nowMillis >= entry.expiresAtMillis) {
+      return null;
+    }
+    return entry;
+  }
+
+  /**
+   * Stores the address of a ledger, replacing the previous one. Failures
+   * are ignored, since the cache only saves a request.
+   */
+  void store(String ledger, String credential, String teamName, String addr, int addrTtlSeconds,
+      long expiresAtMillis) {
+    Entry entry = new Entry();
+    entry.teamName = teamName;
+    entry.addr = addr;
+    entry.addrTtlSeconds = addrTtlSeconds;
+    entry.expiresAtMillis = expiresAtMillis;
+    entry.credentialDigest = digest(credential);
+
+    Path tmp = null;
+    try {
+      Files.createDirectories(directory);
+      tmp = Files.createTempFile(directory, ".hello-", ".tmp");
+      try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        gson.toJson(entry, w);
+      }
+      try {
+        Files.move(tmp, file(ledger), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(tmp, file(ledger), StandardCopyOption.REPLACE_EXISTING);
+      }
+      tmp = null;
+    } catch (IOException ex) {
+    } finally {
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException ex) {
+        }
+      }
+    }
+  }
+
+  private Path file(String ledger) {
+    try {
+      return directory.resolve(URLEncoder.encode(ledger, "UTF-8") + ".json");
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static String digest(String credential) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(credential.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 16; i++) {
+        sb.append(String.format("%02x", hash[i]));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
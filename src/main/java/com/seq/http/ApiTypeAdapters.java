@@ -0,0 +1,137 @@
+package com.seq.http;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * The base class and helpers of the type adapters generated for the API
+ * objects at build time, in {@code GeneratedTypeAdapters}. Each adapter
+ * switches on the field name and assigns the field directly. Unknown
+ * fields are skipped.
+ */
+final class ApiTypeAdapters {
+  /**
+   * Returned by {@link #readEpochMillis} for a null timestamp, since 0 is
+   * the epoch itself. Outside the range of parsed timestamps.
+   */
+  static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+  private ApiTypeAdapters() {}
+
+  /**
+   * Reads and writes the fields of a JSON object. Subclasses handle a
+   * field by name and return false for fields they do not know.
+   */
+  abstract static class ObjectAdapter<T> extends TypeAdapter<T> {
+    abstract T create();
+
+    abstract boolean readField(JsonReader in, String name, T value) throws IOException;
+
+    abstract void writeFields(JsonWriter out, T value) throws IOException;
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+      T value = create();
+      in.beginObject();
+      while (in.hasNext()) {
+        if (!readField(in, in.nextName(), value)) {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return value;
+    }
+
+    @Override
+    public void write(JsonWriter out, T value) throws IOException {
+      out.beginObject();
+      writeFields(out, value);
+      out.endObject();
+    }
+  }
+
+  static String readString(JsonReader in) throws IOException {
+    JsonToken token = in.peek();
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    if (token == JsonToken.BOOLEAN) {
+      return Boolean.toString(in.nextBoolean());
+    }
+    return in.nextString();
+  }
+
+  static long readLong(JsonReader in, long current) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return current;
+    }
+    return in.nextLong();
+  }
+
+  static int readInt(JsonReader in, int current) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return current;
+    }
+    return in.nextInt();
+  }
+
+  static boolean readBoolean(JsonReader in, boolean current) throws IOException {
+    JsonToken token = in.peek();
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+      return current;
+    }
+    if (token == JsonToken.STRING) {
+      return Boolean.parseBoolean(in.nextString());
+    }
+    return in.nextBoolean();
+  }
+
+  /**
+   * Reads a timestamp as milliseconds since the epoch, or
+   * {@link #NO_TIMESTAMP} for null.
+   */
+  static long readEpochMillis(TypeAdapter<Date> dates, JsonReader in) throws IOException {
+    if (dates instanceof Iso8601DateAdapter) {
+      return ((Iso8601DateAdapter) dates).readEpochMillis(in);
+    }
+    Date date = dates.read(in);
+    return date == null ? NO_TIMESTAMP : date.getTime();
+  }
+
+  /**
+   * Returns the Date of a timestamp read by {@link #readEpochMillis}, or
+   * null if there was none or the codec does not decode Dates.
+   */
+  static Date toDate(TypeAdapter<Date> dates, long millis) {
+    if (dates instanceof Iso8601DateAdapter) {
+      return ((Iso8601DateAdapter) dates).toDate(millis);
+    }
+    return millis == NO_TIMESTAMP ? null : new Date(millis);
+  }
+
+  /**
+   * Returns the value of a {@code <name>Millis} field for a timestamp read
+   * by {@link #readEpochMillis}, which is 0 if there was none.
+   */
+  static long toMillisField(long millis) {
+    return millis == NO_TIMESTAMP ? 0 : millis;
+  }
+
+  /**
+   * Writes a timestamp from its Date, or from its epoch milliseconds if
+   * it was decoded without a Date.
+   */
+  static void writeTimestamp(TypeAdapter<Date> dates, JsonWriter out, Date date, long millis)
+      throws IOException {
+    dates.write(out, date == null && millis != 0 ? new Date(millis) : date);
+  }
+}
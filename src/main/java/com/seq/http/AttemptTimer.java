@@ -0,0 +1,173 @@
+package com.seq.http;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Collects the phase timestamps of a single request attempt. An
+ * AttemptTimer travels with its request as the request's tag, and is
+ * handed to OkHttp as the event listener for the call by {@link #FACTORY}.
+ * The events of one call are delivered sequentially, so no synchronization
+ * is needed.
+ */
+class AttemptTimer extends EventListener {
+  static final EventListener.Factory FACTORY = new EventListener.Factory() {
+    public EventListener create(Call call) {
+      Object tag = call.request().tag();
+      if (tag instanceof AttemptTimer) {
+        return (AttemptTimer) tag;
+      }
+      return EventListener.NONE;
+    }
+  };
+
+  private final RequestTimingsListener listener;
+  private final String action;
+  private final String attemptId;
+  private final long serializeNanos;
+  private final long created;
+
+  private long callStart;
+  private long dnsStart, dnsNanos;
+  private long connectStart, connectNanos;
+  private long tlsStart, tlsNanos;
+  private long acquired;
+  private long writeStart, writeEnd;
+  private long headersEnd;
+  private long deserializeNanos;
+  private boolean reused = true;
+  private String requestId;
+  private boolean reported;
+
+  AttemptTimer(RequestTimingsListener listener, String action, String attemptId, long serializeNanos) {
+    this.listener = listener;
+    this.action = action;
+    this.attemptId = attemptId;
+    this.serializeNanos = serializeNanos;
+    this.created = System.nanoTime();
+  }
+
+  /**
+   * Returns the timer attached to a request, or null if timings are not
+   * being collected.
+   */
+  static AttemptTimer of(Request request) {
+    Object tag = request.tag();
+    return tag instanceof AttemptTimer ? (AttemptTimer) tag : null;
+  }
+
+  void requestId(String requestId) {
+    this.requestId = requestId;
+  }
+
+  void deserialized(long nanos) {
+    this.deserializeNanos = nanos;
+  }
+
+  /**
+   * Delivers the timings to the listener. Only the first call has any
+   * effect.
+   */
+  void report(boolean failed) {
+    if (reported) {
+      return;
+    }
+    reported = true;
+
+    long end = System.nanoTime();
+    long queue = callStart > 0 ? callStart - created : 0;
+    long wait = 0;
+    if (acquired > 0) {
+      wait = Math.max(0, acquired - callStart - dnsNanos - connectNanos);
+    }
+    long write = writeEnd > 0 ? writeEnd - writeStart : 0;
+    long ttfb = headersEnd > 0 && writeEnd > 0 ? headersEnd - writeEnd : 0;
+    listener.onTimings(new RequestTimings(
+        action, attemptId, requestId, serializeNanos, queue, wait,
+        dnsNanos, connectNanos, tlsNanos, write, ttfb, deserializeNanos,
+        end - created, reused, failed));
+  }
+
+  @Override
+  public void callStart(Call call) {
+    callStart = System.nanoTime();
+  }
+
+  @Override
+  public void dnsStart(Call call, String domainName) {
+    dnsStart = System.nanoTime();
+  }
+
+  @Override
+  public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+    dnsNanos += System.nanoTime() - dnsStart;
+  }
+
+  @Override
+  public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+    reused = false;
+    connectStart = System.nanoTime();
+  }
+
+  @Override
+  public void secureConnectStart(Call call) {
+    tlsStart = System.nanoTime();
+  }
+
+  @Override
+  public void secureConnectEnd(Call call, Handshake handshake) {
+    tlsNanos += System.nanoTime() - tlsStart;
+  }
+
+  @Override
+  public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+    connectNanos += System.nanoTime() - connectStart;
+  }
+
+  @Override
+  public void connectFailed(Call call, InetSocketAddress address, Proxy proxy,
+      Protocol protocol, IOException ioe) {
+    connectNanos += System.nanoTime() - connectStart;
+  }
+
+  @Override
+  public void connectionAcquired(Call call, Connection connection) {
+    acquired = System.nanoTime();
+  }
+
+  @Override
+  public void requestHeadersStart(Call call) {
+    writeStart = System.nanoTime();
+  }
+
+  @Override
+  public void requestHeadersEnd(Call call, Request request) {
+    writeEnd = System.nanoTime();
+  }
+
+  @Override
+  public void requestBodyEnd(Call call, long byteCount) {
+    writeEnd = System.nanoTime();
+  }
+
+  @Override
+  public void responseHeadersEnd(Call call, Response response) {
+    headersEnd = System.nanoTime();
+  }
+
+  @Override
+  public void callFailed(Call call, IOException ioe) {
+    report(true);
+  }
+}
@@ -0,0 +1,82 @@
+package com.seq.http;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tags decoded straight into an instance of the class registered for their
+ * kind. The instance is returned by {@link #value()} and by
+ * {@link TagBinding#bind(Map, Class)}. As a map, the tags are a read-only
+ * view converted from the instance on first access.
+ */
+public final class BoundTagMap extends AbstractMap<String, Object> {
+  private static final TypeToken<Map<String, Object>> TAGS = new TypeToken<Map<String, Object>>() {};
+
+  private final Object value;
+  private volatile Map<String, Object> view;
+
+  BoundTagMap(Object value) {
+    this.value = value;
+  }
+
+  /**
+   * Returns the decoded tags.
+   * @return an instance of the class registered for the kind of the tags
+   */
+  public Object value() {
+    return value;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    Map<String, Object> map = view;
+    if (map == null) {
+      Map<String, Object> tags = TagBinding.GSON.fromJson(TagBinding.GSON.toJsonTree(value), TAGS.getType());
+      map = Collections.unmodifiableMap(tags);
+      view = map;
+    }
+    return map.entrySet();
+  }
+
+  /**
+   * Decodes tags into instances of a class, and writes them back out from
+   * the instance.
+   */
+  static class Adapter extends TypeAdapter<Map<String, Object>> {
+    private final TypeAdapter<Map<String, Object>> maps;
+    private final TypeAdapter<Object> values;
+
+    @SuppressWarnings("unchecked")
+    Adapter(TypeAdapter<Map<String, Object>> maps, Class<?> type) {
+      this.maps = maps;
+      this.values = (TypeAdapter<Object>) TagBinding.GSON.getAdapter(type);
+    }
+
+    @Override
+    public Map<String, Object> read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      return new BoundTagMap(values.read(in));
+    }
+
+    @Override
+    public void write(JsonWriter out, Map<String, Object> value) throws IOException {
+      if (value instanceof BoundTagMap) {
+        values.write(out, ((BoundTagMap) value).value);
+      } else {
+        maps.write(out, value);
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.seq.http;
+
+import com.seq.exception.CircuitOpenException;
+
+/**
+ * A CircuitBreaker tracks the health of a single ledger endpoint. After a
+ * run of consecutive retriable failures it opens, and requests to the
+ * endpoint fail immediately with a {@link CircuitOpenException}. Once the
+ * open period has passed, a single trial request is let through: if it
+ * succeeds the circuit closes, otherwise it opens again.
+ * <br>
+ * The breaker also remembers backoff hints sent by the server in
+ * Retry-After headers, which extend the open period and delay retries
+ * even when the breaker itself is disabled.
+ */
+class CircuitBreaker {
+  private enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN,
+  }
+
+  private final int failureThreshold;
+  private final long openNanos;
+  private final CircuitOpenException rejection;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private long openUntil;
+  private long retryAfterUntil;
+  private boolean hasRetryAfter;
+  private boolean trialInFlight;
+
+  /**
+   * @param host the endpoint's host, for error messages
+   * @param failureThreshold the number of consecutive failures that open
+   *   the circuit, or 0 to never open it
+   * @param openMillis how long the circuit stays open
+   */
+  CircuitBreaker(String host, int failureThreshold, long openMillis) {
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openMillis * 1000000L;
+    this.rejection = new CircuitOpenException(
+        "requests to " + host + " are failing; not retrying for now");
+  }
+
+  /**
+   * Checks that a request may be sent.
+   * @throws CircuitOpenException if the circuit is open
+   */
+  synchronized void acquire() throws CircuitOpenException {
+    if (state == State.CLOSED) {
+      return;
+    }
+    if (state == State.OPEN) {
+      if (System.nanoTime() - openUntil < 0) {
+        throw rejection;
+      }
+      state = State.HALF_OPEN;
+      trialInFlight = false;
+    }
+    if (trialInFlight) {
+      throw rejection;
+    }
+    trialInFlight = true;
+  }
+
+  /**
+   * Records that the ledger answered, even if it rejected the request.
+   */
+  synchronized void onSuccess() {
+    consecutiveFailures = 0;
+    state = State.CLOSED;
+    trialInFlight = false;
+  }
+
+  /**
+   * Records a retriable failure.
+   */
+  synchronized void onFailure() {
+    consecutiveFailures++;
+    if (failureThreshold > 0
+        && (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold)) {
+      openUntil = System.nanoTime() + Math.max(openNanos, retryAfterNanos());
+      state = State.OPEN;
+      trialInFlight = false;
+    }
+  }
+
+  /**
+   * Records a server's request to wait before retrying.
+   * @param millis the time to wait in milliseconds
+   */
+  synchronized void retryAfter(long millis) {
+    retryAfterUntil = System.nanoTime() + millis * 1000000L;
+    hasRetryAfter = true;
+  }
+
+  /**
+   * Returns how long the server has asked clients to wait, in
+   * milliseconds, or 0 if it has not.
+   */
+  synchronized long retryAfterMillis() {
+    return retryAfterNanos() / 1000000L;
+  }
+
+  private long retryAfterNanos() {
+    if (!hasRetryAfter) {
+      return 0;
+    }
+    long remaining = retryAfterUntil - System.nanoTime();
+    if (remaining <= 0) {
+      hasRetryAfter = false;
+      return 0;
+    }
+    return remaining;
+  }
+}
@@ -1,36 +1,69 @@
 package com.seq.http;
 
 import com.google.gson.GsonBuilder;
+import com.seq.api.Account;
+import com.seq.api.Action;
+import com.seq.api.ActionSum;
+import com.seq.api.Feed;
+import com.seq.api.Flavor;
+import com.seq.api.Key;
+import com.seq.api.Query;
+import com.seq.api.Token;
+import com.seq.api.TokenSum;
+import com.seq.api.Transaction;
 import com.seq.exception.*;
 
 import java.io.*;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Type;
 import java.net.*;
-import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
-import java.security.KeyStore;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
-import java.security.cert.Certificate;
-import java.security.cert.CertificateFactory;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
-import java.time.Instant;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-
-import javax.xml.bind.DatatypeConverter;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.annotations.Expose;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.ConnectionPool;
-import okhttp3.MediaType;
+import okhttp3.Dispatcher;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.Okio;
 
 import javax.net.ssl.*;
 
@@ -41,13 +74,28 @@ public class Client {
   private OkHttpClient httpClient;
   private String credential;
   private String ledgerName;
-  private String ledgerUrl;
-  private int deadline;
-  private Gson serializer;
+  private final AtomicReference<Endpoint> endpoint;
+  private final AtomicReference<CompletableFuture<Endpoint>> refresh;
+  private final AtomicInteger refreshFailures;
+  private JsonCodec codec;
+  private Headers baseHeaders;
+  private MetricsSink metrics;
+  private RequestTimingsListener timingsListener;
+  private ConcurrencyLimiter limiter;
+  private HedgingPolicy hedging;
+  private RetryBudget retryBudget;
+  private int breakerThreshold;
+  private long breakerOpenMillis;
+  private long compressMinBytes;
+  // The connections opened to a new ledger address before requests move
+  // to it; none until warmup is called.
+  private volatile int warmConnections;
+  private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+  private final Map<RequestClass, OkHttpClient> lanes = new EnumMap<>(RequestClass.class);
+  private final boolean queueAllCalls;
+  private AddressCache addressCache;
+  private Transport transport;
 
-  // Used to create empty, in-memory key stores.
-  private static final char[] DEFAULT_KEYSTORE_PASSWORD = "password".toCharArray();
-  private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
   private static String version = "dev"; // updated in the static initializer
   static String getVersion() {
     return version;
@@ -95,30 +143,415 @@ public class Client {
     this.ledgerName = builder.ledger;
     this.credential = builder.credential;
     this.httpClient = buildHttpClient(builder);
-    this.serializer = new GsonBuilder()
-            .excludeFieldsWithoutExposeAnnotation()
-            .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
-            .create();
+    if (builder.transport instanceof JdkHttpTransport) {
+      ((JdkHttpTransport) builder.transport).init();
+    }
+    this.transport = builder.transport;
+    for (Map.Entry<RequestClass, RequestLane> lane : builder.lanes.entrySet()) {
+      this.lanes.put(lane.getKey(), lane.getValue().build(this.httpClient));
+    }
+    this.metrics = builder.metrics;
+    this.timingsListener = builder.timingsListener;
+    this.limiter = builder.limiter;
+    this.hedging = builder.hedging;
+    if (builder.retryRatio >= 0) {
+      this.retryBudget = new RetryBudget(builder.retryRatio, builder.minRetriesPerSecond);
+    }
+    this.breakerThreshold = builder.breakerThreshold;
+    this.breakerOpenMillis = builder.breakerOpenMillis;
+    this.compressMinBytes = builder.compressMinBytes;
+    this.baseHeaders = new Headers.Builder()
+        .add("User-Agent", "sequence-sdk-java/" + Client.getVersion())
+        .add("Credential", this.credential)
+        .add("Name-Set", "camel")
+        .build();
+
+    // Clients in a pool share the codec and the ledger's address, and
+    // queue every call in their ledger's dispatcher.
+    ClientPool.AddressState address;
+    if (builder.pool != null) {
+      this.codec = builder.codec != null ? builder.codec : builder.pool.codec();
+      address = builder.pool.addressFor(this.ledgerName, this.credential);
+    } else {
+      this.codec = builder.codec != null ? builder.codec : new GsonCodec();
+      address = new ClientPool.AddressState();
+    }
+    this.endpoint = address.endpoint;
+    this.refresh = address.refresh;
+    this.refreshFailures = address.refreshFailures;
+    this.queueAllCalls = builder.pool != null;
+
+    if (builder.addressCacheDirectory != null) {
+      this.addressCache = new AddressCache(builder.addressCacheDirectory);
+      loadCachedAddress();
+    }
+  }
+
+  /**
+   * Starts with the ledger address cached on disk, if it has not expired,
+   * and revalidates it in the background.
+   */
+  private void loadCachedAddress() {
+    AddressCache.Entry cached = this.addressCache.load(this.ledgerName, this.credential, System.currentTimeMillis());
+    if (cached == null) {
+      return;
+    }
+    Endpoint current = new Endpoint(ledgerUrl(cached.addr, cached.teamName), cached.expiresAtMillis);
+    if (this.endpoint.compareAndSet(null, current)) {
+      refreshEndpoint();
+    }
   }
 
+  private String ledgerUrl(String addr, String teamName) {
+    return "https://" + addr + "/" + teamName + "/" + this.ledgerName;
+  }
+
+  /**
+   * Fetches the current ledger address from the API. Concurrent calls share
+   * a single request.
+   * @throws ChainException
+   */
   public <HelloReponse> void hello() throws ChainException {
+    await(refreshEndpoint());
+  }
+
+  private static HttpUrl helloUrl() {
     String url = "https://api.seq.com";
     String addr = System.getenv("SEQADDR");
     if (addr != null) {
       url = "https://" + addr;
     }
-    url += "/hello";
+    return HttpUrl.parse(url + "/hello");
+  }
 
+  private Map<String, Object> helloBody() {
     Map<String, Object> requestBody = new HashMap<>();
     requestBody.put("ledger_name", this.ledgerName);
+    return requestBody;
+  }
+
+  /**
+   * Returns the current ledger address, starting a background refresh if it
+   * has expired. Only the first requests made by a client, before any
+   * address is known, wait for /hello, and they all wait on the same call.
+   * @param deadline bound on the wait, or null
+   * @return the ledger address
+   * @throws ChainException
+   */
+  private Endpoint endpoint(Deadline deadline) throws ChainException {
+    Endpoint current = this.endpoint.get();
+    if (current == null) {
+      return await(refreshEndpoint(), deadline);
+    }
+    if (current.isExpired(System.currentTimeMillis())) {
+      // Continue with the existing address while the refresh is in flight.
+      refreshEndpoint();
+    }
+    return current;
+  }
+
+  /**
+   * Asynchronous version of {@link #endpoint(Deadline)}.
+   * @return a future ledger address
+   */
+  private CompletableFuture<Endpoint> endpointAsync() {
+    Endpoint current = this.endpoint.get();
+    if (current == null) {
+      return refreshEndpoint();
+    }
+    if (current.isExpired(System.currentTimeMillis())) {
+      refreshEndpoint();
+    }
+    return CompletableFuture.completedFuture(current);
+  }
+
+  /**
+   * Starts a call to /hello unless one is already in flight, and returns the
+   * future address it will produce. On success, the next refresh is
+   * scheduled ahead of the new address's expiry. On failure, it is retried
+   * with backoff for as long as a previous address is still in use.
+   * @return the future ledger address
+   */
+  private CompletableFuture<Endpoint> refreshEndpoint() {
+    while (true) {
+      CompletableFuture<Endpoint> inflight = this.refresh.get();
+      if (inflight != null) {
+        return inflight;
+      }
+
+      final CompletableFuture<Endpoint> result = new CompletableFuture<>();
+      if (!this.refresh.compareAndSet(null, result)) {
+        continue;
+      }
+
+      final long start = System.nanoTime();
+
+      HttpUrl helloUrl = helloUrl();
+      CompletableFuture<HelloResponse> hello;
+      if (helloUrl == null) {
+        hello = new CompletableFuture<>();
+        hello.completeExceptionally(new BadURLException("Invalid SEQADDR: " + System.getenv("SEQADDR")));
+      } else {
+        hello = postAsync("hello", lane("hello", null), helloUrl, helloBody(), HelloResponse.class, null);
+      }
+      hello.whenComplete(new BiConsumer<HelloResponse, Throwable>() {
+        public void accept(HelloResponse resp, Throwable err) {
+          if (err == null) {
+            final long ttlMillis = TimeUnit.SECONDS.toMillis(resp.addrTtlSeconds);
+            final Endpoint next = new Endpoint(
+                ledgerUrl(resp.addr, resp.teamName),
+                System.currentTimeMillis() + ttlMillis);
+            if (addressCache != null) {
+              addressCache.store(ledgerName, credential, resp.teamName, resp.addr, resp.addrTtlSeconds,
+                  next.expiresAtMillis);
+            }
+            Endpoint previous = endpoint.get();
+            if (previous == null || previous.ledgerUrl.equals(next.ledgerUrl) || warmConnections <= 0) {
+              installEndpoint(result, next, ttlMillis, start);
+              return;
+            }
+
+            // The ledger has moved. Keep sending requests to the old
+            // address until connections to the new one are open.
+            prewarm(next, warmConnections).whenComplete(new BiConsumer<Void, Throwable>() {
+              public void accept(Void v, Throwable ignored) {
+                installEndpoint(result, next, ttlMillis, start);
+              }
+            });
+          } else {
+            refresh.compareAndSet(result, null);
+            metrics.helloRefreshed(System.nanoTime() - start, unwrap(err));
+            result.completeExceptionally(unwrap(err));
+            if (endpoint.get() != null) {
+              // Keep using the existing address, and try again later.
+              scheduleRefresh(retryDelayMillis(Math.min(refreshFailures.incrementAndGet(), MAX_RETRIES)));
+            }
+          }
+        }
+      });
+      return result;
+    }
+  }
+
+  /**
+   * Schedules a proactive refresh of the ledger address on the shared
+   * scheduler. The task holds only a weak reference to the client, so that
+   * clients which are no longer in use can be garbage collected.
+   * @param delayMillis the time to wait before refreshing
+   */
+  private void scheduleRefresh(long delayMillis) {
+    final WeakReference<Client> ref = new WeakReference<>(this);
+    scheduler.schedule(new Runnable() {
+      public void run() {
+        Client client = ref.get();
+        if (client != null) {
+          client.refreshEndpoint();
+        }
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Switches requests to a newly resolved ledger address, and completes
+   * the refresh that resolved it.
+   */
+  private void installEndpoint(CompletableFuture<Endpoint> result, Endpoint next, long ttlMillis, long start) {
+    this.endpoint.set(next);
+    this.refreshFailures.set(0);
+    this.refresh.compareAndSet(result, null);
+    metrics.helloRefreshed(System.nanoTime() - start, null);
+    result.complete(next);
+    scheduleRefresh(Math.max(ttlMillis * 3 / 4, MIN_REFRESH_MILLIS));
+  }
+
+  /**
+   * Prepares the client to serve requests at full speed: resolves the
+   * ledger address, opens the given number of pooled connections to it,
+   * and builds the codec's type adapters for every API object. Call
+   * it at startup, before sending traffic to the application.
+   * <br>
+   * When the ledger address later changes, the same number of connections
+   * is opened to the new address before requests move to it. Clients that
+   * have not been warmed up move to a new address at once.
+   * Connections beyond the dispatcher's per-host request limit or the
+   * connection pool's idle limit (5 each by default) are not kept.
+   * @param connections the number of connections to open
+   * @throws ChainException
+   */
+  public void warmup(int connections) throws ChainException {
+    this.warmConnections = connections;
+    hello();
+    warmCodec();
+    await(prewarm(this.endpoint.get(), connections));
+  }
+
+  // API objects sent or received by the client, in their own right or as
+  // page items.
+  private static final Class<?>[] MODEL_CLASSES = {
+    Account.class, Account.Builder.class, Account.Page.class,
+    Action.class, Action.Page.class,
+    ActionSum.class, ActionSum.Page.class,
+    Feed.class, Feed.Page.class,
+    Flavor.class, Flavor.Builder.class, Flavor.Page.class,
+    Key.class, Key.Builder.class, Key.Page.class,
+    Query.class,
+    Token.class, Token.Page.class,
+    TokenSum.class, TokenSum.Page.class,
+    Transaction.class, Transaction.Builder.class, Transaction.Page.class,
+    APIException.class,
+  };
+
+  /**
+   * Builds and exercises the codec's type adapter for each API
+   * object, so that the reflection happens before the first request.
+   */
+  private void warmCodec() {
+    for (Class<?> cls : MODEL_CLASSES) {
+      try {
+        Object value = this.codec.decode(new JsonReader(new StringReader("{}")), cls);
+        this.codec.encode(value, cls, new JsonWriter(new StringWriter()));
+      } catch (RuntimeException ex) {
+        // Building the adapter is what matters; ignore classes that cannot
+        // be round-tripped from an empty object.
+      }
+    }
+  }
+
+  /**
+   * Opens pooled connections to a ledger address by sending the given
+   * number of small concurrent requests. The returned future completes
+   * once they have all finished, successfully or not, or after a timeout.
+   */
+  private CompletableFuture<Void> prewarm(Endpoint endpoint, int connections) {
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+    HttpUrl url = endpoint == null ? null : endpoint.actionUrl("list-flavors");
+    // Lanes without a pool of their own share the client's connections.
+    List<OkHttpClient> pools = new ArrayList<>();
+    List<Call.Factory> targets = new ArrayList<>();
+    List<Integer> counts = new ArrayList<>();
+    int total = 0;
+    if (this.transport != null) {
+      // A transport multiplexes its requests, so one opens its connection.
+      targets.add(this.transport);
+      counts.add(1);
+      total = 1;
+    } else {
+      for (OkHttpClient http : lanes()) {
+        boolean shared = false;
+        for (OkHttpClient other : pools) {
+          shared |= other.connectionPool() == http.connectionPool();
+        }
+        int n = Math.min(connections, http.dispatcher().getMaxRequestsPerHost());
+        if (!shared && n > 0) {
+          pools.add(http);
+          targets.add(http);
+          counts.add(n);
+          total += n;
+        }
+      }
+    }
+    if (url == null || total <= 0) {
+      done.complete(null);
+      return done;
+    }
+
+    Query query = new Query();
+    query.pageSize = 1;
+    JsonRequestBody body = new JsonRequestBody(this.codec, query);
+    final AtomicInteger remaining = new AtomicInteger(total);
+    Callback callback = new Callback() {
+      public void onResponse(Call call, Response response) {
+        try {
+          // Read the body so that the connection returns to the pool.
+          response.body().bytes();
+        } catch (IOException ex) {
+        } finally {
+          response.close();
+        }
+        finish();
+      }
+
+      public void onFailure(Call call, IOException ex) {
+        finish();
+      }
+
+      private void finish() {
+        if (remaining.decrementAndGet() == 0) {
+          done.complete(null);
+        }
+      }
+    };
+    for (int p = 0; p < targets.size(); p++) {
+      for (int i = 0; i < counts.get(p); i++) {
+        Request req = buildRequest(url, body, newIdempotencyKey(), newRequestId() + "/warmup", null);
+        targets.get(p).newCall(req).enqueue(callback);
+      }
+    }
+
+    scheduler.schedule(new Runnable() {
+      public void run() {
+        done.complete(null);
+      }
+    }, PREWARM_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    return done;
+  }
+
+  /**
+   * Waits for a future to complete, rethrowing any failure as a
+   * ChainException.
+   */
+  private static <T> T await(CompletableFuture<T> future) throws ChainException {
+    try {
+      return future.get();
+    } catch (ExecutionException ex) {
+      throw unwrap(ex.getCause());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ChainException("Interrupted while waiting for the ledger", ex);
+    }
+  }
 
-    HelloResponse resp = post(url, requestBody, HelloResponse.class);
+  /**
+   * Waits for a future to complete, giving up when the deadline passes or
+   * is cancelled. The future itself is left to complete, since it may be
+   * shared with other requests.
+   */
+  private static <T> T await(CompletableFuture<T> future, Deadline deadline) throws ChainException {
+    if (deadline == null || future.isDone()) {
+      return await(future);
+    }
+    deadline.check(null);
+    final CompletableFuture<Object> cancelled = new CompletableFuture<>();
+    Runnable hook = new Runnable() {
+      public void run() {
+        cancelled.complete(null);
+      }
+    };
+    deadline.addHook(hook);
+    try {
+      CompletableFuture.anyOf(future, cancelled).get(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    } catch (ExecutionException | TimeoutException ex) {
+      // A failure of the future is rethrown below.
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ChainException("Interrupted while waiting for the ledger", ex);
+    } finally {
+      deadline.removeHook(hook);
+    }
+    if (!future.isDone()) {
+      deadline.check(null);
+    }
+    return await(future);
+  }
 
-    synchronized(this) {
-      int now = (int) Instant.now().getEpochSecond();
-      this.deadline = now + resp.addrTtlSeconds;
-      this.ledgerUrl = "https://" + resp.addr + "/" + resp.teamName + "/" + this.ledgerName;
+  private static ChainException unwrap(Throwable err) {
+    while (err instanceof CompletionException && err.getCause() != null) {
+      err = err.getCause();
     }
+    if (err instanceof ChainException) {
+      return (ChainException) err;
+    }
+    return new ChainException(err.getMessage(), err);
   }
 
   /**
@@ -131,44 +564,108 @@ public class Client {
    * @throws ChainException
    */
   public <T> T request(String action, Object body, final Type tClass) throws ChainException {
-    String ledgerUrl;
-    synchronized(this) {
-      ledgerUrl = this.ledgerUrl;
-    }
+    return request(action, body, tClass, null);
+  }
 
-    if (ledgerUrl == null) {
-      hello();
-    }
+  /**
+   * Perform a single HTTP POST request against the API for a specific action,
+   * giving up when the deadline passes or is cancelled. Retries are only
+   * made while the deadline leaves time for them.
+   *
+   * @param action The requested API action
+   * @param body Body payload sent to the API as JSON
+   * @param tClass Type of object to be deserialized from the response JSON
+   * @param deadline bound on the request's total time, or null for none
+   * @return the result of the post request
+   * @throws ChainException
+   */
+  public <T> T request(String action, Object body, final Type tClass, Deadline deadline)
+      throws ChainException {
+    return request(action, body, tClass, deadline, null);
+  }
 
-    String url;
-    int deadline;
-    synchronized(this) {
-      url = this.ledgerUrl + "/" + action;
-      deadline = this.deadline;
+  /**
+   * Perform a single HTTP POST request against the API for a specific action,
+   * sending it in the lane of the given request class.
+   *
+   * @param action The requested API action
+   * @param body Body payload sent to the API as JSON
+   * @param tClass Type of object to be deserialized from the response JSON
+   * @param deadline bound on the request's total time, or null for none
+   * @param requestClass the lane to use, or null to derive it from the action
+   * @return the result of the post request
+   * @throws ChainException
+   */
+  public <T> T request(String action, Object body, final Type tClass, Deadline deadline,
+      RequestClass requestClass) throws ChainException {
+    if (deadline != null) {
+      deadline.check(null);
     }
+    return post(action, lane(action, requestClass), actionUrl(endpoint(deadline), action), body, tClass, deadline);
+  }
 
-    int now = (int) Instant.now().getEpochSecond();
-    if (now >= deadline) {
-      // Extend the deadline long enough to get a fresh addr.
-      synchronized(this) {
-        this.deadline = now + (RETRY_MAX_DELAY_MILLIS * MAX_RETRIES);
-      }
+  /**
+   * Perform a single HTTP POST request against the API for a specific action
+   * without blocking the calling thread. Retries are scheduled on a shared
+   * timer rather than sleeping, so a handful of threads can keep many
+   * requests in flight.
+   *
+   * @param action The requested API action
+   * @param body Body payload sent to the API as JSON
+   * @param tClass Type of object to be deserialized from the response JSON
+   * @return a future completed with the result of the post request, or
+   * exceptionally with a {@link ChainException}
+   */
+  public <T> CompletableFuture<T> requestAsync(final String action, final Object body, final Type tClass) {
+    return requestAsync(action, body, tClass, null);
+  }
 
-      // Get new deadline and ledgerUrl in the background.
-      // Do not block current request.
-      final Client client = this;
-      new Thread(new Runnable() {
-        public void run() {
-          try {
-            client.hello();
-          } catch (ChainException e) {
-            // Continue wth existing values if `/hello` fails to respond.
-          }
-        }
-      }).start();
-    }
+  /**
+   * Perform a single HTTP POST request against the API for a specific action
+   * without blocking the calling thread, giving up when the deadline passes
+   * or is cancelled.
+   *
+   * @param action The requested API action
+   * @param body Body payload sent to the API as JSON
+   * @param tClass Type of object to be deserialized from the response JSON
+   * @param deadline bound on the request's total time, or null for none
+   * @return a future completed with the result of the post request, or
+   * exceptionally with a {@link ChainException}
+   */
+  public <T> CompletableFuture<T> requestAsync(
+      final String action, final Object body, final Type tClass, final Deadline deadline) {
+    return requestAsync(action, body, tClass, deadline, null);
+  }
 
-    return post(url, body, tClass);
+  /**
+   * Perform a single HTTP POST request against the API for a specific action
+   * without blocking the calling thread, sending it in the lane of the given
+   * request class.
+   *
+   * @param action The requested API action
+   * @param body Body payload sent to the API as JSON
+   * @param tClass Type of object to be deserialized from the response JSON
+   * @param deadline bound on the request's total time, or null for none
+   * @param requestClass the lane to use, or null to derive it from the action
+   * @return a future completed with the result of the post request, or
+   * exceptionally with a {@link ChainException}
+   */
+  public <T> CompletableFuture<T> requestAsync(final String action, final Object body, final Type tClass,
+      final Deadline deadline, RequestClass requestClass) {
+    final Call.Factory http = lane(action, requestClass);
+    return endpointAsync().thenCompose(new Function<Endpoint, CompletionStage<T>>() {
+      public CompletionStage<T> apply(Endpoint endpoint) {
+        HttpUrl url;
+        try {
+          url = actionUrl(endpoint, action);
+        } catch (BadURLException ex) {
+          CompletableFuture<T> failed = new CompletableFuture<>();
+          failed.completeExceptionally(ex);
+          return failed;
+        }
+        return postAsync(action, http, url, body, tClass, deadline);
+      }
+    });
   }
 
   /**
@@ -181,61 +678,209 @@ public class Client {
 
   /**
    * Builds and executes an HTTP Post request.
+   * @param action the API action, for instrumentation
+   * @param http the HTTP client of the request's lane
    * @param url the URL to the endpoint
    * @param body the request body
    * @param tClass Type of object to be deserialized from the response JSON
+   * @param deadline bound on the request's total time, or null
    * @return a response deserialized into type T
    * @throws ChainException
    */
-  private <T> T post(String url, Object body, final Type tClass)
+  private <T> T post(String action, Call.Factory http, HttpUrl url, Object body, final Type tClass,
+      Deadline deadline) throws ChainException {
+    long start = System.nanoTime();
+    ChainException error = null;
+    try (Response resp = execute(action, http, url, body, deadline)) {
+      return decode(action, resp, tClass, projection(body));
+    } catch (ChainException ex) {
+      error = ex;
+      throw ex;
+    } catch (RuntimeException ex) {
+      // The caller gets the original exception, but the sink only takes
+      // ChainExceptions.
+      error = new ChainException(ex.getMessage(), ex);
+      throw ex;
+    } finally {
+      metrics.requestCompleted(action, System.nanoTime() - start, error);
+    }
+  }
+
+  /**
+   * Returns the fields of each item to decode from the response to a
+   * request body, or null to decode all of them.
+   */
+  private static Set<String> projection(Object body) {
+    if (body instanceof Query && ((Query) body).select != null) {
+      return new HashSet<>(((Query) body).select);
+    }
+    return null;
+  }
+
+  /**
+   * Deserializes a response body, counting the bytes read. When fields is
+   * not null, only those fields of each item in the page are decoded.
+   */
+  private <T> T decode(String action, Response resp, Type tClass, Set<String> fields) {
+    AttemptTimer timer = AttemptTimer.of(resp.request());
+    CountingSource counter = new CountingSource(resp.body().source());
+    long start = System.nanoTime();
+    boolean ok = false;
+    try {
+      Reader reader = new InputStreamReader(Okio.buffer(counter).inputStream(), StandardCharsets.UTF_8);
+      JsonReader json = fields == null ? new JsonReader(reader) : new ProjectingJsonReader(reader, fields);
+      T value = this.codec.decode(json, tClass);
+      ok = true;
+      return value;
+    } finally {
+      metrics.bytesReceived(action, counter.count());
+      if (timer != null) {
+        timer.deserialized(System.nanoTime() - start);
+        timer.report(!ok);
+      }
+    }
+  }
+
+  /**
+   * Perform a single HTTP POST request against the API for a page of items,
+   * returning a reader that decodes the page's items one at a time while the
+   * response is still being received. The caller must close the reader.
+   *
+   * @param action The requested API action
+   * @param body Body payload sent to the API as JSON
+   * @param itemType Type of the items in the page
+   * @param maxPageBytes the maximum number of response bytes to read
+   * @return a reader over the items in the page
+   * @throws ChainException
+   */
+  public <T> PageReader<T> requestPage(String action, Object body, final Type itemType, long maxPageBytes)
       throws ChainException {
-    RequestBody requestBody = RequestBody.create(Client.JSON, this.serializer.toJson(body));
+    return requestPage(action, body, itemType, maxPageBytes, null);
+  }
+
+  /**
+   * Perform a single HTTP POST request against the API for a page of items,
+   * sending it in the lane of the given request class.
+   *
+   * @param action The requested API action
+   * @param body Body payload sent to the API as JSON
+   * @param itemType Type of the items in the page
+   * @param maxPageBytes the maximum number of response bytes to read
+   * @param requestClass the lane to use, or null to derive it from the action
+   * @return a reader over the items in the page
+   * @throws ChainException
+   */
+  public <T> PageReader<T> requestPage(String action, Object body, final Type itemType, long maxPageBytes,
+      RequestClass requestClass) throws ChainException {
+    return requestPage(action, body, itemType, maxPageBytes, requestClass, null);
+  }
 
-    byte[] bytes = new byte[10];
-    new Random().nextBytes(bytes);
-    String requestId = DatatypeConverter.printHexBinary(bytes).toLowerCase();
+  /**
+   * Perform a single HTTP POST request against the API for a page of items,
+   * failing if the page's response headers have not arrived when the
+   * deadline passes or is cancelled.
+   *
+   * @param action The requested API action
+   * @param body Body payload sent to the API as JSON
+   * @param itemType Type of the items in the page
+   * @param maxPageBytes the maximum number of response bytes to read
+   * @param requestClass the lane to use, or null to derive it from the action
+   * @param deadline bound on the request's total time, or null for none
+   * @return a reader over the items in the page
+   * @throws ChainException
+   */
+  public <T> PageReader<T> requestPage(String action, Object body, final Type itemType, long maxPageBytes,
+      RequestClass requestClass, Deadline deadline) throws ChainException {
+    long start = System.nanoTime();
+    ChainException error = null;
+    try {
+      if (deadline != null) {
+        deadline.check(null);
+      }
+      Response resp = execute(action, lane(action, requestClass), actionUrl(endpoint(deadline), action), body,
+          deadline);
+      // Items are decoded as they are consumed, so the attempt's timings end
+      // at the response headers.
+      AttemptTimer timer = AttemptTimer.of(resp.request());
+      if (timer != null) {
+        timer.report(false);
+      }
+      return new PageReader<>(resp, this.codec, itemType, maxPageBytes, action, metrics, projection(body));
+    } catch (ChainException ex) {
+      error = ex;
+      throw ex;
+    } catch (RuntimeException ex) {
+      // The caller gets the original exception, but the sink only takes
+      // ChainExceptions.
+      error = new ChainException(ex.getMessage(), ex);
+      throw ex;
+    } finally {
+      metrics.requestCompleted(action, System.nanoTime() - start, error);
+    }
+  }
 
-    String idempotencyKey = UUID.randomUUID().toString();
+  /**
+   * Builds and executes an HTTP Post request, retrying until a successful
+   * response is received.
+   * @param action the API action, for instrumentation
+   * @param http the HTTP client of the request's lane
+   * @param url the URL to the endpoint
+   * @param body the request body
+   * @param deadline bound on the request's total time, or null
+   * @return the successful response, whose body has not yet been read
+   * @throws ChainException
+   */
+  private Response execute(String action, Call.Factory http, HttpUrl url, Object body, Deadline deadline)
+      throws ChainException {
+    JsonRequestBody requestBody = encode(action, body);
+
+    String requestId = newRequestId();
+    String idempotencyKey = newIdempotencyKey();
 
     ChainException exception = null;
+    long attemptNanos = 0;
     for (int attempt = 1; attempt - 1 <= MAX_RETRIES; attempt++) {
-      String attemptId = requestId + '/' + attempt;
-
-      URL endpointURL;
-      try {
-        endpointURL = new URL(url);
-      } catch (MalformedURLException ex) {
-        throw new BadURLException(ex.getMessage());
-      }
-
-      Request req =
-          new Request.Builder()
-              .header("User-Agent", "sequence-sdk-java/" + Client.getVersion())
-              .header("Credential", this.credential)
-              .header("Idempotency-Key", idempotencyKey)
-              .header("Name-Set", "camel")
-              .header("Id", attemptId)
-              .url(endpointURL)
-              .method("POST", requestBody)
-              .build();
-
       // Wait between retrys. The first attempt will not wait at all.
       if (attempt > 1) {
-        int delayMillis = retryDelayMillis(attempt - 1);
-        try {
-          TimeUnit.MILLISECONDS.sleep(delayMillis);
-        } catch (InterruptedException e) {
+        long delayMillis = Math.max(retryDelayMillis(attempt - 1), breakerFor(url).retryAfterMillis());
+        if (deadline != null && !deadline.fits(delayMillis, attemptNanos)) {
+          throw new DeadlineExceededException("Deadline leaves no time to retry", exception);
+        }
+        if (!mayRetry(delayMillis)) {
+          throw exception;
+        }
+        metrics.requestRetried(action, exception);
+        if (deadline != null) {
+          deadline.sleep(delayMillis);
+          deadline.check(exception);
+        } else {
+          try {
+            TimeUnit.MILLISECONDS.sleep(delayMillis);
+          } catch (InterruptedException e) {
+          }
         }
       }
 
+      Request req = buildRequest(url, requestBody, idempotencyKey, requestId + '/' + attempt,
+          newAttemptTimer(action, requestBody, requestId, attempt));
+
+      long attemptStart = System.nanoTime();
       try {
-        Response resp = this.checkError(this.httpClient.newCall(req).execute());
-        return this.serializer.fromJson(resp.body().charStream(), tClass);
+        metrics.bytesSent(action, requestBody.contentLength());
+        Response resp = send(action, http, req, deadline);
+        if (this.retryBudget != null) {
+          this.retryBudget.onSuccess();
+        }
+        return resp;
       } catch (IOException ex) {
+        // A call aborted by the deadline surfaces as an IOException.
+        if (deadline != null) {
+          deadline.check(ex);
+        }
         // The OkHttp library already performs retries for some
         // I/O-related errors, but we've hit this case in a leader
         // failover, so do our own retries too.
-        exception = new ConfigurationException(ex.getMessage());
+        exception = new ConfigurationException(ex.getMessage(), ex, false);
       } catch (ConnectivityException ex) {
         // ConnectivityExceptions are always retriable.
         exception = ex;
@@ -245,72 +890,689 @@ public class Client {
         }
 
         exception = ex;
+      } finally {
+        attemptNanos = System.nanoTime() - attemptStart;
       }
     }
     throw exception;
   }
 
-  private OkHttpClient buildHttpClient(Builder builder) throws ConfigurationException {
-    OkHttpClient.Builder httpClientBuilder = builder.httpClientBuilder;
+  /**
+   * Sends a single attempt of a request, within the concurrency limit for
+   * its action if a limiter is configured.
+   * @param action the API action
+   * @param http the HTTP client of the request's lane
+   * @param req the request
+   * @param deadline bound on the request's total time, or null
+   * @return the successful response
+   * @throws ChainException
+   * @throws IOException
+   */
+  private Response send(String action, Call.Factory http, Request req, Deadline deadline)
+      throws ChainException, IOException {
+    ConcurrencyLimiter.Limit limit = null;
+    if (this.limiter != null) {
+      limit = this.limiter.forAction(action);
+      if (deadline == null) {
+        await(limit.acquire(scheduler));
+      } else {
+        awaitSlot(limit, deadline);
+      }
+    }
+
+    CircuitBreaker breaker = breakerFor(req.url());
+    try {
+      breaker.acquire();
+    } catch (CircuitOpenException ex) {
+      if (limit != null) {
+        limit.onIgnored();
+      }
+      throw ex;
+    }
+
+    long sent = System.nanoTime();
+    try {
+      Response resp = this.checkError(call(action, http, req, deadline));
+      release(limit, breaker, sent, null);
+      return resp;
+    } catch (ChainException | IOException | RuntimeException ex) {
+      release(limit, breaker, sent, ex);
+      throw ex;
+    }
+  }
 
-    final String cafile = System.getenv("SEQTLSCA");
-    if (cafile != null && cafile.length() > 0) {
-      try (InputStream is = new FileInputStream(cafile)) {
-        // Extract certs from PEM-encoded input.
-        CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
-        Collection<? extends Certificate> certificates =
-          certificateFactory.generateCertificates(is);
-        if (certificates.isEmpty()) {
-          throw new IllegalArgumentException("expected non-empty set of trusted certificates");
+  /**
+   * Waits for a concurrency slot, giving it up if the deadline passes or is
+   * cancelled first.
+   */
+  private static void awaitSlot(ConcurrencyLimiter.Limit limit, Deadline deadline) throws ChainException {
+    final CompletableFuture<Void> slot = limit.acquire(scheduler);
+    Runnable abandon = new Runnable() {
+      public void run() {
+        slot.cancel(false);
+      }
+    };
+    deadline.addHook(abandon);
+    try {
+      slot.get(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException | CancellationException ex) {
+      limit.abandon(slot);
+      deadline.check(null);
+      throw new DeadlineExceededException("Deadline exceeded waiting for a request slot", null);
+    } catch (ExecutionException ex) {
+      throw unwrap(ex.getCause());
+    } catch (InterruptedException ex) {
+      limit.abandon(slot);
+      Thread.currentThread().interrupt();
+      throw new ChainException("Interrupted while waiting for the ledger", ex);
+    } finally {
+      deadline.removeHook(abandon);
+    }
+  }
+
+  /**
+   * Reports the outcome of an attempt to its concurrency limit and circuit
+   * breaker.
+   * @param limit the attempt's concurrency limit, or null
+   * @param breaker the circuit breaker of the attempt's endpoint
+   * @param sent when the attempt was sent
+   * @param error the attempt's failure, or null if it succeeded
+   */
+  private static void release(ConcurrencyLimiter.Limit limit, CircuitBreaker breaker, long sent, Throwable error) {
+    // A non-retriable APIException means the ledger is up and answering.
+    boolean answered = error instanceof APIException && !((APIException) error).retriable;
+    if (error == null || answered) {
+      breaker.onSuccess();
+    } else {
+      breaker.onFailure();
+    }
+
+    if (limit == null) {
+      return;
+    } else if (error == null) {
+      limit.onSuccess(System.nanoTime() - sent);
+    } else if (answered) {
+      limit.onIgnored();
+    } else {
+      limit.onDropped();
+    }
+  }
+
+  /**
+   * Returns the HTTP client of the lane that sends an action's requests.
+   * Classes without a configured lane use the client's own, and all
+   * requests use the transport if one is set.
+   */
+  private Call.Factory lane(String action, RequestClass requestClass) {
+    if (this.transport != null) {
+      return this.transport;
+    }
+    OkHttpClient http = this.lanes.get(requestClass != null ? requestClass : RequestClass.forAction(action));
+    return http != null ? http : this.httpClient;
+  }
+
+  /**
+   * Returns the client's HTTP clients, its own first.
+   */
+  private List<OkHttpClient> lanes() {
+    List<OkHttpClient> all = new ArrayList<>();
+    all.add(this.httpClient);
+    all.addAll(this.lanes.values());
+    return all;
+  }
+
+  /**
+   * Returns the circuit breaker of the endpoint serving a URL.
+   */
+  private CircuitBreaker breakerFor(HttpUrl url) {
+    CircuitBreaker breaker = this.breakers.get(url.host());
+    if (breaker == null) {
+      CircuitBreaker created = new CircuitBreaker(url.host(), this.breakerThreshold, this.breakerOpenMillis);
+      breaker = this.breakers.putIfAbsent(url.host(), created);
+      if (breaker == null) {
+        breaker = created;
+      }
+    }
+    return breaker;
+  }
+
+  /**
+   * Decides whether a failed request may be retried after the given delay.
+   * Retries are not made if the server asked for a longer wait than the
+   * maximum backoff, or if the retry budget is spent.
+   */
+  private boolean mayRetry(long delayMillis) {
+    if (delayMillis > RETRY_MAX_DELAY_MILLIS) {
+      return false;
+    }
+    return this.retryBudget == null || this.retryBudget.tryRetry();
+  }
+
+  /**
+   * Executes a request, hedging it if the action is eligible.
+   * @param action the API action
+   * @param http the HTTP client of the request's lane
+   * @param req the request
+   * @param deadline aborts the call when it passes or is cancelled, or null
+   * @return the response
+   * @throws IOException
+   */
+  private Response call(String action, Call.Factory http, Request req, Deadline deadline) throws IOException {
+    if (this.hedging == null) {
+      return execute(action, http, req, deadline);
+    }
+
+    final CompletableFuture<Response> result = new CompletableFuture<>();
+    HedgedCall hedged = newHedgedCall(action, http, req, deadline, completing(result));
+    if (hedged == null) {
+      return execute(action, http, req, deadline);
+    }
+
+    try {
+      return awaitResponse(action, result);
+    } finally {
+      unregister(deadline, hedged);
+    }
+  }
+
+  /**
+   * Executes a call, aborting it if the deadline passes or is cancelled.
+   * Calls in a lane or a client pool are enqueued so that they wait for
+   * their dispatcher, which does not limit calls executed on the caller's
+   * thread. Calls of a transport are executed directly.
+   */
+  private Response execute(String action, Call.Factory http, Request req, Deadline deadline) throws IOException {
+    Call call = newCall(http, req, deadline);
+    try {
+      if (http == this.httpClient && !this.queueAllCalls || http == this.transport) {
+        return call.execute();
+      }
+      CompletableFuture<Response> result = new CompletableFuture<>();
+      call.enqueue(completing(result));
+      return awaitResponse(action, result);
+    } finally {
+      if (deadline != null) {
+        deadline.unregister(call);
+      }
+    }
+  }
+
+  private static Callback completing(final CompletableFuture<Response> result) {
+    return new Callback() {
+      public void onResponse(Call call, Response response) {
+        result.complete(response);
+      }
+
+      public void onFailure(Call call, IOException ex) {
+        result.completeExceptionally(ex);
+      }
+    };
+  }
+
+  private static Response awaitResponse(String action, CompletableFuture<Response> result) throws IOException {
+    try {
+      return result.get();
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException) ex.getCause();
+      }
+      throw new IOException(ex.getCause());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for " + action);
+    }
+  }
+
+  private static Call newCall(Call.Factory http, Request req, Deadline deadline) {
+    Call call = http.newCall(req);
+    if (deadline != null) {
+      deadline.register(call);
+    }
+    return call;
+  }
+
+  private static void unregister(Deadline deadline, HedgedCall hedged) {
+    if (deadline != null && hedged != null) {
+      deadline.unregister(hedged.primary());
+      deadline.unregister(hedged.hedge());
+    }
+  }
+
+  /**
+   * Starts a hedged call for a request of a hedged action, delivering the
+   * winning response to the callback.
+   * @return the started call, or null if the action is not hedged
+   */
+  private HedgedCall newHedgedCall(
+      final String action, Call.Factory http, Request req, Deadline deadline, Callback callback) {
+    HedgingPolicy.Stats stats = this.hedging == null ? null : this.hedging.forAction(action);
+    if (stats == null) {
+      return null;
+    }
+
+    long delayNanos = stats.delayNanos();
+    Call hedge = null;
+    if (delayNanos >= 0) {
+      String hedgeId = req.header("Id") + "-hedge";
+      AttemptTimer timer = null;
+      if (this.timingsListener != null) {
+        timer = new AttemptTimer(this.timingsListener, action, hedgeId, 0);
+      }
+      hedge = newCall(http, req.newBuilder().header("Id", hedgeId).tag(timer).build(), deadline);
+    }
+
+    final long bytes = req.body() instanceof JsonRequestBody
+        ? ((JsonRequestBody) req.body()).contentLength() : 0;
+    HedgedCall hedged = new HedgedCall(newCall(http, req, deadline), hedge, stats, callback, new Runnable() {
+      public void run() {
+        metrics.requestHedged(action);
+        metrics.bytesSent(action, bytes);
+      }
+    });
+    hedged.start(delayNanos, scheduler);
+    return hedged;
+  }
+
+  /**
+   * Builds and enqueues an HTTP Post request. Follows the same retry policy
+   * as {@link #post(String, Call.Factory, HttpUrl, Object, Type, Deadline)},
+   * but waits between attempts on the shared scheduler instead of the
+   * calling thread.
+   * @param action the API action, for instrumentation
+   * @param http the HTTP client of the request's lane
+   * @param url the URL to the endpoint
+   * @param body the request body
+   * @param tClass Type of object to be deserialized from the response JSON
+   * @param deadline bound on the request's total time, or null
+   * @return a future completed with the response deserialized into type T
+   */
+  private <T> CompletableFuture<T> postAsync(
+      String action, Call.Factory http, HttpUrl url, Object body, final Type tClass, Deadline deadline) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    JsonRequestBody requestBody;
+    try {
+      requestBody = encode(action, body);
+    } catch (RuntimeException ex) {
+      result.completeExceptionally(ex);
+      return result;
+    }
+
+    AsyncPost<T> post =
+        new AsyncPost<>(action, http, url, requestBody, tClass, projection(body), result, deadline);
+    post.attempt(1);
+    return result;
+  }
+
+  /**
+   * The state of a single asynchronous post across all of its attempts.
+   */
+  private class AsyncPost<T> implements Callback {
+    private final String action;
+    private final Call.Factory http;
+    private final HttpUrl url;
+    private final JsonRequestBody requestBody;
+    private final Type tClass;
+    private final Set<String> fields;
+    private final CompletableFuture<T> result;
+    private final String requestId;
+    private final String idempotencyKey;
+    private final long start;
+    private final ConcurrencyLimiter.Limit limit;
+    private final CircuitBreaker breaker;
+    private final Deadline deadline;
+    private int attempt;
+    private long sent;
+    private HedgedCall hedged;
+    private Call inFlight;
+
+    AsyncPost(String action, Call.Factory http, HttpUrl url, JsonRequestBody requestBody, Type tClass,
+        Set<String> fields, CompletableFuture<T> result, Deadline deadline) {
+      this.action = action;
+      this.http = http;
+      this.url = url;
+      this.requestBody = requestBody;
+      this.tClass = tClass;
+      this.fields = fields;
+      this.result = result;
+      this.requestId = newRequestId();
+      this.idempotencyKey = newIdempotencyKey();
+      this.start = System.nanoTime();
+      // Refreshing the ledger address is never held back, since every
+      // other request may be waiting on it.
+      this.limit = limiter == null || action.equals("hello") ? null : limiter.forAction(action);
+      this.breaker = breakerFor(url);
+      this.deadline = deadline;
+    }
+
+    void attempt(int attempt) {
+      this.attempt = attempt;
+      if (deadline != null) {
+        try {
+          deadline.check(null);
+        } catch (ChainException ex) {
+          fail(ex);
+          return;
         }
+      }
+      if (limit == null) {
+        send();
+        return;
+      }
+
+      final CompletableFuture<Void> slot = limit.acquire(scheduler);
+      final Runnable abandon = new Runnable() {
+        public void run() {
+          slot.cancel(false);
+        }
+      };
+      // The deadline only runs hooks when cancelled, so its expiry is
+      // scheduled separately.
+      final ScheduledFuture<?> expiry;
+      if (deadline != null) {
+        deadline.addHook(abandon);
+        long remaining = deadline.remaining(TimeUnit.NANOSECONDS);
+        expiry = remaining == Long.MAX_VALUE ? null : scheduler.schedule(abandon, remaining, TimeUnit.NANOSECONDS);
+      } else {
+        expiry = null;
+      }
+      slot.whenComplete(new BiConsumer<Void, Throwable>() {
+        public void accept(Void v, Throwable err) {
+          if (deadline != null) {
+            deadline.removeHook(abandon);
+          }
+          if (expiry != null) {
+            expiry.cancel(false);
+          }
+          if (slot.isCancelled()) {
+            limit.abandon(slot);
+            try {
+              deadline.check(null);
+              fail(new DeadlineExceededException("Deadline exceeded waiting for a request slot", null));
+            } catch (ChainException ex) {
+              fail(ex);
+            }
+          } else if (err != null) {
+            fail(unwrap(err));
+          } else {
+            send();
+          }
+        }
+      });
+    }
+
+    private void send() {
+      try {
+        breaker.acquire();
+      } catch (CircuitOpenException ex) {
+        if (limit != null) {
+          limit.onIgnored();
+        }
+        fail(ex);
+        return;
+      }
+
+      sent = System.nanoTime();
+      try {
+        Request req = buildRequest(url, requestBody, idempotencyKey, requestId + '/' + attempt,
+            newAttemptTimer(action, requestBody, requestId, attempt));
+        metrics.bytesSent(action, requestBody.contentLength());
+        hedged = newHedgedCall(action, http, req, deadline, this);
+        if (hedged == null) {
+          inFlight = newCall(http, req, deadline);
+          inFlight.enqueue(this);
+        }
+      } catch (RuntimeException ex) {
+        // A transport that fails to create its call never calls back.
+        release(limit, breaker, sent, ex);
+        metrics.requestCompleted(action, System.nanoTime() - start, new ChainException(ex.getMessage(), ex));
+        result.completeExceptionally(ex);
+      }
+    }
+
+    private void unregisterCalls() {
+      if (deadline != null) {
+        deadline.unregister(inFlight);
+        unregister(deadline, hedged);
+      }
+    }
 
-        // Create a new key store and input the cert.
-        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
-        keyStore.load(null, DEFAULT_KEYSTORE_PASSWORD);
-        int index = 0;
-        for (Certificate certificate : certificates) {
-          String certificateAlias = Integer.toString(index++);
-          keyStore.setCertificateEntry(certificateAlias, certificate);
+    @Override
+    public void onFailure(Call call, IOException ex) {
+      unregisterCalls();
+      release(limit, breaker, sent, ex);
+      if (deadline != null) {
+        try {
+          deadline.check(ex);
+        } catch (ChainException aborted) {
+          fail(aborted);
+          return;
         }
+      }
+      retryOrFail(new ConfigurationException(ex.getMessage(), ex, false));
+    }
 
-        // Use key store to build an X509 trust manager.
-        KeyManagerFactory keyManagerFactory =
-          KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
-        keyManagerFactory.init(keyStore, DEFAULT_KEYSTORE_PASSWORD);
-        TrustManagerFactory trustManagerFactory =
-          TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
-        trustManagerFactory.init(keyStore);
-        TrustManager[] trustManagers = trustManagerFactory.getTrustManagers();
-        if (trustManagers.length != 1 || !(trustManagers[0] instanceof X509TrustManager)) {
-          throw new IllegalStateException(
-              "Unexpected default trust managers:" + Arrays.toString(trustManagers));
+    @Override
+    public void onResponse(Call call, Response response) {
+      unregisterCalls();
+      try {
+        try {
+          checkError(response);
+          release(limit, breaker, sent, null);
+        } catch (ChainException | RuntimeException ex) {
+          release(limit, breaker, sent, ex);
+          throw ex;
+        }
+        T value = decode(action, response, tClass, fields);
+        if (retryBudget != null) {
+          retryBudget.onSuccess();
+        }
+        metrics.requestCompleted(action, System.nanoTime() - start, null);
+        result.complete(value);
+      } catch (ConnectivityException ex) {
+        retryOrFail(ex);
+      } catch (APIException ex) {
+        if (ex.retriable) {
+          retryOrFail(ex);
+        } else {
+          fail(ex);
         }
+      } catch (ChainException ex) {
+        fail(ex);
+      } catch (RuntimeException ex) {
+        // The future fails with the original exception, but the sink only
+        // takes ChainExceptions.
+        metrics.requestCompleted(action, System.nanoTime() - start, new ChainException(ex.getMessage(), ex));
+        result.completeExceptionally(ex);
+      } finally {
+        response.close();
+      }
+    }
 
-        SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
-        sslContext.init(null, trustManagers, null);
-        httpClientBuilder.sslSocketFactory(
-                sslContext.getSocketFactory(),
-                (X509TrustManager)trustManagers[0]
-        );
-      } catch (GeneralSecurityException | IOException ex) {
-        throw new ConfigurationException("Unable to configure trusted CA certs", ex);
+    private void fail(ChainException ex) {
+      metrics.requestCompleted(action, System.nanoTime() - start, ex);
+      result.completeExceptionally(ex);
+    }
+
+    private void retryOrFail(ChainException ex) {
+      long delayMillis = Math.max(retryDelayMillis(attempt), breaker.retryAfterMillis());
+      if (attempt > MAX_RETRIES) {
+        fail(ex);
+        return;
+      }
+      if (deadline != null && !deadline.fits(delayMillis, System.nanoTime() - sent)) {
+        fail(new DeadlineExceededException("Deadline leaves no time to retry", ex));
+        return;
+      }
+      if (!mayRetry(delayMillis)) {
+        fail(ex);
+        return;
+      }
+
+      metrics.requestRetried(action, ex);
+      final int next = attempt + 1;
+      final AtomicReference<ScheduledFuture<?>> retry = new AtomicReference<>();
+      final Runnable abandon = new Runnable() {
+        public void run() {
+          ScheduledFuture<?> r = retry.get();
+          if (r != null && r.cancel(false)) {
+            fail(new RequestCancelledException("Request cancelled"));
+          }
+        }
+      };
+      retry.set(scheduler.schedule(new Runnable() {
+        public void run() {
+          if (deadline != null) {
+            deadline.removeHook(abandon);
+          }
+          attempt(next);
+        }
+      }, delayMillis, TimeUnit.MILLISECONDS));
+      if (deadline != null) {
+        deadline.addHook(abandon);
       }
     }
+  }
+
+  static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
-    if (builder.logger != null) {
+  /**
+   * Returns a random, 20 hex digit request ID. Uses thread-local randomness
+   * so that concurrent requests do not contend on a shared generator.
+   */
+  static String newRequestId() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long hi = random.nextLong();
+    int lo = random.nextInt() & 0xffff;
+    char[] id = new char[20];
+    for (int i = 0; i < 16; i++) {
+      id[i] = HEX_DIGITS[(int) (hi >>> (60 - 4 * i)) & 0xf];
+    }
+    for (int i = 0; i < 4; i++) {
+      id[16 + i] = HEX_DIGITS[(lo >>> (12 - 4 * i)) & 0xf];
+    }
+    return new String(id);
+  }
+
+  /**
+   * Returns a random (version 4) UUID for use as an idempotency key,
+   * generated with thread-local randomness.
+   */
+  static String newIdempotencyKey() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long msb = (random.nextLong() & ~0xf000L) | 0x4000L;
+    long lsb = (random.nextLong() & ~(0xcL << 60)) | (0x8L << 60);
+    return new UUID(msb, lsb).toString();
+  }
+
+  /**
+   * Returns the parsed URL of an action on the given ledger address.
+   */
+  private static HttpUrl actionUrl(Endpoint endpoint, String action) throws BadURLException {
+    HttpUrl url = endpoint.actionUrl(action);
+    if (url == null) {
+      throw new BadURLException("Invalid ledger URL: " + endpoint.ledgerUrl + "/" + action);
+    }
+    return url;
+  }
+
+  Request buildRequest(HttpUrl url, RequestBody requestBody, String idempotencyKey,
+      String attemptId, AttemptTimer timer) {
+    Request.Builder builder = new Request.Builder()
+        .headers(this.baseHeaders)
+        .header("Idempotency-Key", idempotencyKey)
+        .header("Id", attemptId)
+        .url(url)
+        .method("POST", requestBody)
+        .tag(timer);
+    if (requestBody instanceof JsonRequestBody && ((JsonRequestBody) requestBody).gzipped()) {
+      builder.header("Content-Encoding", "gzip");
+    }
+    return builder.build();
+  }
+
+  /**
+   * Serializes a request body, compressing it if it is large enough.
+   */
+  private JsonRequestBody encode(String action, Object body) {
+    JsonRequestBody requestBody = new JsonRequestBody(this.codec, body);
+    if (this.compressMinBytes >= 0 && requestBody.contentLength() >= this.compressMinBytes) {
+      long size = requestBody.contentLength();
+      long nanos = requestBody.gzip();
+      metrics.requestCompressed(action, size, requestBody.contentLength(), nanos);
+    }
+    return requestBody;
+  }
+
+  /**
+   * Returns a timer for a request attempt, or null if no timings listener
+   * is configured.
+   */
+  private AttemptTimer newAttemptTimer(String action, JsonRequestBody requestBody, String requestId, int attempt) {
+    if (this.timingsListener == null) {
+      return null;
+    }
+    long serializeNanos = attempt == 1 ? requestBody.encodeNanos() : 0;
+    return new AttemptTimer(this.timingsListener, action, requestId + '/' + attempt, serializeNanos);
+  }
+
+  private OkHttpClient buildHttpClient(Builder builder) throws ConfigurationException {
+    OkHttpClient.Builder httpClientBuilder = builder.httpClientBuilder;
+
+    Tls tls = builder.pool != null ? builder.pool.tls() : Tls.fromEnv();
+    if (tls != null) {
+      httpClientBuilder.sslSocketFactory(tls.socketFactory, tls.trustManager);
+    }
+    if (builder.pool != null) {
+      httpClientBuilder
+          .connectionPool(builder.pool.connectionPool())
+          .dispatcher(builder.pool.dispatcherFor(builder.ledger));
+    }
+
+    if (builder.loggingInterceptor != null) {
+      httpClientBuilder.addInterceptor(builder.loggingInterceptor);
+    } else if (builder.logger != null) {
       httpClientBuilder.addInterceptor(new LoggingInterceptor(builder.logger, builder.logLevel));
     }
 
+    httpClientBuilder.addNetworkInterceptor(new CompressionInterceptor(builder.metrics));
+
+    if (builder.timingsListener != null) {
+      httpClientBuilder.eventListenerFactory(AttemptTimer.FACTORY);
+    }
+
     return httpClientBuilder.build();
   }
 
   private static final Random randomGenerator = new Random();
+
+  // Shared timer for asynchronous retries. Its thread is a daemon so that it
+  // never keeps the JVM alive on its own.
+  static final ScheduledThreadPoolExecutor scheduler =
+      new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "sequence-sdk-scheduler");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+
+  static {
+    // Deadline timers are usually cancelled long before they fire.
+    scheduler.setRemoveOnCancelPolicy(true);
+  }
+
   private static final int MAX_RETRIES = 10;
   private static final int RETRY_BASE_DELAY_MILLIS = 40;
 
   // the max amount of time ledger leader election could take
   private static final int RETRY_MAX_DELAY_MILLIS = 15000;
 
+  // the longest time requests wait on a new ledger address being prewarmed
+  private static final long PREWARM_TIMEOUT_MILLIS = 5000;
+
+  // the shortest interval between proactive refreshes of the ledger address
+  private static final long MIN_REFRESH_MILLIS = 1000;
+
   private static int retryDelayMillis(int retryAttempt) {
     // Calculate the max delay as base * 2 ^ (retryAttempt - 1).
     int max = RETRY_BASE_DELAY_MILLIS * (1 << (retryAttempt - 1));
@@ -320,23 +1582,63 @@ public class Client {
     return randomGenerator.nextInt(max / 2) + max / 2 + 1;
   }
 
+  /**
+   * Parses a Retry-After header, which holds either a number of seconds or
+   * an HTTP date.
+   * @return the time to wait in milliseconds, or 0 if there is none
+   */
+  static long parseRetryAfterMillis(String value) {
+    if (value == null) {
+      return 0;
+    }
+    value = value.trim();
+    try {
+      return Math.max(0, Long.parseLong(value) * 1000);
+    } catch (NumberFormatException ex) {
+    }
+    try {
+      long at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+      return Math.max(0, at - System.currentTimeMillis());
+    } catch (DateTimeParseException ex) {
+      return 0;
+    }
+  }
+
   private Response checkError(Response response) throws ChainException {
     String rid = response.headers().get("Chain-Request-ID");
+    AttemptTimer timer = AttemptTimer.of(response.request());
+    if (timer != null) {
+      timer.requestId(rid);
+    }
+    if (response.code() == 429 || response.code() == 503) {
+      long retryAfter = parseRetryAfterMillis(response.header("Retry-After"));
+      if (retryAfter > 0) {
+        breakerFor(response.request().url()).retryAfter(retryAfter);
+      }
+    }
     if (rid == null || rid.length() == 0) {
       // Header field Chain-Request-ID is set by the backend
       // API server. If this field is set, then we can expect
       // the body to be well-formed JSON. If it's not set,
       // then we are probably talking to a gateway or proxy.
+      if (timer != null) {
+        timer.report(true);
+      }
       throw new ConnectivityException(response);
     }
 
     if ((response.code() / 100) != 2) {
         APIException err =
-            this.serializer.fromJson(response.body().charStream(), APIException.class);
+            this.codec.<APIException>decode(new JsonReader(response.body().charStream()), APIException.class);
         if (err.seqCode != null) {
           err.requestId = rid;
           err.statusCode = response.code();
-          throw err;
+          if (timer != null) {
+            timer.report(true);
+          }
+          // Decoded errors have no stack trace, which only retriable ones
+          // can do without.
+          throw err.retriable ? err : new APIException(err);
         }
     }
     return response;
@@ -378,9 +1680,27 @@ public class Client {
     private String ledger;
     private OutputStream logger;
     private LoggingInterceptor.Level logLevel;
+    private LoggingInterceptor loggingInterceptor;
+    private MetricsSink metrics;
+    private RequestTimingsListener timingsListener;
+    private ConcurrencyLimiter limiter;
+    private HedgingPolicy hedging;
+    private double retryRatio;
+    private int minRetriesPerSecond;
+    private int breakerThreshold;
+    private long breakerOpenMillis;
+    private long compressMinBytes;
+    private final Map<RequestClass, RequestLane> lanes = new EnumMap<>(RequestClass.class);
+    private ClientPool pool;
+    private Path addressCacheDirectory;
+    private Transport transport;
+    private JsonCodec codec;
 
     public Builder() {
       this.logLevel = LoggingInterceptor.Level.ERRORS;
+      this.metrics = MetricsSink.NONE;
+      this.retryRatio = -1;
+      this.compressMinBytes = -1;
       this.httpClientBuilder = new OkHttpClient.Builder()
               .followSslRedirects(false)
               .readTimeout(30, TimeUnit.SECONDS)
@@ -475,6 +1795,69 @@ public class Client {
       return this;
     }
 
+    /**
+     * Sets the maximum number of requests the client executes concurrently.
+     * Asynchronous requests above these limits are queued in memory rather
+     * than occupying a thread.
+     * @param maxRequests the maximum number of concurrent requests
+     * @param maxRequestsPerHost the maximum number of concurrent requests to a single host
+     */
+    public Builder setMaxRequests(int maxRequests, int maxRequestsPerHost) {
+      Dispatcher dispatcher = new Dispatcher();
+      dispatcher.setMaxRequests(maxRequests);
+      dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+      this.httpClientBuilder = this.httpClientBuilder.dispatcher(dispatcher);
+      return this;
+    }
+
+    /**
+     * Builds the client from the shared resources of a pool: its connection
+     * pool, dispatcher threads, TLS configuration, JSON codec and ledger
+     * address cache. Requests are queued with those of other clients for
+     * the same ledger. Overrides {@link #setConnectionPool} and
+     * {@link #setMaxRequests}.
+     * @param pool the shared resources
+     */
+    public Builder setClientPool(ClientPool pool) {
+      this.pool = pool;
+      return this;
+    }
+
+    /**
+     * Keeps ledger addresses in files in the given directory, so that a new
+     * client can use an unexpired address right away, revalidating it in
+     * the background, instead of waiting for /hello before its first
+     * request. The directory is created if needed.
+     * @param directory the cache directory
+     */
+    public Builder setAddressCache(Path directory) {
+      this.addressCacheDirectory = directory;
+      return this;
+    }
+
+    /**
+     * Sends requests with the given transport instead of the default OkHttp
+     * client, for example a {@link JdkHttpTransport} to multiplex requests
+     * over HTTP/2. Request lanes, the timeouts, connection pool and request
+     * limits of this builder, and the dispatcher of a client pool only
+     * apply to the default transport.
+     * @param transport the transport
+     */
+    public Builder setTransport(Transport transport) {
+      this.transport = transport;
+      return this;
+    }
+
+    /**
+     * Sets the codec that encodes requests and decodes responses. Defaults
+     * to a {@link GsonCodec}, or the codec of the client pool.
+     * @param codec the codec
+     */
+    public Builder setJsonCodec(JsonCodec codec) {
+      this.codec = codec;
+      return this;
+    }
+
     /**
      * Sets the request logger.
      * @param logger the output stream to log the requests to
@@ -493,6 +1876,116 @@ public class Client {
       return this;
     }
 
+    /**
+     * Sets a configured request logger, such as an asynchronous, sampled
+     * or JSON lines logger. Takes precedence over setLogger and
+     * setLogLevel.
+     * @param interceptor the logging interceptor
+     */
+    public Builder setLoggingInterceptor(LoggingInterceptor interceptor) {
+      this.loggingInterceptor = interceptor;
+      return this;
+    }
+
+    /**
+     * Sets the sink that receives measurements of every request, such as a
+     * {@link ClientMetrics}.
+     * @param metrics the metrics sink
+     */
+    public Builder setMetricsSink(MetricsSink metrics) {
+      this.metrics = metrics;
+      return this;
+    }
+
+    /**
+     * Sets a listener that receives a per-phase timing breakdown of every
+     * request attempt.
+     * @param listener the timings listener
+     */
+    public Builder setRequestTimingsListener(RequestTimingsListener listener) {
+      this.timingsListener = listener;
+      return this;
+    }
+
+    /**
+     * Caps the number of in-flight requests per API action with an
+     * adaptive limiter. Requests to refresh the ledger address are not
+     * limited. By default there is no limit beyond the OkHttp dispatcher's.
+     * @param limiter the concurrency limiter
+     */
+    public Builder setConcurrencyLimiter(ConcurrencyLimiter limiter) {
+      this.limiter = limiter;
+      return this;
+    }
+
+    /**
+     * Enables hedging of read-only requests: when a list or sum query has
+     * not been answered within a percentile of its recent latency, an
+     * identical request is sent and the first response is used.
+     * @param hedging the hedging policy
+     */
+    public Builder setHedgingPolicy(HedgingPolicy hedging) {
+      this.hedging = hedging;
+      return this;
+    }
+
+    /**
+     * Sends requests of a class in a lane of their own, with its own
+     * dispatcher and, optionally, connection pool and timeouts. Requests
+     * of classes without a lane share the client's.
+     * @param requestClass the class of requests
+     * @param lane the lane's configuration
+     */
+    public Builder setRequestLane(RequestClass requestClass, RequestLane lane) {
+      this.lanes.put(requestClass, lane);
+      return this;
+    }
+
+    /**
+     * Sets the retry budget shared by all requests made by the client.
+     * Retries are limited to the given fraction of successful requests,
+     * plus a fixed number per second. Once the budget is spent, failed
+     * requests are not retried. Disabled by default; 0.2 and 10 per second
+     * are reasonable values.
+     * @param ratio retries allowed per successful request, or a negative
+     *   number to disable the budget
+     * @param minRetriesPerSecond retries always allowed per second
+     */
+    public Builder setRetryBudget(double ratio, int minRetriesPerSecond) {
+      this.retryRatio = ratio;
+      this.minRetriesPerSecond = minRetriesPerSecond;
+      return this;
+    }
+
+    /**
+     * Enables a circuit breaker for each ledger endpoint. After the given
+     * number of consecutive retriable failures, requests to the endpoint
+     * fail immediately with a CircuitOpenException for the open period, or
+     * longer if the server sent a Retry-After header. A single trial
+     * request then decides whether the circuit closes again. Disabled by
+     * default.
+     * @param failureThreshold consecutive failures that open the circuit
+     * @param openMillis how long the circuit stays open, in milliseconds
+     */
+    public Builder setCircuitBreaker(int failureThreshold, long openMillis) {
+      this.breakerThreshold = failureThreshold;
+      this.breakerOpenMillis = openMillis;
+      return this;
+    }
+
+    /**
+     * Enables gzip compression of request bodies of at least the given
+     * size. The ledger must accept Content-Encoding: gzip. Responses are
+     * always requested with gzip and decompressed transparently.
+     * Disabled by default.
+     * @param minBytes the smallest body to compress, or a negative number
+     *   to disable compression
+     */
+    public Builder setRequestCompression(long minBytes) {
+      this.compressMinBytes = minBytes;
+      return this;
+    }
+
     /**
      * Builds a client with all of the provided parameters.
      */
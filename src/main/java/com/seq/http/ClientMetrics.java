@@ -0,0 +1,314 @@
+package com.seq.http;
+
+import com.seq.exception.APIException;
+import com.seq.exception.ChainException;
+import com.seq.exception.ConnectivityException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ClientMetrics is a {@link MetricsSink} that keeps counters and latency
+ * histograms for each API action in memory. Counters are striped
+ * ({@link LongAdder}), so recording from many threads does not contend.
+ *
+ * <pre>{@code
+ * ClientMetrics metrics = new ClientMetrics();
+ * Client ledger = new Client.Builder()
+ *   .setLedgerName("my-ledger")
+ *   .setCredential("...")
+ *   .setMetricsSink(metrics)
+ *   .build();
+ * ...
+ * for (Map.Entry<String, ClientMetrics.ActionStats> e : metrics.snapshot().entrySet()) {
+ *   System.out.println(e.getKey() + ": " + e.getValue());
+ * }
+ * }</pre>
+ */
+public class ClientMetrics extends MetricsSink {
+  private final ConcurrentMap<String, Recorder> actions = new ConcurrentHashMap<>();
+  private final LongAdder helloRefreshes = new LongAdder();
+  private final LongAdder helloFailures = new LongAdder();
+  private final LatencyHistogram helloLatency = new LatencyHistogram();
+
+  @Override
+  public void requestCompleted(String action, long latencyNanos, ChainException error) {
+    Recorder r = recorder(action);
+    r.requests.increment();
+    if (error != null) {
+      r.errors.increment();
+    }
+    r.latency.record(latencyNanos);
+  }
+
+  @Override
+  public void requestRetried(String action, ChainException cause) {
+    Recorder r = recorder(action);
+    r.retries.increment();
+    if (cause instanceof APIException) {
+      r.retriableApiErrors.increment();
+    } else if (cause instanceof ConnectivityException) {
+      r.connectivityErrors.increment();
+    } else {
+      r.ioErrors.increment();
+    }
+  }
+
+  @Override
+  public void requestHedged(String action) {
+    recorder(action).hedges.increment();
+  }
+
+  @Override
+  public void requestCompressed(String action, long bytes, long compressedBytes, long nanos) {
+    Recorder r = recorder(action);
+    r.requestBytesUncompressed.add(bytes);
+    r.requestBytesCompressed.add(compressedBytes);
+    r.compressionNanos.add(nanos);
+  }
+
+  @Override
+  public void responseCompressed(String action, long compressedBytes, long bytes) {
+    Recorder r = recorder(action);
+    r.responseBytesCompressed.add(compressedBytes);
+    r.responseBytesUncompressed.add(bytes);
+  }
+
+  @Override
+  public void bytesSent(String action, long bytes) {
+    recorder(action).bytesSent.add(bytes);
+  }
+
+  @Override
+  public void bytesReceived(String action, long bytes) {
+    recorder(action).bytesReceived.add(bytes);
+  }
+
+  @Override
+  public void helloRefreshed(long latencyNanos, ChainException error) {
+    helloRefreshes.increment();
+    if (error != null) {
+      helloFailures.increment();
+    }
+    helloLatency.record(latencyNanos);
+  }
+
+  /**
+   * Returns the statistics recorded so far for each action, keyed and
+   * sorted by action name. Recording continues while the snapshot is taken.
+   * @return a map of action names to statistics
+   */
+  public Map<String, ActionStats> snapshot() {
+    Map<String, ActionStats> result = new TreeMap<>();
+    for (Map.Entry<String, Recorder> e : actions.entrySet()) {
+      result.put(e.getKey(), e.getValue().snapshot());
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * Returns the number of refreshes of the ledger address.
+   * @return the number of refreshes, including failed ones
+   */
+  public long helloRefreshes() {
+    return helloRefreshes.sum();
+  }
+
+  /**
+   * Returns the number of failed refreshes of the ledger address.
+   * @return the number of failed refreshes
+   */
+  public long helloFailures() {
+    return helloFailures.sum();
+  }
+
+  /**
+   * Returns the distribution of ledger address refresh latencies.
+   * @return a snapshot of the latency histogram
+   */
+  public LatencyHistogram.Snapshot helloLatency() {
+    return helloLatency.snapshot();
+  }
+
+  private Recorder recorder(String action) {
+    Recorder r = actions.get(action);
+    if (r == null) {
+      Recorder created = new Recorder();
+      r = actions.putIfAbsent(action, created);
+      if (r == null) {
+        r = created;
+      }
+    }
+    return r;
+  }
+
+  private static class Recorder {
+    final LongAdder requests = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder retries = new LongAdder();
+    final LongAdder retriableApiErrors = new LongAdder();
+    final LongAdder connectivityErrors = new LongAdder();
+    final LongAdder ioErrors = new LongAdder();
+    final LongAdder hedges = new LongAdder();
+    final LongAdder bytesSent = new LongAdder();
+    final LongAdder bytesReceived = new LongAdder();
+    final LongAdder requestBytesUncompressed = new LongAdder();
+    final LongAdder requestBytesCompressed = new LongAdder();
+    final LongAdder compressionNanos = new LongAdder();
+    final LongAdder responseBytesCompressed = new LongAdder();
+    final LongAdder responseBytesUncompressed = new LongAdder();
+    final LatencyHistogram latency = new LatencyHistogram();
+
+    ActionStats snapshot() {
+      return new ActionStats(
+          requests.sum(),
+          errors.sum(),
+          retries.sum(),
+          retriableApiErrors.sum(),
+          connectivityErrors.sum(),
+          ioErrors.sum(),
+          hedges.sum(),
+          bytesSent.sum(),
+          bytesReceived.sum(),
+          requestBytesUncompressed.sum(),
+          requestBytesCompressed.sum(),
+          compressionNanos.sum(),
+          responseBytesCompressed.sum(),
+          responseBytesUncompressed.sum(),
+          latency.snapshot());
+    }
+  }
+
+  /**
+   * Statistics for a single API action.
+   */
+  public static class ActionStats {
+    /**
+     * The number of completed requests.
+     */
+    public final long requests;
+
+    /**
+     * The number of requests that failed after any retries.
+     */
+    public final long errors;
+
+    /**
+     * The number of retried attempts.
+     */
+    public final long retries;
+
+    /**
+     * The number of attempts retried due to a retriable APIException.
+     */
+    public final long retriableApiErrors;
+
+    /**
+     * The number of attempts retried due to a ConnectivityException.
+     */
+    public final long connectivityErrors;
+
+    /**
+     * The number of attempts retried due to an I/O error.
+     */
+    public final long ioErrors;
+
+    /**
+     * The number of hedges sent for slow reads.
+     */
+    public final long hedges;
+
+    /**
+     * The total size of request bodies sent.
+     */
+    public final long bytesSent;
+
+    /**
+     * The total size of response bodies received.
+     */
+    public final long bytesReceived;
+
+    /**
+     * The size of compressed request bodies before compression.
+     */
+    public final long requestBytesUncompressed;
+
+    /**
+     * The size of compressed request bodies after compression.
+     */
+    public final long requestBytesCompressed;
+
+    /**
+     * The total time spent compressing request bodies.
+     */
+    public final long compressionNanos;
+
+    /**
+     * The size of compressed response bodies as received.
+     */
+    public final long responseBytesCompressed;
+
+    /**
+     * The size of compressed response bodies after decompression.
+     */
+    public final long responseBytesUncompressed;
+
+    /**
+     * The distribution of request latencies.
+     */
+    public final LatencyHistogram.Snapshot latency;
+
+    ActionStats(
+        long requests,
+        long errors,
+        long retries,
+        long retriableApiErrors,
+        long connectivityErrors,
+        long ioErrors,
+        long hedges,
+        long bytesSent,
+        long bytesReceived,
+        long requestBytesUncompressed,
+        long requestBytesCompressed,
+        long compressionNanos,
+        long responseBytesCompressed,
+        long responseBytesUncompressed,
+        LatencyHistogram.Snapshot latency) {
+      this.requests = requests;
+      this.errors = errors;
+      this.retries = retries;
+      this.retriableApiErrors = retriableApiErrors;
+      this.connectivityErrors = connectivityErrors;
+      this.ioErrors = ioErrors;
+      this.hedges = hedges;
+      this.bytesSent = bytesSent;
+      this.bytesReceived = bytesReceived;
+      this.requestBytesUncompressed = requestBytesUncompressed;
+      this.requestBytesCompressed = requestBytesCompressed;
+      this.compressionNanos = compressionNanos;
+      this.responseBytesCompressed = responseBytesCompressed;
+      this.responseBytesUncompressed = responseBytesUncompressed;
+      this.latency = latency;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "requests=%d errors=%d retries=%d (api=%d connectivity=%d io=%d) hedges=%d sent=%dB received=%dB %s",
+          requests,
+          errors,
+          retries,
+          retriableApiErrors,
+          connectivityErrors,
+          ioErrors,
+          hedges,
+          bytesSent,
+          bytesReceived,
+          latency);
+    }
+  }
+}
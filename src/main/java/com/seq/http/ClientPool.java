@@ -0,0 +1,155 @@
+package com.seq.http;
+
+import com.seq.exception.ConfigurationException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+
+/**
+ * A ClientPool holds the resources shared by the clients of many ledgers
+ * and credentials in one process: the connection pool, the dispatcher
+ * threads, the TLS configuration, the JSON codec and the cache of
+ * ledger addresses.
+ * <br>
+ * Each ledger is a tenant with a request queue of its own, which sends at
+ * most {@link #setMaxRequestsPerTenant} requests at once. Requests beyond
+ * that wait in the tenant's queue without holding a thread or connection,
+ * so one busy ledger cannot take every connection from the others.
+ * <pre>{@code
+ * ClientPool pool = new ClientPool().setMaxRequestsPerTenant(16);
+ * Client client = new Client.Builder()
+ *   .setClientPool(pool)
+ *   .setLedgerName(tenant.ledger)
+ *   .setCredential(tenant.credential)
+ *   .build();
+ * }</pre>
+ * The pool should be configured before its first client is built.
+ */
+public class ClientPool {
+  private int maxRequestsPerTenant = 16;
+  private ConnectionPool connectionPool = new ConnectionPool(50, 2, TimeUnit.MINUTES);
+
+  private final ExecutorService executor;
+  private final ConcurrentMap<String, Dispatcher> dispatchers = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AddressState> addresses = new ConcurrentHashMap<>();
+  private JsonCodec codec = new GsonCodec();
+  private Tls tls;
+
+  public ClientPool() {
+    this.executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+        new SynchronousQueue<Runnable>(), new ThreadFactory() {
+          private final AtomicInteger count = new AtomicInteger();
+
+          public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "sequence-sdk-dispatcher-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+          }
+        });
+  }
+
+  /**
+   * Sets the number of requests each ledger may have in flight at once.
+   * Defaults to 16.
+   * @param maxRequests the maximum number of concurrent requests per ledger
+   * @return this pool
+   */
+  public ClientPool setMaxRequestsPerTenant(int maxRequests) {
+    this.maxRequestsPerTenant = maxRequests;
+    return this;
+  }
+
+  /**
+   * Sets the connection pool shared by all clients. Defaults to 50 idle
+   * connections kept for 2 minutes.
+   * @param maxIdle the maximum number of idle http connections in the pool
+   * @param timeout the number of time units until an idle http connection in the pool is closed
+   * @param unit the unit of time
+   * @return this pool
+   */
+  public ClientPool setConnectionPool(int maxIdle, long timeout, TimeUnit unit) {
+    this.connectionPool = new ConnectionPool(maxIdle, timeout, unit);
+    return this;
+  }
+
+  /**
+   * Sets the codec shared by all clients. Defaults to a {@link GsonCodec}.
+   * @param codec the codec
+   * @return this pool
+   */
+  public ClientPool setJsonCodec(JsonCodec codec) {
+    this.codec = codec;
+    return this;
+  }
+
+  ConnectionPool connectionPool() {
+    return connectionPool;
+  }
+
+  JsonCodec codec() {
+    return codec;
+  }
+
+  synchronized Tls tls() throws ConfigurationException {
+    if (tls == null) {
+      tls = Tls.fromEnvOrSystem();
+    }
+    return tls;
+  }
+
+  /**
+   * Returns the request queue of a ledger, whose calls run on the pool's
+   * threads.
+   */
+  Dispatcher dispatcherFor(String ledger) {
+    Dispatcher dispatcher = dispatchers.get(ledger);
+    if (dispatcher == null) {
+      Dispatcher created = new Dispatcher(executor);
+      created.setMaxRequests(maxRequestsPerTenant);
+      created.setMaxRequestsPerHost(maxRequestsPerTenant);
+      dispatcher = dispatchers.putIfAbsent(ledger, created);
+      if (dispatcher == null) {
+        dispatcher = created;
+      }
+    }
+    return dispatcher;
+  }
+
+  /**
+   * Returns the cached address of a ledger as seen with a credential. The
+   * address depends on the credential's team, so it is not shared between
+   * credentials.
+   */
+  AddressState addressFor(String ledger, String credential) {
+    String key = ledger + '\n' + credential;
+    AddressState state = addresses.get(key);
+    if (state == null) {
+      AddressState created = new AddressState();
+      state = addresses.putIfAbsent(key, created);
+      if (state == null) {
+        state = created;
+      }
+    }
+    return state;
+  }
+
+  /**
+   * The resolved address of a ledger and the refresh in flight, if any.
+   */
+  static final class AddressState {
+    final AtomicReference<Endpoint> endpoint = new AtomicReference<>();
+    final AtomicReference<CompletableFuture<Endpoint>> refresh = new AtomicReference<>();
+    final AtomicInteger refreshFailures = new AtomicInteger();
+  }
+}
@@ -0,0 +1,85 @@
+package com.seq.http;
+
+import java.io.IOException;
+import java.util.List;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.GzipSource;
+import okio.Okio;
+
+/**
+ * Decompresses gzip-encoded responses while counting the bytes on both
+ * sides, and reports them to the client's metrics sink once the body has
+ * been read. This replaces OkHttp's own transparent decompression, which
+ * hides the compressed size. OkHttp still sends Accept-Encoding: gzip.
+ */
+class CompressionInterceptor implements Interceptor {
+  private final MetricsSink metrics;
+
+  CompressionInterceptor(MetricsSink metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Response response = chain.proceed(chain.request());
+    ResponseBody body = response.body();
+    if (body == null
+        || body.contentLength() == 0
+        || !"gzip".equalsIgnoreCase(response.header("Content-Encoding"))) {
+      return response;
+    }
+
+    List<String> segments = response.request().url().encodedPathSegments();
+    String action = segments.get(segments.size() - 1);
+    CountingSource wire = new CountingSource(body.source());
+    DecodedSource decoded = new DecodedSource(new GzipSource(wire), wire, action);
+
+    return response.newBuilder()
+        .removeHeader("Content-Encoding")
+        .removeHeader("Content-Length")
+        .body(ResponseBody.create(body.contentType(), -1, Okio.buffer(decoded)))
+        .build();
+  }
+
+  /**
+   * Counts the decompressed bytes, and reports the totals at the end of
+   * the body or when it is closed.
+   */
+  private class DecodedSource extends CountingSource {
+    private final CountingSource wire;
+    private final String action;
+    private boolean reported;
+
+    DecodedSource(GzipSource delegate, CountingSource wire, String action) {
+      super(delegate);
+      this.wire = wire;
+      this.action = action;
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) throws IOException {
+      long n = super.read(sink, byteCount);
+      if (n == -1) {
+        report();
+      }
+      return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+      report();
+      super.close();
+    }
+
+    private void report() {
+      if (!reported) {
+        reported = true;
+        metrics.responseCompressed(action, wire.count(), count());
+      }
+    }
+  }
+}
@@ -0,0 +1,284 @@
+package com.seq.http;
+
+import com.seq.exception.LimitExceededException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * A ConcurrencyLimiter caps the number of requests a client has in flight
+ * for each API action, and adapts the cap to what the ledger can handle
+ * using additive-increase/multiplicative-decrease (AIMD).
+ * <br>
+ * The cap grows by about one request per round trip while responses are
+ * fast, and shrinks by the backoff ratio whenever a request fails with a
+ * retriable error or takes much longer than the fastest recently observed
+ * response. Each attempt of a request, including retries, must obtain a
+ * slot, so retries during a leader failover queue up behind the cap rather
+ * than adding to the load.
+ * <br>
+ * Requests over the cap either wait for a slot, up to a maximum wait, or
+ * fail immediately with a {@link LimitExceededException}.
+ */
+public class ConcurrencyLimiter {
+  private static final CompletableFuture<Void> ACQUIRED = CompletableFuture.completedFuture(null);
+
+  private final ConcurrentMap<String, Limit> limits = new ConcurrentHashMap<>();
+
+  private int initialLimit = 20;
+  private int minLimit = 1;
+  private int maxLimit = 200;
+  private double backoffRatio = 0.9;
+  private double latencyTolerance = 2.0;
+  private boolean failFast = false;
+  private long maxWaitMillis = 30000;
+  private int maxQueued = 1000;
+
+  /**
+   * Sets the cap each action starts with. Defaults to 20.
+   * @param initialLimit the initial number of in-flight requests
+   * @return this limiter
+   */
+  public ConcurrencyLimiter setInitialLimit(int initialLimit) {
+    this.initialLimit = initialLimit;
+    return this;
+  }
+
+  /**
+   * Sets the bounds of the cap. Defaults to 1 and 200.
+   * @param minLimit the smallest cap
+   * @param maxLimit the largest cap
+   * @return this limiter
+   */
+  public ConcurrencyLimiter setLimitRange(int minLimit, int maxLimit) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    return this;
+  }
+
+  /**
+   * Sets the factor the cap is multiplied by on overload. Defaults to 0.9.
+   * @param backoffRatio a ratio between 0 and 1
+   * @return this limiter
+   */
+  public ConcurrencyLimiter setBackoffRatio(double backoffRatio) {
+    this.backoffRatio = backoffRatio;
+    return this;
+  }
+
+  /**
+   * Sets how many times slower than the fastest recent response a
+   * response may be before it is treated as a sign of overload. Defaults
+   * to 2.
+   * @param latencyTolerance the tolerated latency ratio
+   * @return this limiter
+   */
+  public ConcurrencyLimiter setLatencyTolerance(double latencyTolerance) {
+    this.latencyTolerance = latencyTolerance;
+    return this;
+  }
+
+  /**
+   * Makes requests over the cap fail immediately instead of waiting for a
+   * slot.
+   * @param failFast whether to reject excess requests
+   * @return this limiter
+   */
+  public ConcurrencyLimiter setFailFast(boolean failFast) {
+    this.failFast = failFast;
+    return this;
+  }
+
+  /**
+   * Sets how long a request may wait for a slot, and how many requests
+   * may wait per action, before being rejected. Defaults to 30 seconds and
+   * 1000 requests.
+   * @param maxWaitMillis the maximum wait in milliseconds
+   * @param maxQueued the maximum number of waiting requests
+   * @return this limiter
+   */
+  public ConcurrencyLimiter setQueue(long maxWaitMillis, int maxQueued) {
+    this.maxWaitMillis = maxWaitMillis;
+    this.maxQueued = maxQueued;
+    return this;
+  }
+
+  /**
+   * Returns the current cap for an action.
+   * @param action the API action
+   * @return the number of requests allowed in flight
+   */
+  public int limit(String action) {
+    return forAction(action).limit();
+  }
+
+  /**
+   * Returns the number of requests in flight for an action.
+   * @param action the API action
+   * @return the number of requests in flight
+   */
+  public int inFlight(String action) {
+    return forAction(action).inFlight();
+  }
+
+  Limit forAction(String action) {
+    Limit limit = limits.get(action);
+    if (limit == null) {
+      Limit created = new Limit(action);
+      limit = limits.putIfAbsent(action, created);
+      if (limit == null) {
+        limit = created;
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * The adaptive cap of a single action.
+   */
+  class Limit {
+    private final String action;
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long baselineNanos;
+
+    Limit(String action) {
+      this.action = action;
+      this.limit = initialLimit;
+    }
+
+    synchronized int limit() {
+      return (int) limit;
+    }
+
+    synchronized int inFlight() {
+      return inFlight;
+    }
+
+    /**
+     * Obtains a slot. The returned future completes when the slot is
+     * granted, or fails with a LimitExceededException.
+     */
+    CompletableFuture<Void> acquire(ScheduledExecutorService scheduler) {
+      final CompletableFuture<Void> waiter;
+      synchronized (this) {
+        if (inFlight < (int) limit) {
+          inFlight++;
+          return ACQUIRED;
+        }
+        if (failFast || waiters.size() >= maxQueued) {
+          CompletableFuture<Void> rejected = new CompletableFuture<>();
+          rejected.completeExceptionally(new LimitExceededException(
+              "too many concurrent " + action + " requests (limit " + (int) limit + ")"));
+          return rejected;
+        }
+        waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+      }
+
+      final ScheduledFuture<?> timeout = scheduler.schedule(new Runnable() {
+        public void run() {
+          LimitExceededException ex = new LimitExceededException(
+              "timed out waiting for a " + action + " request slot");
+          if (waiter.completeExceptionally(ex)) {
+            synchronized (Limit.this) {
+              waiters.remove(waiter);
+            }
+          }
+        }
+      }, maxWaitMillis, TimeUnit.MILLISECONDS);
+      waiter.whenComplete(new BiConsumer<Void, Throwable>() {
+        public void accept(Void v, Throwable err) {
+          timeout.cancel(false);
+        }
+      });
+      return waiter;
+    }
+
+    /**
+     * Gives up on a slot requested with {@link #acquire}, releasing it if it
+     * was already granted.
+     */
+    void abandon(CompletableFuture<Void> waiter) {
+      if (waiter.cancel(false)) {
+        synchronized (this) {
+          waiters.remove(waiter);
+        }
+      } else if (!waiter.isCompletedExceptionally()) {
+        release();
+      }
+    }
+
+    /**
+     * Releases a slot after a response arrived in the given time.
+     */
+    void onSuccess(long latencyNanos) {
+      synchronized (this) {
+        if (baselineNanos == 0 || latencyNanos < baselineNanos) {
+          baselineNanos = latencyNanos;
+        } else {
+          // Let the baseline drift up slowly so that a single unusually
+          // fast response does not hold it down forever.
+          baselineNanos += (latencyNanos - baselineNanos) >> 8;
+        }
+
+        if (latencyNanos > baselineNanos * latencyTolerance) {
+          decrease();
+        } else if (inFlight * 2 >= limit) {
+          // Only grow while the current cap is actually being used.
+          limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+      }
+      release();
+    }
+
+    /**
+     * Releases a slot after a retriable failure, a sign of overload.
+     */
+    void onDropped() {
+      synchronized (this) {
+        decrease();
+      }
+      release();
+    }
+
+    /**
+     * Releases a slot without adjusting the cap, for outcomes that say
+     * nothing about load, such as a rejected transaction.
+     */
+    void onIgnored() {
+      release();
+    }
+
+    private void decrease() {
+      limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    private void release() {
+      List<CompletableFuture<Void>> granted = new ArrayList<>();
+      synchronized (this) {
+        inFlight--;
+        while (inFlight < (int) limit && !waiters.isEmpty()) {
+          granted.add(waiters.poll());
+          inFlight++;
+        }
+      }
+      // Complete outside the lock, since completion runs the request.
+      for (CompletableFuture<Void> waiter : granted) {
+        if (!waiter.complete(null)) {
+          // The waiter timed out after it was granted a slot.
+          release();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.seq.http;
+
+import java.io.IOException;
+
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Source;
+
+/**
+ * A source that counts the bytes read through it.
+ */
+class CountingSource extends ForwardingSource {
+  private long count;
+
+  CountingSource(Source delegate) {
+    super(delegate);
+  }
+
+  @Override
+  public long read(Buffer sink, long byteCount) throws IOException {
+    long n = super.read(sink, byteCount);
+    if (n > 0) {
+      count += n;
+    }
+    return n;
+  }
+
+  /**
+   * Returns the number of bytes read so far.
+   */
+  long count() {
+    return count;
+  }
+}
@@ -0,0 +1,228 @@
+package com.seq.http;
+
+import com.seq.exception.ChainException;
+import com.seq.exception.DeadlineExceededException;
+import com.seq.exception.RequestCancelledException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+
+/**
+ * A bound on the total time a request may take, and a handle to cancel it.
+ * <br>
+ * The deadline covers every attempt of a request and the backoff between
+ * them: a retry is only made if the remaining time can fit both its delay
+ * and another attempt as long as the last one. When the deadline passes or
+ * {@link #cancel()} is called, calls in flight are aborted and the request
+ * fails with a {@link DeadlineExceededException} or
+ * {@link RequestCancelledException}.
+ * <br>
+ * A deadline may be shared by several requests, for example all the calls
+ * made while serving one incoming request. Cancelling it aborts all of
+ * them. Deadlines bound the time until a response's headers arrive; reading
+ * the body of a successful response is bounded by the client's read
+ * timeout.
+ */
+public final class Deadline {
+  private final long expiresAt;
+  private final boolean bounded;
+
+  private final Set<Call> calls = new HashSet<>();
+  private final List<Runnable> cancelHooks = new ArrayList<>();
+  private boolean cancelled;
+  private ScheduledFuture<?> timer;
+
+  private Deadline(long timeoutNanos, boolean bounded) {
+    this.expiresAt = System.nanoTime() + timeoutNanos;
+    this.bounded = bounded;
+  }
+
+  /**
+   * Returns a deadline that expires after the given time from now.
+   * @param timeout the time allowed
+   * @param unit the unit of the timeout
+   * @return a new deadline
+   */
+  public static Deadline after(long timeout, TimeUnit unit) {
+    return new Deadline(unit.toNanos(timeout), true);
+  }
+
+  /**
+   * Returns a deadline that never expires, but can be cancelled.
+   * @return a new deadline
+   */
+  public static Deadline none() {
+    return new Deadline(0, false);
+  }
+
+  /**
+   * Returns the time left before the deadline, which is negative once it
+   * has passed, or Long.MAX_VALUE if it never expires.
+   * @param unit the unit of the result
+   * @return the remaining time
+   */
+  public long remaining(TimeUnit unit) {
+    if (!bounded) {
+      return Long.MAX_VALUE;
+    }
+    return unit.convert(expiresAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns whether the deadline has passed.
+   * @return true if the deadline has passed
+   */
+  public boolean isExpired() {
+    return bounded && expiresAt - System.nanoTime() <= 0;
+  }
+
+  /**
+   * Returns whether the deadline was cancelled.
+   * @return true if {@link #cancel()} was called
+   */
+  public synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Cancels every request bound by this deadline. Calls in flight are
+   * aborted, pending retries are dropped, and requests started later fail
+   * immediately.
+   */
+  public void cancel() {
+    List<Call> inFlight;
+    List<Runnable> hooks;
+    synchronized (this) {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      inFlight = new ArrayList<>(calls);
+      hooks = new ArrayList<>(cancelHooks);
+      calls.clear();
+      cancelHooks.clear();
+      stopTimer();
+      notifyAll();
+    }
+    for (Call call : inFlight) {
+      call.cancel();
+    }
+    for (Runnable hook : hooks) {
+      hook.run();
+    }
+  }
+
+  /**
+   * Throws if the deadline has passed or was cancelled.
+   * @param cause the failure of the last attempt, or null
+   */
+  void check(Throwable cause) throws ChainException {
+    if (isCancelled()) {
+      throw new RequestCancelledException("Request cancelled");
+    }
+    if (isExpired()) {
+      throw new DeadlineExceededException("Deadline exceeded", cause);
+    }
+  }
+
+  /**
+   * Returns whether a retry after the given delay, taking as long as the
+   * last attempt, would complete before the deadline.
+   */
+  boolean fits(long delayMillis, long attemptNanos) {
+    return !bounded
+        || remaining(TimeUnit.NANOSECONDS) > TimeUnit.MILLISECONDS.toNanos(delayMillis) + attemptNanos;
+  }
+
+  /**
+   * Waits for the given time, returning early if the deadline is cancelled.
+   */
+  synchronized void sleep(long millis) throws ChainException {
+    long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    try {
+      long left;
+      while (!cancelled && (left = end - System.nanoTime()) > 0) {
+        TimeUnit.NANOSECONDS.timedWait(this, left);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ChainException("Interrupted while waiting to retry", ex);
+    }
+  }
+
+  /**
+   * Tracks a call until {@link #unregister} so that it is aborted when the
+   * deadline passes or is cancelled. A call registered after that is
+   * cancelled immediately.
+   */
+  void register(Call call) {
+    synchronized (this) {
+      if (!cancelled && !isExpired()) {
+        calls.add(call);
+        if (bounded && timer == null) {
+          timer = Client.scheduler.schedule(new Runnable() {
+            public void run() {
+              expire();
+            }
+          }, remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+        return;
+      }
+    }
+    call.cancel();
+  }
+
+  void unregister(Call call) {
+    if (call == null) {
+      return;
+    }
+    synchronized (this) {
+      calls.remove(call);
+      if (calls.isEmpty()) {
+        stopTimer();
+      }
+    }
+  }
+
+  /**
+   * Runs the hook if the deadline is cancelled before {@link #removeHook}.
+   */
+  void addHook(Runnable hook) {
+    synchronized (this) {
+      if (!cancelled) {
+        cancelHooks.add(hook);
+        return;
+      }
+    }
+    hook.run();
+  }
+
+  synchronized void removeHook(Runnable hook) {
+    cancelHooks.remove(hook);
+  }
+
+  private void stopTimer() {
+    if (timer != null) {
+      timer.cancel(false);
+      timer = null;
+    }
+  }
+
+  private void expire() {
+    List<Call> inFlight;
+    synchronized (this) {
+      timer = null;
+      inFlight = new ArrayList<>(calls);
+      calls.clear();
+    }
+    for (Call call : inFlight) {
+      call.cancel();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.seq.http;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import okhttp3.HttpUrl;
+
+/**
+ * An immutable snapshot of the ledger address returned by /hello. A new
+ * snapshot replaces the old one whenever the address is refreshed, so
+ * requests can read it without locking.
+ */
+final class Endpoint {
+  /**
+   * The base URL of the ledger, without a trailing slash.
+   */
+  final String ledgerUrl;
+
+  /**
+   * The time, in milliseconds since the epoch, after which the address
+   * should no longer be used without refreshing it.
+   */
+  final long expiresAtMillis;
+
+  // Parsed URLs of the actions requested so far, so that each is only
+  // parsed once per address.
+  private final ConcurrentMap<String, HttpUrl> actionUrls = new ConcurrentHashMap<>();
+
+  Endpoint(String ledgerUrl, long expiresAtMillis) {
+    this.ledgerUrl = ledgerUrl;
+    this.expiresAtMillis = expiresAtMillis;
+  }
+
+  boolean isExpired(long nowMillis) {
+    return nowMillis >= expiresAtMillis;
+  }
+
+  /**
+   * Returns the URL of an action on this ledger address.
+   * @param action the requested API action
+   * @return the parsed URL, or null if it is malformed
+   */
+  HttpUrl actionUrl(String action) {
+    HttpUrl url = actionUrls.get(action);
+    if (url == null) {
+      url = HttpUrl.parse(ledgerUrl + "/" + action);
+      if (url != null) {
+        actionUrls.putIfAbsent(action, url);
+      }
+    }
+    return url;
+  }
+}
@@ -0,0 +1,98 @@
+package com.seq.http;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.seq.api.TagKind;
+
+import java.lang.reflect.Type;
+import java.util.Date;
+
+/**
+ * The default {@link JsonCodec}, which maps the fields of API objects
+ * annotated with {@link com.google.gson.annotations.Expose}. The type
+ * adapters of the API objects are generated at build time, so decoding
+ * them does not use reflection; other classes are mapped by reflection.
+ */
+public class GsonCodec implements JsonCodec {
+  private final TimestampMode mode;
+  private final TagTypes tagTypes = new TagTypes();
+  private volatile Gson gson;
+
+  public GsonCodec() {
+    this(TimestampMode.DATE);
+  }
+
+  /**
+   * Creates a codec that decodes timestamps in the given mode.
+   * @param mode whether to decode timestamps into Dates
+   */
+  public GsonCodec(TimestampMode mode) {
+    this.mode = mode;
+  }
+
+  /**
+   * Sets the class that tags of the given kind are decoded into, instead
+   * of a map. The tags field of each API object then holds a
+   * {@link BoundTagMap}, whose instance of the class is returned by
+   * methods such as {@link com.seq.api.Action#getTags(Class)} or by
+   * {@link TagBinding#bind(java.util.Map, Class)}. Numbers are decoded into
+   * the types of the class's fields, without passing through Double. Must
+   * be set before the codec is first used.
+   * <pre>{@code
+   * JsonCodec codec = new GsonCodec()
+   *   .setTagType(TagKind.ACCOUNT, AccountTags.class)
+   *   .setTagType(TagKind.ACTION, ActionTags.class);
+   * }</pre>
+   * @param kind the kind of tags
+   * @param type the class of the tags, or null to decode them into maps
+   * @return this codec
+   */
+  public GsonCodec setTagType(TagKind kind, Class<?> type) {
+    if (gson != null) {
+      throw new IllegalStateException("codec already in use");
+    }
+    tagTypes.put(kind, type);
+    return this;
+  }
+
+  /**
+   * Returns the Gson configuration of the API: only fields annotated with
+   * Expose are mapped, timestamps are ISO-8601 strings, and the API objects
+   * use the generated type adapters.
+   */
+  GsonBuilder builder() {
+    return new GsonBuilder()
+        .excludeFieldsWithoutExposeAnnotation()
+        .registerTypeAdapter(Date.class, new Iso8601DateAdapter(mode))
+        .registerTypeAdapterFactory(new GeneratedTypeAdapters(tagTypes));
+  }
+
+  @Override
+  public <T> T decode(JsonReader reader, Type type) {
+    return gson().fromJson(reader, type);
+  }
+
+  @Override
+  public void encode(Object value, Type type, JsonWriter writer) {
+    gson().toJson(value, type, writer);
+  }
+
+  /**
+   * Returns the Gson instance of the codec, built on first use.
+   */
+  Gson gson() {
+    Gson result = gson;
+    if (result == null) {
+      synchronized (this) {
+        result = gson;
+        if (result == null) {
+          result = builder().create();
+          gson = result;
+        }
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,126 @@
+package com.seq.http;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * Races a request against a hedge sent after a delay, and passes the first
+ * response to the delegate callback. The other call is cancelled, and its
+ * response discarded if it arrives anyway. The delegate sees a failure only
+ * if every call that was started failed.
+ */
+class HedgedCall implements Callback {
+  private final Call primary;
+  private final Call hedge;
+  private final HedgingPolicy.Stats stats;
+  private final Callback delegate;
+  private final Runnable onHedge;
+
+  private long primaryStart;
+  private long hedgeStart;
+  private int outstanding;
+  private boolean done;
+  private ScheduledFuture<?> timer;
+
+  /**
+   * @param primary the original call
+   * @param hedge the duplicate call, or null to only record latency
+   * @param stats the latency tracker of the action
+   * @param delegate receives the winning response
+   * @param onHedge run when the hedge is sent
+   */
+  HedgedCall(Call primary, Call hedge, HedgingPolicy.Stats stats, Callback delegate, Runnable onHedge) {
+    this.primary = primary;
+    this.hedge = hedge;
+    this.stats = stats;
+    this.delegate = delegate;
+    this.onHedge = onHedge;
+  }
+
+  Call primary() {
+    return primary;
+  }
+
+  Call hedge() {
+    return hedge;
+  }
+
+  void start(long delayNanos, ScheduledExecutorService scheduler) {
+    synchronized (this) {
+      outstanding = 1;
+      primaryStart = System.nanoTime();
+    }
+    primary.enqueue(this);
+
+    if (hedge != null) {
+      ScheduledFuture<?> t = scheduler.schedule(new Runnable() {
+        public void run() {
+          startHedge();
+        }
+      }, delayNanos, TimeUnit.NANOSECONDS);
+      synchronized (this) {
+        timer = t;
+        if (done) {
+          t.cancel(false);
+        }
+      }
+    }
+  }
+
+  private void startHedge() {
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      outstanding++;
+      hedgeStart = System.nanoTime();
+    }
+    onHedge.run();
+    hedge.enqueue(this);
+  }
+
+  @Override
+  public void onResponse(Call call, Response response) throws IOException {
+    boolean won;
+    synchronized (this) {
+      outstanding--;
+      stats.record(System.nanoTime() - (call == primary ? primaryStart : hedgeStart));
+      won = !done;
+      done = true;
+      if (timer != null) {
+        timer.cancel(false);
+      }
+    }
+    if (!won) {
+      response.close();
+      return;
+    }
+
+    Call loser = call == primary ? hedge : primary;
+    if (loser != null) {
+      loser.cancel();
+    }
+    delegate.onResponse(call, response);
+  }
+
+  @Override
+  public void onFailure(Call call, IOException ex) {
+    synchronized (this) {
+      outstanding--;
+      if (done || outstanding > 0) {
+        return;
+      }
+      done = true;
+      if (timer != null) {
+        timer.cancel(false);
+      }
+    }
+    delegate.onFailure(call, ex);
+  }
+}
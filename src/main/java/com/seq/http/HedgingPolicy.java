@@ -0,0 +1,159 @@
+package com.seq.http;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A HedgingPolicy makes a client send a second, identical request for a
+ * read-only action when the first has not been answered within a
+ * percentile of that action's recent latency, and use whichever response
+ * arrives first. The slower request is cancelled.
+ * <br>
+ * Only actions without side effects may be hedged: the list and sum
+ * queries. Transactions, tag updates and other writes are never hedged.
+ * The hedge is sent with the same Idempotency-Key as the original, and an
+ * Id header of the original's attempt id with a "-hedge" suffix, so the two
+ * can be correlated in logs.
+ */
+public class HedgingPolicy {
+  /**
+   * The actions that can be hedged.
+   */
+  public static final Set<String> READ_ACTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+      "list-accounts",
+      "list-actions",
+      "list-feeds",
+      "list-flavors",
+      "list-keys",
+      "list-tokens",
+      "list-transactions",
+      "sum-actions",
+      "sum-tokens")));
+
+  // Latencies are tracked over windows of this many responses, so that the
+  // hedging delay follows changes in the ledger's performance.
+  private static final int WINDOW = 1000;
+  private static final int RECOMPUTE_EVERY = 100;
+
+  private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+  private Set<String> actions = READ_ACTIONS;
+  private double percentile = 95;
+  private long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(5);
+  private int minSamples = 50;
+
+  /**
+   * Restricts hedging to the given actions, which must all be read-only.
+   * By default all read-only actions are hedged.
+   * @param actions the actions to hedge
+   * @return this policy
+   * @throws IllegalArgumentException if an action is not read-only
+   */
+  public HedgingPolicy setActions(String... actions) {
+    Set<String> set = new HashSet<>(Arrays.asList(actions));
+    for (String action : set) {
+      if (!READ_ACTIONS.contains(action)) {
+        throw new IllegalArgumentException(action + " is not a read-only action");
+      }
+    }
+    this.actions = set;
+    return this;
+  }
+
+  /**
+   * Sets the latency percentile after which a hedge is sent. Defaults to
+   * 95.
+   * @param percentile a percentile between 0 and 100
+   * @return this policy
+   */
+  public HedgingPolicy setPercentile(double percentile) {
+    this.percentile = percentile;
+    return this;
+  }
+
+  /**
+   * Sets the shortest delay before a hedge is sent, however fast the
+   * action usually is. Defaults to 5 milliseconds.
+   * @param millis the minimum delay in milliseconds
+   * @return this policy
+   */
+  public HedgingPolicy setMinDelay(long millis) {
+    this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    return this;
+  }
+
+  /**
+   * Sets the number of responses an action must have seen before its
+   * requests are hedged. Defaults to 50.
+   * @param minSamples the number of responses
+   * @return this policy
+   */
+  public HedgingPolicy setMinSamples(int minSamples) {
+    this.minSamples = minSamples;
+    return this;
+  }
+
+  /**
+   * Returns the latency tracker for an action, or null if the action is
+   * not hedged.
+   */
+  Stats forAction(String action) {
+    if (!actions.contains(action)) {
+      return null;
+    }
+    Stats s = stats.get(action);
+    if (s == null) {
+      Stats created = new Stats();
+      s = stats.putIfAbsent(action, created);
+      if (s == null) {
+        s = created;
+      }
+    }
+    return s;
+  }
+
+  /**
+   * Tracks the recent latency of a single action.
+   */
+  class Stats {
+    private volatile LatencyHistogram window = new LatencyHistogram();
+    private final AtomicLong samples = new AtomicLong();
+    private volatile long delayNanos = -1;
+
+    void record(long latencyNanos) {
+      window.record(latencyNanos);
+      long n = samples.incrementAndGet();
+      if (n % RECOMPUTE_EVERY != 0) {
+        return;
+      }
+
+      LatencyHistogram.Snapshot snap = window.snapshot();
+      if (snap.count >= minSamples) {
+        delayNanos = Math.max(minDelayNanos, snap.valueAtPercentile(percentile));
+      }
+      if (snap.count >= WINDOW) {
+        window = new LatencyHistogram();
+      }
+    }
+
+    /**
+     * Returns how long to wait before hedging, or -1 if not enough
+     * responses have been seen yet.
+     */
+    long delayNanos() {
+      if (delayNanos < 0 && samples.get() >= minSamples) {
+        LatencyHistogram.Snapshot snap = window.snapshot();
+        if (snap.count >= minSamples) {
+          delayNanos = Math.max(minDelayNanos, snap.valueAtPercentile(percentile));
+        }
+      }
+      return delayNanos;
+    }
+  }
+}
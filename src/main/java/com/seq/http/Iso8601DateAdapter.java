@@ -0,0 +1,237 @@
+package com.seq.http;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Reads and writes the API's ISO-8601 timestamps, such as
+ * 2018-08-08T10:11:12.123Z. Parsing works on the characters of the string
+ * with plain arithmetic, without SimpleDateFormat, locks or intermediate
+ * objects. Timestamps are written in UTC.
+ * <br>
+ * Objects with a {@code <name>Millis} field next to a Date field are
+ * decoded with {@link #readEpochMillis} and {@link #toDate}, which skip the
+ * Date when the mode is {@link TimestampMode#EPOCH_MILLIS}.
+ */
+final class Iso8601DateAdapter extends TypeAdapter<Date> {
+  private static final long MILLIS_PER_DAY = 86400000L;
+
+  private final TimestampMode mode;
+
+  Iso8601DateAdapter(TimestampMode mode) {
+    this.mode = mode;
+  }
+
+  @Override
+  public Date read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return new Date(parse(in.nextString()));
+  }
+
+  /**
+   * Reads a timestamp as milliseconds since the epoch, or
+   * {@link ApiTypeAdapters#NO_TIMESTAMP} for null.
+   */
+  long readEpochMillis(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return ApiTypeAdapters.NO_TIMESTAMP;
+    }
+    return parse(in.nextString());
+  }
+
+  private static long parse(String s) {
+    try {
+      return parseMillis(s);
+    } catch (IllegalArgumentException ex) {
+      throw new JsonSyntaxException(s, ex);
+    }
+  }
+
+  /**
+   * Returns the Date for a timestamp read by {@link #readEpochMillis}, or
+   * null if there was none or the mode skips Dates.
+   */
+  Date toDate(long millis) {
+    return millis == ApiTypeAdapters.NO_TIMESTAMP || mode == TimestampMode.EPOCH_MILLIS ? null : new Date(millis);
+  }
+
+  @Override
+  public void write(JsonWriter out, Date value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    out.value(format(value.getTime()));
+  }
+
+  /**
+   * Parses an ISO-8601 date and time with a UTC offset, such as
+   * 2018-08-08T10:11:12.123+02:00. Fractions of a second beyond
+   * milliseconds are truncated.
+   * @throws IllegalArgumentException if the timestamp is malformed
+   */
+  static long parseMillis(String s) {
+    int len = s.length();
+    if (len < 20 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(13) != ':' || s.charAt(16) != ':') {
+      throw new IllegalArgumentException("malformed timestamp");
+    }
+    char t = s.charAt(10);
+    if (t != 'T' && t != 't' && t != ' ') {
+      throw new IllegalArgumentException("malformed timestamp");
+    }
+    int year = digits(s, 0, 4);
+    int month = digits(s, 5, 2);
+    int day = digits(s, 8, 2);
+    int hour = digits(s, 11, 2);
+    int minute = digits(s, 14, 2);
+    int second = digits(s, 17, 2);
+    if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+        || hour > 23 || minute > 59 || second > 60) {
+      throw new IllegalArgumentException("timestamp out of range");
+    }
+
+    int pos = 19;
+    int millis = 0;
+    if (s.charAt(pos) == '.') {
+      pos++;
+      int n = 0;
+      while (pos < len && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') {
+        if (n < 3) {
+          millis = millis * 10 + (s.charAt(pos) - '0');
+        }
+        n++;
+        pos++;
+      }
+      if (n == 0) {
+        throw new IllegalArgumentException("malformed timestamp");
+      }
+      for (; n < 3; n++) {
+        millis *= 10;
+      }
+    }
+
+    if (pos >= len) {
+      throw new IllegalArgumentException("missing UTC offset");
+    }
+    int offsetSeconds = 0;
+    char sign = s.charAt(pos);
+    if (sign == 'Z' || sign == 'z') {
+      pos++;
+    } else if (sign == '+' || sign == '-') {
+      int offsetHours = digits(s, pos + 1, 2);
+      pos += 3;
+      int offsetMinutes = 0;
+      if (pos < len) {
+        if (s.charAt(pos) == ':') {
+          pos++;
+        }
+        offsetMinutes = digits(s, pos, 2);
+        pos += 2;
+      }
+      offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (sign == '-' ? -1 : 1);
+    } else {
+      throw new IllegalArgumentException("malformed UTC offset");
+    }
+    if (pos != len) {
+      throw new IllegalArgumentException("malformed timestamp");
+    }
+
+    long seconds = epochDay(year, month, day) * 86400 + hour * 3600 + minute * 60 + second - offsetSeconds;
+    return seconds * 1000 + millis;
+  }
+
+  /**
+   * Formats milliseconds since the epoch as yyyy-MM-ddTHH:mm:ss.SSSZ.
+   */
+  static String format(long epochMillis) {
+    long days = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+    int millisOfDay = (int) Math.floorMod(epochMillis, MILLIS_PER_DAY);
+
+    // Converts days since the epoch to a proleptic Gregorian date.
+    long z = days + 719468;
+    long era = (z >= 0 ? z : z - 146096) / 146097;
+    long doe = z - era * 146097;
+    long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+    long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+    long mp = (5 * doy + 2) / 153;
+    int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+    int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+    long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+    StringBuilder sb = new StringBuilder(24);
+    pad(sb, year, 4).append('-');
+    pad(sb, month, 2).append('-');
+    pad(sb, day, 2).append('T');
+    pad(sb, millisOfDay / 3600000, 2).append(':');
+    pad(sb, millisOfDay / 60000 % 60, 2).append(':');
+    pad(sb, millisOfDay / 1000 % 60, 2).append('.');
+    pad(sb, millisOfDay % 1000, 3).append('Z');
+    return sb.toString();
+  }
+
+  private static int digits(String s, int pos, int n) {
+    if (pos + n > s.length()) {
+      throw new IllegalArgumentException("malformed timestamp");
+    }
+    int value = 0;
+    for (int i = pos; i < pos + n; i++) {
+      char c = s.charAt(i);
+      if (c < '0' || c > '9') {
+        throw new IllegalArgumentException("malformed timestamp");
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  private static int daysInMonth(int year, int month) {
+    switch (month) {
+      case 2:
+        return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /**
+   * Returns the number of days from 1970-01-01 to a proleptic Gregorian
+   * date.
+   */
+  private static long epochDay(int year, int month, int day) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = (y >= 0 ? y : y - 399) / 400;
+    long yoe = y - era * 400;
+    long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+    return era * 146097 + doe - 719468;
+  }
+
+  private static StringBuilder pad(StringBuilder sb, long value, int width) {
+    if (value < 0) {
+      sb.append('-');
+      value = -value;
+      width--;
+    }
+    for (long bound = 10; --width > 0; bound *= 10) {
+      if (value < bound) {
+        sb.append('0');
+      }
+    }
+    return sb.append(value);
+  }
+}
@@ -0,0 +1,302 @@
+package com.seq.http;
+
+import com.seq.exception.ConfigurationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.Okio;
+
+/**
+ * A {@link Transport} based on the JDK's java.net.http client, which
+ * negotiates HTTP/2 and multiplexes concurrent requests over a single
+ * connection per ledger address. Requires Java 11 or later.
+ * <pre>{@code
+ * Client client = new Client.Builder()
+ *   .setTransport(new JdkHttpTransport().setRequestTimeout(30, TimeUnit.SECONDS))
+ *   ...
+ *   .build();
+ * }</pre>
+ * The OkHttp settings of {@link Client.Builder}, including timeouts,
+ * connection pools, request lanes, logging and request timings, do not
+ * apply to this transport. Responses are not compressed.
+ */
+public class JdkHttpTransport implements Transport {
+  // Headers that java.net.http sets itself and does not allow callers to set.
+  private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList(
+      "connection", "content-length", "date", "expect", "from", "host", "upgrade", "via", "warning"));
+
+  private long connectTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+  private long requestTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+  private Executor executor;
+  private HttpClient client;
+
+  /**
+   * Sets the timeout for opening a connection. Defaults to 30 seconds.
+   * @param timeout the timeout
+   * @param unit the unit of the timeout
+   * @return this transport
+   */
+  public JdkHttpTransport setConnectTimeout(long timeout, TimeUnit unit) {
+    this.connectTimeoutMillis = unit.toMillis(timeout);
+    return this;
+  }
+
+  /**
+   * Sets the time allowed between sending a request and receiving its
+   * response headers. Defaults to 30 seconds.
+   * @param timeout the timeout
+   * @param unit the unit of the timeout
+   * @return this transport
+   */
+  public JdkHttpTransport setRequestTimeout(long timeout, TimeUnit unit) {
+    this.requestTimeoutMillis = unit.toMillis(timeout);
+    return this;
+  }
+
+  /**
+   * Sets the executor that runs response handling. By default the JDK
+   * client uses a cached thread pool of its own.
+   * @param executor the executor
+   * @return this transport
+   */
+  public JdkHttpTransport setExecutor(Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * Builds the JDK client, with the CA certificates from SEQTLSCA if set.
+   * Called by the client that uses this transport.
+   */
+  synchronized void init() throws ConfigurationException {
+    if (client != null) {
+      return;
+    }
+    HttpClient.Builder builder = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .connectTimeout(Duration.ofMillis(connectTimeoutMillis));
+    Tls tls = Tls.fromEnv();
+    if (tls != null) {
+      builder.sslContext(tls.context);
+    }
+    if (executor != null) {
+      builder.executor(executor);
+    }
+    client = builder.build();
+  }
+
+  private synchronized HttpClient client() {
+    if (client == null) {
+      try {
+        init();
+      } catch (ConfigurationException ex) {
+        throw new IllegalStateException(ex);
+      }
+    }
+    return client;
+  }
+
+  @Override
+  public Call newCall(Request request) {
+    return new JdkCall(request);
+  }
+
+  private HttpRequest convert(Request request) throws IOException {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.url().toString()))
+        .timeout(Duration.ofMillis(requestTimeoutMillis));
+    Headers headers = request.headers();
+    for (int i = 0; i < headers.size(); i++) {
+      if (!RESTRICTED_HEADERS.contains(headers.name(i).toLowerCase())) {
+        builder.header(headers.name(i), headers.value(i));
+      }
+    }
+
+    if (request.body() == null) {
+      return builder.method(request.method(), HttpRequest.BodyPublishers.noBody()).build();
+    }
+    if (request.body().contentType() != null && request.header("Content-Type") == null) {
+      builder.header("Content-Type", request.body().contentType().toString());
+    }
+    Buffer body = new Buffer();
+    request.body().writeTo(body);
+    return builder.method(request.method(), HttpRequest.BodyPublishers.ofByteArray(body.readByteArray())).build();
+  }
+
+  private static Response convert(Request request, HttpResponse<InputStream> response, long sentAtMillis) {
+    Headers.Builder headers = new Headers.Builder();
+    for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+      if (header.getKey().startsWith(":")) {
+        continue; // HTTP/2 pseudo-header
+      }
+      for (String value : header.getValue()) {
+        headers.add(header.getKey(), value);
+      }
+    }
+
+    String contentType = response.headers().firstValue("Content-Type").orElse(null);
+    long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+    ResponseBody body = ResponseBody.create(
+        contentType == null ? null : MediaType.parse(contentType),
+        contentLength,
+        Okio.buffer(Okio.source(response.body())));
+    return new Response.Builder()
+        .request(request)
+        .protocol(response.version() == HttpClient.Version.HTTP_2 ? Protocol.HTTP_2 : Protocol.HTTP_1_1)
+        .code(response.statusCode())
+        .message("")
+        .headers(headers.build())
+        .body(body)
+        .sentRequestAtMillis(sentAtMillis)
+        .receivedResponseAtMillis(System.currentTimeMillis())
+        .build();
+  }
+
+  private static IOException asIOException(Throwable err) {
+    while (err instanceof CompletionException && err.getCause() != null) {
+      err = err.getCause();
+    }
+    if (err instanceof IOException) {
+      return (IOException) err;
+    }
+    if (err instanceof CancellationException) {
+      return new IOException("Canceled");
+    }
+    return new IOException(err);
+  }
+
+  /**
+   * A request sent with the JDK client. Cancelling it abandons the
+   * exchange.
+   */
+  private class JdkCall implements Call {
+    private final Request request;
+    private boolean executed;
+    private boolean canceled;
+    private CompletableFuture<HttpResponse<InputStream>> exchange;
+
+    JdkCall(Request request) {
+      this.request = request;
+    }
+
+    @Override
+    public Request request() {
+      return request;
+    }
+
+    @Override
+    public Response execute() throws IOException {
+      CompletableFuture<Response> response = start();
+      try {
+        return response.get();
+      } catch (ExecutionException | CancellationException ex) {
+        throw asIOException(ex instanceof ExecutionException ? ex.getCause() : ex);
+      } catch (InterruptedException ex) {
+        cancel();
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("interrupted while waiting for " + request.url());
+      }
+    }
+
+    @Override
+    public void enqueue(final Callback callback) {
+      start().whenComplete(new BiConsumer<Response, Throwable>() {
+        public void accept(Response response, Throwable err) {
+          if (err != null) {
+            callback.onFailure(JdkCall.this, asIOException(err));
+            return;
+          }
+          try {
+            callback.onResponse(JdkCall.this, response);
+          } catch (IOException ex) {
+            response.close();
+          }
+        }
+      });
+    }
+
+    private CompletableFuture<Response> start() {
+      final long sentAtMillis = System.currentTimeMillis();
+      CompletableFuture<HttpResponse<InputStream>> sent;
+      synchronized (this) {
+        if (executed) {
+          throw new IllegalStateException("Already Executed");
+        }
+        executed = true;
+        if (canceled) {
+          sent = new CompletableFuture<>();
+          sent.completeExceptionally(new IOException("Canceled"));
+        } else {
+          try {
+            sent = client().sendAsync(convert(request), HttpResponse.BodyHandlers.ofInputStream());
+          } catch (IOException | IllegalArgumentException ex) {
+            sent = new CompletableFuture<>();
+            sent.completeExceptionally(ex);
+          }
+        }
+        exchange = sent;
+      }
+      return sent.thenApply(new Function<HttpResponse<InputStream>, Response>() {
+        public Response apply(HttpResponse<InputStream> response) {
+          return convert(request, response, sentAtMillis);
+        }
+      });
+    }
+
+    @Override
+    public void cancel() {
+      CompletableFuture<HttpResponse<InputStream>> inFlight;
+      synchronized (this) {
+        canceled = true;
+        inFlight = exchange;
+      }
+      if (inFlight != null) {
+        inFlight.cancel(true);
+      }
+    }
+
+    @Override
+    public synchronized boolean isExecuted() {
+      return executed;
+    }
+
+    @Override
+    public synchronized boolean isCanceled() {
+      return canceled;
+    }
+
+    @Override
+    public Call clone() {
+      return new JdkCall(request);
+    }
+  }
+}
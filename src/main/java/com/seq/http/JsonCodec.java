@@ -0,0 +1,35 @@
+package com.seq.http;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.lang.reflect.Type;
+
+/**
+ * A JsonCodec encodes request bodies and decodes responses, page items and
+ * API errors. Values are read from and written to Gson's streaming
+ * {@link JsonReader} and {@link JsonWriter}, so that page items can be
+ * decoded one at a time while the response is received.
+ * <br>
+ * {@link GsonCodec}, the default, maps the API objects with type adapters
+ * generated at build time. Codecs must be safe to use from many threads.
+ */
+public interface JsonCodec {
+  /**
+   * Reads the next value from a reader.
+   * @param reader the reader, positioned at the value
+   * @param type the type of the value
+   * @return the value, or null for a JSON null
+   * @throws com.google.gson.JsonParseException if the value is malformed
+   */
+  <T> T decode(JsonReader reader, Type type);
+
+  /**
+   * Writes a value to a writer.
+   * @param value the value, or null
+   * @param type the type of the value
+   * @param writer the writer
+   * @throws com.google.gson.JsonIOException if the value cannot be written
+   */
+  void encode(Object value, Type type, JsonWriter writer);
+}
@@ -0,0 +1,176 @@
+package com.seq.http;
+
+import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Source;
+
+/**
+ * A request body that serializes an object as JSON directly into pooled
+ * okio segments, without building an intermediate String or byte array.
+ * The encoded bytes are kept so that retries and logging can replay them
+ * without serializing the object again, and so that the request carries a
+ * Content-Length rather than using chunked encoding.
+ */
+class JsonRequestBody extends RequestBody {
+  private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+  private Buffer encoded;
+  private final long encodeNanos;
+  private boolean gzipped;
+
+  JsonRequestBody(JsonCodec codec, Object body) {
+    long start = System.nanoTime();
+    this.encoded = new Buffer();
+    Utf8Writer utf8 = new Utf8Writer(this.encoded);
+    JsonWriter writer = new JsonWriter(utf8);
+    if (body == null) {
+      codec.encode(JsonNull.INSTANCE, JsonNull.class, writer);
+    } else {
+      codec.encode(body, body.getClass(), writer);
+    }
+    utf8.close();
+    this.encodeNanos = System.nanoTime() - start;
+  }
+
+  /**
+   * Compresses the encoded body with gzip, in place. Retries send the
+   * compressed bytes without compressing again.
+   * @return the time taken to compress the body
+   */
+  long gzip() {
+    long start = System.nanoTime();
+    Buffer compressed = new Buffer();
+    GzipSink sink = new GzipSink(compressed);
+    try {
+      sink.write(encoded, encoded.size());
+      sink.close();
+    } catch (IOException ex) {
+      // Writing to a Buffer does not throw.
+      throw new IllegalStateException(ex);
+    }
+    this.encoded = compressed;
+    this.gzipped = true;
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Returns true if the body has been compressed.
+   */
+  boolean gzipped() {
+    return gzipped;
+  }
+
+  /**
+   * Returns the time taken to serialize the body.
+   */
+  long encodeNanos() {
+    return encodeNanos;
+  }
+
+  @Override
+  public MediaType contentType() {
+    return JSON;
+  }
+
+  @Override
+  public long contentLength() {
+    return encoded.size();
+  }
+
+  /**
+   * Returns a source over the encoded body, for reading part of it
+   * without copying the rest.
+   */
+  Source source() {
+    // A cloned buffer shares the encoded segments rather than bytes.
+    return encoded.clone();
+  }
+
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    // Copying between buffers shares segments rather than bytes.
+    encoded.copyTo(sink.buffer(), 0, encoded.size());
+    sink.emitCompleteSegments();
+  }
+
+  /**
+   * A Writer that encodes characters as UTF-8 straight into a Buffer.
+   * Unpaired surrogates are written as '?', like {@link String#getBytes}.
+   */
+  private static class Utf8Writer extends Writer {
+    private final Buffer buffer;
+    private char highSurrogate;
+
+    Utf8Writer(Buffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+      if (len == 0) {
+        return;
+      }
+      if (highSurrogate != 0) {
+        write(str.charAt(off));
+        off++;
+        len--;
+      }
+      if (len > 0 && Character.isHighSurrogate(str.charAt(off + len - 1))) {
+        buffer.writeUtf8(str, off, off + len - 1);
+        highSurrogate = str.charAt(off + len - 1);
+      } else if (len > 0) {
+        buffer.writeUtf8(str, off, off + len);
+      }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+      for (int i = off; i < off + len; i++) {
+        write(cbuf[i]);
+      }
+    }
+
+    @Override
+    public void write(int c) {
+      char ch = (char) c;
+      if (highSurrogate != 0) {
+        if (Character.isLowSurrogate(ch)) {
+          buffer.writeUtf8CodePoint(Character.toCodePoint(highSurrogate, ch));
+          highSurrogate = 0;
+          return;
+        }
+        buffer.writeUtf8CodePoint('?');
+        highSurrogate = 0;
+      }
+      if (Character.isHighSurrogate(ch)) {
+        highSurrogate = ch;
+      } else {
+        buffer.writeUtf8CodePoint(ch);
+      }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Writes a high surrogate still waiting for its pair as '?'.
+     */
+    @Override
+    public void close() {
+      if (highSurrogate != 0) {
+        buffer.writeUtf8CodePoint('?');
+        highSurrogate = 0;
+      }
+    }
+  }
+}
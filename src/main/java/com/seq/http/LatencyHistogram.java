@@ -0,0 +1,152 @@
+package com.seq.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A LatencyHistogram records durations in log-linear buckets, in the style
+ * of HdrHistogram: each power of two is divided into 32 equal sub-buckets,
+ * so any recorded value is reproduced within about 3%. Recording is
+ * lock-free and allocation-free, and a snapshot can be taken at any time
+ * without stopping recording.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // Durations of up to 2^42 ns (more than an hour) are tracked precisely;
+  // longer ones are counted in the last bucket.
+  private static final int MAX_EXPONENT = 42;
+  private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a duration.
+   * @param nanos the duration in nanoseconds
+   */
+  public void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    counts.incrementAndGet(bucket(nanos));
+    total.add(nanos);
+
+    long prev = max.get();
+    while (nanos > prev && !max.compareAndSet(prev, nanos)) {
+      prev = max.get();
+    }
+  }
+
+  /**
+   * Returns a consistent-enough copy of the histogram. Values recorded
+   * concurrently with the snapshot may or may not be included.
+   * @return a snapshot of the histogram
+   */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+      count += copy[i];
+    }
+    return new Snapshot(copy, count, total.sum(), max.get());
+  }
+
+  static int bucket(long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Returns the largest value that falls into a bucket.
+   */
+  static long bucketUpperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long sub = bucket % SUB_BUCKETS;
+    long width = 1L << (exponent - SUB_BUCKET_BITS);
+    return (1L << exponent) + (sub + 1) * width - 1;
+  }
+
+  /**
+   * An immutable copy of a histogram.
+   */
+  public static class Snapshot {
+    private final long[] counts;
+
+    /**
+     * The number of recorded values.
+     */
+    public final long count;
+
+    /**
+     * The sum of all recorded values, in nanoseconds.
+     */
+    public final long totalNanos;
+
+    /**
+     * The largest recorded value, in nanoseconds.
+     */
+    public final long maxNanos;
+
+    Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+      this.counts = counts;
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    /**
+     * Returns the value below which the given percentage of recorded values
+     * fall.
+     * @param percentile a number between 0 and 100
+     * @return the value in nanoseconds, or 0 if nothing was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(percentile / 100.0 * count);
+      rank = Math.max(1, Math.min(rank, count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(bucketUpperBound(i), maxNanos);
+        }
+      }
+      return maxNanos;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     * @return the mean in nanoseconds, or 0 if nothing was recorded
+     */
+    public long meanNanos() {
+      return count == 0 ? 0 : totalNanos / count;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+          count,
+          meanNanos() / 1e6,
+          valueAtPercentile(50) / 1e6,
+          valueAtPercentile(99) / 1e6,
+          maxNanos / 1e6);
+    }
+  }
+}
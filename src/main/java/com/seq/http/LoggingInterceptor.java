@@ -1,76 +1,380 @@
 package com.seq.http;
 
+import com.google.gson.stream.JsonWriter;
+
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
-import okio.BufferedSink;
-import okio.BufferedSource;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.GzipSource;
+import okio.Source;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.Charset;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The LoggingInterceptor object logs http requests given
  * an output stream.
+ * <br>
+ * Request and response bodies are logged up to a maximum size, and only
+ * that much of the response is buffered. Successful requests can be
+ * sampled, overall or per action; errors are always logged. In
+ * asynchronous mode, entries are handed to a single writer thread through
+ * a bounded queue, so a slow output stream never delays a request. When
+ * the queue is full, entries are dropped and counted. {@link #close()}
+ * writes the queued entries and stops the writer thread.
  */
-public class LoggingInterceptor implements Interceptor {
+public class LoggingInterceptor implements Interceptor, Closeable {
+  private static final Entry END = new Entry();
+
   private Level level;
   private OutputStream logger;
 
+  private Format format = Format.TEXT;
+  private long maxBodyBytes = 64 * 1024;
+  private double sampleRate = 1.0;
+  private final Map<String, Double> actionSampleRates = new ConcurrentHashMap<>();
+
+  private BlockingQueue<Entry> queue;
+  private Thread writer;
+  private final AtomicLong dropped = new AtomicLong();
+
   public enum Level {
     ALL,
     ERRORS,
     NONE,
   }
 
+  public enum Format {
+    /**
+     * Multi-line human-readable entries.
+     */
+    TEXT,
+
+    /**
+     * One JSON object per line.
+     */
+    JSON,
+  }
+
   public LoggingInterceptor(OutputStream logger, Level logAllRequests) {
     this.logger = logger;
     this.level = logAllRequests;
   }
 
+  /**
+   * Sets the format of log entries. Defaults to text.
+   * @param format text or JSON lines
+   * @return this interceptor
+   */
+  public LoggingInterceptor setFormat(Format format) {
+    this.format = format;
+    return this;
+  }
+
+  /**
+   * Sets the number of bytes of each request and response body that are
+   * logged. Defaults to 64 KiB.
+   * @param maxBodyBytes the maximum logged body size
+   * @return this interceptor
+   */
+  public LoggingInterceptor setMaxBodyBytes(long maxBodyBytes) {
+    this.maxBodyBytes = maxBodyBytes;
+    return this;
+  }
+
+  /**
+   * Sets the fraction of successful requests that are logged at level ALL.
+   * Errors are always logged. Defaults to 1.
+   * @param rate a fraction between 0 and 1
+   * @return this interceptor
+   */
+  public LoggingInterceptor setSampleRate(double rate) {
+    this.sampleRate = rate;
+    return this;
+  }
+
+  /**
+   * Sets the fraction of successful requests for an action that are
+   * logged, overriding the overall sample rate.
+   * @param action the API action, such as "list-actions"
+   * @param rate a fraction between 0 and 1
+   * @return this interceptor
+   */
+  public LoggingInterceptor setSampleRate(String action, double rate) {
+    this.actionSampleRates.put(action, rate);
+    return this;
+  }
+
+  /**
+   * Writes entries on a background thread. Up to queueSize entries are
+   * held while waiting to be written; further entries are dropped. May
+   * only be called once, unless the interceptor has been closed since.
+   * @param queueSize the capacity of the queue
+   * @return this interceptor
+   */
+  public synchronized LoggingInterceptor setAsync(int queueSize) {
+    if (this.writer != null) {
+      throw new IllegalStateException("asynchronous logging already enabled");
+    }
+    BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(queueSize);
+    this.writer = new Thread(new Writer(queue), "sequence-sdk-logger");
+    this.writer.setDaemon(true);
+    this.writer.start();
+    this.queue = queue;
+    return this;
+  }
+
+  /**
+   * Writes the entries waiting in the queue and stops the writer thread.
+   * Entries logged afterwards are written on the calling thread. Has no
+   * effect unless asynchronous logging is enabled.
+   */
+  @Override
+  public void close() {
+    Thread writer;
+    BlockingQueue<Entry> queue;
+    synchronized (this) {
+      writer = this.writer;
+      queue = this.queue;
+      this.writer = null;
+      this.queue = null;
+    }
+    if (writer == null) {
+      return;
+    }
+    // Every entry queued before the queue was detached precedes END.
+    try {
+      queue.put(END);
+      writer.join();
+      logger.flush();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | RuntimeException ex) {
+      // Logging must never take the client down.
+    }
+  }
+
+  /**
+   * Returns the number of entries dropped because the queue was full.
+   * @return the number of dropped entries
+   */
+  public long dropped() {
+    return dropped.get();
+  }
+
   @Override
   public Response intercept(Interceptor.Chain chain) throws IOException {
     Request request = chain.request();
+    long start = System.nanoTime();
     Response response = chain.proceed(request);
 
     boolean isError = (response.code() / 100) == 5 || (response.code() / 100) == 4;
-    if ((isError && level == level.ERRORS) || level == level.ALL) {
-      logRequestData(request, response);
+    if ((isError && level == level.ERRORS) || (level == level.ALL && (isError || sampled(request)))) {
+      Entry entry = entry(request, response, System.nanoTime() - start);
+      if (!enqueue(entry)) {
+        write(entry);
+      }
     }
 
     return response;
   }
 
+  /**
+   * Hands an entry to the writer thread, or drops it if the queue is full.
+   * Returns false, leaving the entry to the caller, if asynchronous
+   * logging is off or close has begun.
+   */
+  private synchronized boolean enqueue(Entry e) {
+    if (queue == null) {
+      return false;
+    }
+    if (!queue.offer(e)) {
+      dropped.incrementAndGet();
+    }
+    return true;
+  }
+
   public void logRequestData(Request request, Response response) throws IOException {
-    String reqid = response.header("Chain-Request-Id");
+    write(entry(request, response, -1));
+  }
+
+  private boolean sampled(Request request) {
+    double rate = sampleRate;
+    if (!actionSampleRates.isEmpty()) {
+      Double r = actionSampleRates.get(action(request));
+      if (r != null) {
+        rate = r;
+      }
+    }
+    return rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  private static String action(Request request) {
+    List<String> segments = request.url().encodedPathSegments();
+    return segments.get(segments.size() - 1);
+  }
+
+  /**
+   * Captures what is needed to log an exchange. Only the start of each
+   * body is copied, and the response remains readable by the caller.
+   */
+  private Entry entry(Request request, Response response, long durationNanos) {
+    Entry e = new Entry();
+    e.requestId = response.header("Chain-Request-Id");
+    e.attemptId = request.header("Id");
+    e.url = request.url().toString();
+    e.action = action(request);
+    e.code = response.code();
+    e.durationNanos = durationNanos;
 
-    String requestBody;
     try {
-      BufferedSink reqBodySink = new okio.Buffer();
-      request.body().writeTo(reqBodySink);
-      requestBody = new String(reqBodySink.buffer().readByteArray());
-    } catch (IOException e) {
-      requestBody = "Unable to read request body.";
+      Source source;
+      if (request.body() instanceof JsonRequestBody) {
+        source = ((JsonRequestBody) request.body()).source();
+      } else {
+        Buffer buffer = new Buffer();
+        if (request.body() != null) {
+          request.body().writeTo(buffer);
+        }
+        source = buffer;
+      }
+      if ("gzip".equalsIgnoreCase(request.header("Content-Encoding"))) {
+        source = new GzipSource(source);
+      }
+      // Reads one byte past the limit to tell whether the body is longer.
+      long limit = maxBodyBytes == Long.MAX_VALUE ? maxBodyBytes : maxBodyBytes + 1;
+      Buffer start = new Buffer();
+      while (start.size() < limit) {
+        if (source.read(start, limit - start.size()) == -1) {
+          break;
+        }
+      }
+      e.requestTruncated = start.size() > maxBodyBytes;
+      e.requestBody = start.readUtf8(Math.min(start.size(), maxBodyBytes));
+    } catch (IOException ex) {
+      e.requestBody = "Unable to read request body.";
     }
 
-    String label = "chain-request";
-    if (response.code() / 100 == 5) {
-      label = "chain-error";
+    try {
+      // Peeks one byte past the limit to tell whether the body is longer.
+      long limit = maxBodyBytes == Long.MAX_VALUE ? maxBodyBytes : maxBodyBytes + 1;
+      ResponseBody peeked = response.peekBody(limit);
+      e.responseTruncated = peeked.contentLength() > maxBodyBytes;
+      e.responseBody = peeked.source().readUtf8(Math.min(peeked.contentLength(), maxBodyBytes));
+    } catch (IOException ex) {
+      e.responseBody = "Unable to read response body.";
     }
+    return e;
+  }
 
-    BufferedSource source = response.body().source();
-    source.request(Long.MAX_VALUE);
-
-    logger.write(
-        String.format(
-                "%s:\n\treqid=%s\n\turl=%s\n\tcode=%d\n\trequest=%s\n\tresponse=%s\n",
-                label,
-                reqid,
-                request.url().toString(),
-                response.code(),
-                requestBody,
-                source.buffer().clone().readString(Charset.forName("UTF-8")))
-            .getBytes());
+  private void write(Entry e) throws IOException {
+    String line = format == Format.JSON ? e.json() : e.text();
+    logger.write(line.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * A logged exchange, formatted on the writing thread.
+   */
+  private static class Entry {
+    String requestId;
+    String attemptId;
+    String url;
+    String action;
+    int code;
+    long durationNanos;
+    String requestBody;
+    boolean requestTruncated;
+    String responseBody;
+    boolean responseTruncated;
+
+    String text() {
+      String label = "chain-request";
+      if (code / 100 == 5) {
+        label = "chain-error";
+      }
+      return String.format(
+          "%s:\n\treqid=%s\n\turl=%s\n\tcode=%d\n\trequest=%s\n\tresponse=%s\n",
+          label,
+          requestId,
+          url,
+          code,
+          requestBody + (requestTruncated ? "..." : ""),
+          responseBody + (responseTruncated ? "..." : ""));
+    }
+
+    String json() {
+      StringWriter out = new StringWriter();
+      try {
+        JsonWriter w = new JsonWriter(out);
+        w.beginObject();
+        w.name("time").value(System.currentTimeMillis());
+        w.name("level").value(code / 100 == 4 || code / 100 == 5 ? "error" : "info");
+        w.name("request_id").value(requestId);
+        w.name("id").value(attemptId);
+        w.name("action").value(action);
+        w.name("url").value(url);
+        w.name("code").value(code);
+        if (durationNanos >= 0) {
+          w.name("duration_ms").value(durationNanos / 1e6);
+        }
+        w.name("request").value(requestBody);
+        if (requestTruncated) {
+          w.name("request_truncated").value(true);
+        }
+        w.name("response").value(responseBody);
+        if (responseTruncated) {
+          w.name("response_truncated").value(true);
+        }
+        w.endObject();
+        w.close();
+      } catch (IOException ex) {
+        // StringWriter does not throw.
+      }
+      return out.append('\n').toString();
+    }
+  }
+
+  /**
+   * Drains the queue into the output stream, flushing whenever it is
+   * empty.
+   */
+  private class Writer implements Runnable {
+    private final BlockingQueue<Entry> queue;
+
+    Writer(BlockingQueue<Entry> queue) {
+      this.queue = queue;
+    }
+
+    public void run() {
+      while (true) {
+        try {
+          Entry e = queue.take();
+          if (e == END) {
+            logger.flush();
+            return;
+          }
+          write(e);
+          if (queue.isEmpty()) {
+            logger.flush();
+          }
+        } catch (InterruptedException ex) {
+          return;
+        } catch (IOException | RuntimeException ex) {
+          // Logging must never take the client down; skip the entry.
+        }
+      }
+    }
   }
 }
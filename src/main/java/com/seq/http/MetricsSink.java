@@ -0,0 +1,85 @@
+package com.seq.http;
+
+import com.seq.exception.ChainException;
+
+/**
+ * A MetricsSink receives measurements of every call a {@link Client} makes
+ * to the ledger API. Methods are invoked on the thread that performed the
+ * work, so implementations must be thread-safe and should return quickly.
+ * <br>
+ * All methods do nothing by default; extend this class and override the
+ * ones of interest. {@link ClientMetrics} is a ready-made implementation.
+ */
+public abstract class MetricsSink {
+  /**
+   * A sink that discards all measurements.
+   */
+  public static final MetricsSink NONE = new MetricsSink() {};
+
+  /**
+   * Invoked once a request has completed, after any retries.
+   * @param action the API action, such as "transact" or "list-actions"
+   * @param latencyNanos the time from the first attempt until completion
+   * @param error the exception the request failed with, or null on success
+   */
+  public void requestCompleted(String action, long latencyNanos, ChainException error) {
+  }
+
+  /**
+   * Invoked each time a failed attempt is going to be retried.
+   * @param action the API action
+   * @param cause the retriable failure of the previous attempt
+   */
+  public void requestRetried(String action, ChainException cause) {
+  }
+
+  /**
+   * Invoked when a hedge is sent for a slow read request.
+   * @param action the API action
+   */
+  public void requestHedged(String action) {
+  }
+
+  /**
+   * Invoked when a request body has been compressed.
+   * @param action the API action
+   * @param bytes the size of the body before compression
+   * @param compressedBytes the size of the body after compression
+   * @param nanos the time taken to compress the body
+   */
+  public void requestCompressed(String action, long bytes, long compressedBytes, long nanos) {
+  }
+
+  /**
+   * Invoked when a compressed response body has been read.
+   * @param action the API action
+   * @param compressedBytes the size of the body as received
+   * @param bytes the size of the body after decompression
+   */
+  public void responseCompressed(String action, long compressedBytes, long bytes) {
+  }
+
+  /**
+   * Invoked when a request body has been sent.
+   * @param action the API action
+   * @param bytes the size of the body
+   */
+  public void bytesSent(String action, long bytes) {
+  }
+
+  /**
+   * Invoked when a response body has been read.
+   * @param action the API action
+   * @param bytes the number of bytes read from the body
+   */
+  public void bytesReceived(String action, long bytes) {
+  }
+
+  /**
+   * Invoked when a refresh of the ledger address completes.
+   * @param latencyNanos the duration of the refresh
+   * @param error the exception the refresh failed with, or null on success
+   */
+  public void helloRefreshed(long latencyNanos, ChainException error) {
+  }
+}
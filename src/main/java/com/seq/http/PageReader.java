@@ -0,0 +1,188 @@
+package com.seq.http;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.seq.exception.ChainException;
+import com.seq.exception.ConfigurationException;
+import com.seq.exception.JSONException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * A PageReader decodes the items of a single page of query results one at a
+ * time, directly from the response body, so that only the item currently
+ * being decoded is held in memory.
+ * <br>
+ * The page's cursor and last page flag are available once all of its items
+ * have been read.
+ * @param <T> type of api object
+ */
+public class PageReader<T> implements Closeable {
+  private final Response response;
+  private final JsonCodec codec;
+  private final Type itemType;
+  private final JsonReader reader;
+  private final String requestId;
+  private final LimitedSource body;
+  private final String action;
+  private final MetricsSink metrics;
+
+  private boolean inItems;
+  private boolean done;
+
+  /**
+   * Specifies if the page is the last page of results. Only meaningful once
+   * {@link #hasNext()} has returned false.
+   */
+  public boolean lastPage;
+
+  /**
+   * Specifies the details of the next query. Only meaningful once
+   * {@link #hasNext()} has returned false.
+   */
+  public String cursor;
+
+  PageReader(Response response, JsonCodec codec, Type itemType, long maxPageBytes) {
+    this(response, codec, itemType, maxPageBytes, null, MetricsSink.NONE, null);
+  }
+
+  PageReader(Response response, JsonCodec codec, Type itemType, long maxPageBytes,
+      String action, MetricsSink metrics, Set<String> fields) {
+    this.response = response;
+    this.codec = codec;
+    this.itemType = itemType;
+    this.requestId = response.header("Chain-Request-ID");
+    this.action = action;
+    this.metrics = metrics;
+
+    this.body = new LimitedSource(response.body().source(), maxPageBytes);
+    BufferedSource source = Okio.buffer(this.body);
+    InputStreamReader in = new InputStreamReader(source.inputStream(), StandardCharsets.UTF_8);
+    this.reader = fields == null ? new JsonReader(in) : new ProjectingJsonReader(in, fields);
+  }
+
+  /**
+   * Returns true if there is another item in the page.
+   * @return boolean
+   * @throws ChainException
+   */
+  public boolean hasNext() throws ChainException {
+    if (done) {
+      return false;
+    }
+
+    try {
+      if (!inItems) {
+        reader.beginObject();
+        if (!readFieldsUntilItems()) {
+          close();
+          return false;
+        }
+      }
+
+      if (reader.hasNext()) {
+        return true;
+      }
+
+      reader.endArray();
+      inItems = false;
+      readFieldsUntilItems();
+      close();
+      return false;
+    } catch (IOException ex) {
+      close();
+      throw new ConfigurationException(ex.getMessage());
+    } catch (JsonParseException | IllegalStateException ex) {
+      close();
+      throw new JSONException(ex.getMessage(), requestId);
+    }
+  }
+
+  /**
+   * Decodes and returns the next item in the page.
+   * @return api object of type T
+   * @throws ChainException
+   */
+  public T next() throws ChainException {
+    if (!hasNext()) {
+      throw new IllegalStateException("no more items in page");
+    }
+
+    try {
+      return codec.decode(reader, itemType);
+    } catch (JsonParseException ex) {
+      close();
+      throw new JSONException(ex.getMessage(), requestId);
+    }
+  }
+
+  /**
+   * Releases the underlying response. Safe to call more than once.
+   */
+  @Override
+  public void close() {
+    if (!done) {
+      metrics.bytesReceived(action, body.count());
+    }
+    done = true;
+    response.close();
+  }
+
+  /**
+   * Reads top-level fields of the page object until the items array is
+   * reached, or the end of the object if it has already been read.
+   * @return true if positioned at the start of the items array
+   */
+  private boolean readFieldsUntilItems() throws IOException {
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if (name.equals("items") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+        reader.beginArray();
+        inItems = true;
+        return true;
+      } else if (name.equals("last_page") && reader.peek() == JsonToken.BOOLEAN) {
+        lastPage = reader.nextBoolean();
+      } else if (name.equals("cursor") && reader.peek() == JsonToken.STRING) {
+        cursor = reader.nextString();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+    return false;
+  }
+
+  /**
+   * Fails the read once more than maxBytes have been read from the
+   * response body.
+   */
+  private static class LimitedSource extends CountingSource {
+    private final long maxBytes;
+
+    LimitedSource(Source delegate, long maxBytes) {
+      super(delegate);
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) throws IOException {
+      long n = super.read(sink, byteCount);
+      if (count() > maxBytes) {
+        throw new IOException("page exceeds maximum size of " + maxBytes + " bytes");
+      }
+      return n;
+    }
+  }
+}
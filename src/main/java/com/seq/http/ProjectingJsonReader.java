@@ -0,0 +1,109 @@
+package com.seq.http;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Set;
+
+/**
+ * A JsonReader over a page of results that hides the fields of each item
+ * outside a selected set. The values of the hidden fields are skipped in
+ * the stream, so they are never decoded. Items are the objects in the
+ * page's items array, two levels below the page object; nested objects are
+ * read in full.
+ */
+final class ProjectingJsonReader extends JsonReader {
+  private static final int ITEM_DEPTH = 3;
+
+  private final Set<String> fields;
+  private int depth;
+  private boolean inItem;
+  private String name;
+
+  ProjectingJsonReader(Reader in, Set<String> fields) {
+    super(in);
+    this.fields = fields;
+  }
+
+  @Override
+  public void beginObject() throws IOException {
+    super.beginObject();
+    if (++depth == ITEM_DEPTH) {
+      inItem = true;
+    }
+  }
+
+  @Override
+  public void endObject() throws IOException {
+    super.endObject();
+    depth--;
+  }
+
+  @Override
+  public void beginArray() throws IOException {
+    super.beginArray();
+    if (++depth == ITEM_DEPTH) {
+      inItem = false;
+    }
+  }
+
+  @Override
+  public void endArray() throws IOException {
+    super.endArray();
+    depth--;
+  }
+
+  @Override
+  public boolean hasNext() throws IOException {
+    return skipUnselected() || super.hasNext();
+  }
+
+  @Override
+  public JsonToken peek() throws IOException {
+    return skipUnselected() ? JsonToken.NAME : super.peek();
+  }
+
+  @Override
+  public String nextName() throws IOException {
+    if (!skipUnselected()) {
+      return super.nextName();
+    }
+    String next = name;
+    name = null;
+    return next;
+  }
+
+  /**
+   * Skips the unselected fields of an item up to the next selected one.
+   * @return true if positioned at a selected field, whose name is held
+   */
+  private boolean skipUnselected() throws IOException {
+    if (name != null) {
+      return true;
+    }
+    if (depth != ITEM_DEPTH || !inItem) {
+      return false;
+    }
+    while (super.peek() == JsonToken.NAME) {
+      String next = super.nextName();
+      if (fields.contains(next)) {
+        name = next;
+        return true;
+      }
+      super.skipValue();
+    }
+    return false;
+  }
+
+  @Override
+  public void skipValue() throws IOException {
+    if (name != null) {
+      // Skipping a name leaves its value to be read next.
+      name = null;
+      return;
+    }
+    super.skipValue();
+  }
+}
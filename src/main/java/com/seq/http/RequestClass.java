@@ -0,0 +1,44 @@
+package com.seq.http;
+
+/**
+ * The class of a request decides which lane of the client sends it. Each
+ * lane configured with {@link Client.Builder#setRequestLane} has its own
+ * dispatcher, connection pool and timeouts, so that long scans and feed
+ * long-polls cannot hold up transactions.
+ * <br>
+ * A request's class is derived from its action by {@link #forAction}, and
+ * can be overridden for a single call with the builders'
+ * setRequestClass method.
+ */
+public enum RequestClass {
+  /**
+   * Transactions, writes and single lookups, where latency matters most.
+   */
+  INTERACTIVE,
+
+  /**
+   * Feed long-polls, which may hold a request open for a long time.
+   */
+  FEED,
+
+  /**
+   * List and sum queries, typically made page after page by scans and
+   * reporting jobs.
+   */
+  BULK;
+
+  /**
+   * Returns the default class of an action.
+   * @param action the API action, such as "transact"
+   * @return the class of the action's requests
+   */
+  public static RequestClass forAction(String action) {
+    if (action.equals("stream-feed-items")) {
+      return FEED;
+    }
+    if (action.startsWith("list-") || action.startsWith("sum-")) {
+      return BULK;
+    }
+    return INTERACTIVE;
+  }
+}
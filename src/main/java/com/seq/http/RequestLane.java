@@ -0,0 +1,131 @@
+package com.seq.http;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+/**
+ * The configuration of a lane: the concurrency, connection budget and
+ * timeouts of one {@link RequestClass} of requests. Settings that are not
+ * given are inherited from the client.
+ * <pre>{@code
+ * Client client = new Client.Builder()
+ *   .setRequestLane(RequestClass.BULK, new RequestLane()
+ *     .setMaxRequests(8)
+ *     .setMaxIdleConnections(8)
+ *     .setReadTimeout(60, TimeUnit.SECONDS))
+ *   .setRequestLane(RequestClass.FEED, new RequestLane()
+ *     .setReadTimeout(5, TimeUnit.MINUTES))
+ *   ...
+ *   .build();
+ * }</pre>
+ */
+public class RequestLane {
+  private int maxRequests = -1;
+  private int maxIdleConnections = -1;
+  private long keepAliveMillis = TimeUnit.MINUTES.toMillis(5);
+  private long connectTimeoutMillis = -1;
+  private long readTimeoutMillis = -1;
+  private long writeTimeoutMillis = -1;
+
+  /**
+   * Sets the number of requests of the lane in flight at once. Further
+   * requests wait in the lane's queue. Defaults to the client's limit.
+   * @param maxRequests the maximum number of concurrent requests
+   * @return this lane
+   */
+  public RequestLane setMaxRequests(int maxRequests) {
+    this.maxRequests = maxRequests;
+    return this;
+  }
+
+  /**
+   * Gives the lane its own connection pool, keeping at most the given
+   * number of idle connections. By default the lane shares the client's
+   * pool.
+   * @param maxIdleConnections the maximum number of idle connections
+   * @return this lane
+   */
+  public RequestLane setMaxIdleConnections(int maxIdleConnections) {
+    this.maxIdleConnections = maxIdleConnections;
+    return this;
+  }
+
+  /**
+   * Sets how long idle connections of the lane's own pool are kept.
+   * Defaults to 5 minutes.
+   * @param duration the keep-alive duration
+   * @param unit the unit of the duration
+   * @return this lane
+   */
+  public RequestLane setKeepAlive(long duration, TimeUnit unit) {
+    this.keepAliveMillis = unit.toMillis(duration);
+    return this;
+  }
+
+  /**
+   * Sets the connect timeout of the lane's requests.
+   * @param timeout the timeout
+   * @param unit the unit of the timeout
+   * @return this lane
+   */
+  public RequestLane setConnectTimeout(long timeout, TimeUnit unit) {
+    this.connectTimeoutMillis = unit.toMillis(timeout);
+    return this;
+  }
+
+  /**
+   * Sets the read timeout of the lane's requests.
+   * @param timeout the timeout
+   * @param unit the unit of the timeout
+   * @return this lane
+   */
+  public RequestLane setReadTimeout(long timeout, TimeUnit unit) {
+    this.readTimeoutMillis = unit.toMillis(timeout);
+    return this;
+  }
+
+  /**
+   * Sets the write timeout of the lane's requests.
+   * @param timeout the timeout
+   * @param unit the unit of the timeout
+   * @return this lane
+   */
+  public RequestLane setWriteTimeout(long timeout, TimeUnit unit) {
+    this.writeTimeoutMillis = unit.toMillis(timeout);
+    return this;
+  }
+
+  /**
+   * Derives the lane's HTTP client from the client's. Interceptors, TLS
+   * settings, event listeners and dispatcher threads are shared; the lane
+   * always gets its own dispatcher queue.
+   */
+  OkHttpClient build(OkHttpClient base) {
+    Dispatcher dispatcher = new Dispatcher(base.dispatcher().executorService());
+    if (maxRequests > 0) {
+      dispatcher.setMaxRequests(maxRequests);
+      dispatcher.setMaxRequestsPerHost(maxRequests);
+    } else {
+      dispatcher.setMaxRequests(base.dispatcher().getMaxRequests());
+      dispatcher.setMaxRequestsPerHost(base.dispatcher().getMaxRequestsPerHost());
+    }
+
+    OkHttpClient.Builder builder = base.newBuilder().dispatcher(dispatcher);
+    if (maxIdleConnections >= 0) {
+      builder.connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS));
+    }
+    if (connectTimeoutMillis >= 0) {
+      builder.connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    if (readTimeoutMillis >= 0) {
+      builder.readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    if (writeTimeoutMillis >= 0) {
+      builder.writeTimeout(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,122 @@
+package com.seq.http;
+
+/**
+ * RequestTimings breaks down where the time went in a single attempt of a
+ * request. Phases that did not happen during the attempt, such as DNS and
+ * connecting when a pooled connection was reused, are zero. All durations
+ * are in nanoseconds.
+ */
+public class RequestTimings {
+  /**
+   * The API action, such as "transact".
+   */
+  public final String action;
+
+  /**
+   * The client-generated ID of the attempt, sent in the Id header.
+   */
+  public final String attemptId;
+
+  /**
+   * The Chain-Request-ID assigned by the server, or null if no response
+   * with that header was received.
+   */
+  public final String requestId;
+
+  /**
+   * Time spent serializing the request body. Only the first attempt
+   * serializes; retries resend the same bytes.
+   */
+  public final long serializeNanos;
+
+  /**
+   * Time between building the request and the HTTP call starting, such as
+   * waiting in the dispatcher queue for an asynchronous call.
+   */
+  public final long queueNanos;
+
+  /**
+   * Time spent waiting for a connection from the pool, excluding DNS,
+   * connecting and the TLS handshake.
+   */
+  public final long connectionWaitNanos;
+
+  public final long dnsNanos;
+
+  /**
+   * Time spent establishing a new connection, including the TLS handshake.
+   */
+  public final long connectNanos;
+
+  public final long tlsNanos;
+
+  /**
+   * Time spent writing the request headers and body.
+   */
+  public final long requestWriteNanos;
+
+  /**
+   * Time from the request being written to the response headers being
+   * read, i.e. server time plus network round trip.
+   */
+  public final long timeToFirstByteNanos;
+
+  /**
+   * Time spent reading and deserializing the response body.
+   */
+  public final long deserializeNanos;
+
+  /**
+   * Time from building the request to the attempt finishing.
+   */
+  public final long totalNanos;
+
+  /**
+   * Specifies if the attempt used a pooled connection.
+   */
+  public final boolean connectionReused;
+
+  /**
+   * Specifies if the attempt failed.
+   */
+  public final boolean failed;
+
+  RequestTimings(String action, String attemptId, String requestId,
+      long serializeNanos, long queueNanos, long connectionWaitNanos,
+      long dnsNanos, long connectNanos, long tlsNanos,
+      long requestWriteNanos, long timeToFirstByteNanos,
+      long deserializeNanos, long totalNanos,
+      boolean connectionReused, boolean failed) {
+    this.action = action;
+    this.attemptId = attemptId;
+    this.requestId = requestId;
+    this.serializeNanos = serializeNanos;
+    this.queueNanos = queueNanos;
+    this.connectionWaitNanos = connectionWaitNanos;
+    this.dnsNanos = dnsNanos;
+    this.connectNanos = connectNanos;
+    this.tlsNanos = tlsNanos;
+    this.requestWriteNanos = requestWriteNanos;
+    this.timeToFirstByteNanos = timeToFirstByteNanos;
+    this.deserializeNanos = deserializeNanos;
+    this.totalNanos = totalNanos;
+    this.connectionReused = connectionReused;
+    this.failed = failed;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s id=%s request_id=%s%s total=%s serialize=%s queue=%s pool=%s dns=%s connect=%s tls=%s"
+            + " write=%s ttfb=%s deserialize=%s reused=%b",
+        action, attemptId, requestId, failed ? " failed" : "",
+        millis(totalNanos), millis(serializeNanos), millis(queueNanos),
+        millis(connectionWaitNanos), millis(dnsNanos), millis(connectNanos),
+        millis(tlsNanos), millis(requestWriteNanos), millis(timeToFirstByteNanos),
+        millis(deserializeNanos), connectionReused);
+  }
+
+  private static String millis(long nanos) {
+    return String.format("%.3fms", nanos / 1e6);
+  }
+}
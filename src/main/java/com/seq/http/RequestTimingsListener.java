@@ -0,0 +1,10 @@
+package com.seq.http;
+
+/**
+ * A RequestTimingsListener receives the timing breakdown of every request
+ * attempt made by a client, successful or not. It is called on the thread
+ * that completed the attempt, and should return quickly.
+ */
+public interface RequestTimingsListener {
+  void onTimings(RequestTimings timings);
+}
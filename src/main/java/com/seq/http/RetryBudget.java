@@ -0,0 +1,80 @@
+package com.seq.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A RetryBudget limits the retries made by a client to a fraction of its
+ * successful requests, so that a systemic outage cannot multiply the load
+ * on the ledger by the number of retries per request.
+ * <br>
+ * It is a token bucket shared by all requests: each success deposits a
+ * fraction of a token, each retry withdraws a whole one, and a few tokens
+ * are added every second so that a client with little traffic can still
+ * retry. Tokens are counted in thousandths, and updated without locking.
+ */
+class RetryBudget {
+  private static final long SCALE = 1000;
+
+  private final long depositPerSuccess;
+  private final long refillPerSecond;
+  private final long maxBalance;
+
+  private final AtomicLong balance;
+  private final AtomicLong lastRefill;
+
+  /**
+   * @param ratio the number of retries allowed per successful request
+   * @param minRetriesPerSecond the number of retries always allowed per second
+   */
+  RetryBudget(double ratio, int minRetriesPerSecond) {
+    this.depositPerSuccess = (long) (ratio * SCALE);
+    this.refillPerSecond = minRetriesPerSecond * SCALE;
+    this.maxBalance = Math.max(100, minRetriesPerSecond * 10) * SCALE;
+    this.balance = new AtomicLong(this.refillPerSecond);
+    this.lastRefill = new AtomicLong(System.nanoTime());
+  }
+
+  void onSuccess() {
+    deposit(depositPerSuccess);
+  }
+
+  /**
+   * Withdraws a token for a retry.
+   * @return true if the retry is allowed
+   */
+  boolean tryRetry() {
+    refill();
+    long b = balance.get();
+    while (b >= SCALE) {
+      if (balance.compareAndSet(b, b - SCALE)) {
+        return true;
+      }
+      b = balance.get();
+    }
+    return false;
+  }
+
+  private void refill() {
+    if (refillPerSecond == 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    long last = lastRefill.get();
+    // Past the time it takes to fill the bucket, the product would overflow.
+    long elapsed = Math.min(now - last, maxBalance * 1000000000L / refillPerSecond);
+    long earned = elapsed * refillPerSecond / 1000000000L;
+    if (earned > 0 && lastRefill.compareAndSet(last, now)) {
+      deposit(earned);
+    }
+  }
+
+  private void deposit(long amount) {
+    long b = balance.get();
+    while (b < maxBalance) {
+      if (balance.compareAndSet(b, Math.min(maxBalance, b + amount))) {
+        return;
+      }
+      b = balance.get();
+    }
+  }
+}
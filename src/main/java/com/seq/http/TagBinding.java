@@ -0,0 +1,40 @@
+package com.seq.http;
+
+import com.google.gson.Gson;
+
+import java.util.Map;
+
+/**
+ * Converts tags into instances of a class. Tags decoded by a codec with a
+ * class registered for their kind, see
+ * {@link GsonCodec#setTagType(com.seq.api.TagKind, Class)}, are returned
+ * as decoded, without conversion. Maps are converted field by field, with
+ * numbers as decoded into the map.
+ * <p>
+ * Tag classes are mapped by Gson's default rules: every non-transient
+ * field is mapped, with no need for {@link com.google.gson.annotations.Expose}.
+ * Use {@link com.google.gson.annotations.SerializedName} for tag keys that
+ * are not valid field names.
+ */
+public final class TagBinding {
+  static final Gson GSON = new Gson();
+
+  private TagBinding() {}
+
+  /**
+   * Returns tags as an instance of the given class.
+   * @param tags the tags, as decoded into an API object
+   * @param type the class of the tags
+   * @param <T> the class of the tags
+   * @return the tags, or null if tags is null
+   */
+  public static <T> T bind(Map<String, Object> tags, Class<T> type) {
+    if (tags == null) {
+      return null;
+    }
+    if (tags instanceof BoundTagMap && type.isInstance(((BoundTagMap) tags).value())) {
+      return type.cast(((BoundTagMap) tags).value());
+    }
+    return GSON.fromJson(GSON.toJsonTree(tags), type);
+  }
+}
@@ -0,0 +1,36 @@
+package com.seq.http;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.seq.api.TagKind;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The classes a codec decodes tags into, by kind of tags. Tags of a kind
+ * without a class are decoded into maps.
+ */
+final class TagTypes {
+  private static final TypeToken<Map<String, Object>> TAGS = new TypeToken<Map<String, Object>>() {};
+
+  private final Map<TagKind, Class<?>> types = new EnumMap<>(TagKind.class);
+
+  void put(TagKind kind, Class<?> type) {
+    if (type == null) {
+      types.remove(kind);
+    } else {
+      types.put(kind, type);
+    }
+  }
+
+  /**
+   * Returns the adapter for tags of the given kind.
+   */
+  TypeAdapter<Map<String, Object>> adapter(Gson gson, TagKind kind) {
+    TypeAdapter<Map<String, Object>> maps = gson.getAdapter(TAGS);
+    Class<?> type = types.get(kind);
+    return type == null ? maps : new BoundTagMap.Adapter(maps, type);
+  }
+}
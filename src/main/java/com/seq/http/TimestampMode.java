@@ -0,0 +1,19 @@
+package com.seq.http;
+
+/**
+ * How a {@link JsonCodec} decodes the timestamps of actions and
+ * transactions.
+ */
+public enum TimestampMode {
+  /**
+   * Decodes each timestamp into both a Date and a field of epoch
+   * milliseconds, such as {@code timestamp} and {@code timestampMillis}.
+   */
+  DATE,
+
+  /**
+   * Decodes each timestamp only into its field of epoch milliseconds,
+   * leaving the Date null, which saves allocating a Date per object.
+   */
+  EPOCH_MILLIS,
+}
@@ -0,0 +1,115 @@
+package com.seq.http;
+
+import com.seq.exception.ConfigurationException;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * The TLS configuration of a client: the SSL context, its socket factory and the trust
+ * manager that verifies the ledger's certificates. OkHttp only reuses a
+ * pooled connection for a client with the same socket factory, so clients
+ * that share connections must share one instance.
+ */
+final class Tls {
+  private static final char[] DEFAULT_KEYSTORE_PASSWORD = "password".toCharArray();
+
+  final SSLContext context;
+  final SSLSocketFactory socketFactory;
+  final X509TrustManager trustManager;
+
+  private Tls(SSLContext context, X509TrustManager trustManager) {
+    this.context = context;
+    this.socketFactory = context.getSocketFactory();
+    this.trustManager = trustManager;
+  }
+
+  /**
+   * Loads the CA certificates named by the SEQTLSCA environment variable.
+   * @return the configuration, or null if the variable is not set
+   * @throws ConfigurationException
+   */
+  static Tls fromEnv() throws ConfigurationException {
+    final String cafile = System.getenv("SEQTLSCA");
+    if (cafile == null || cafile.length() == 0) {
+      return null;
+    }
+
+    try (InputStream is = new FileInputStream(cafile)) {
+      // Extract certs from PEM-encoded input.
+      CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+      Collection<? extends Certificate> certificates =
+        certificateFactory.generateCertificates(is);
+      if (certificates.isEmpty()) {
+        throw new IllegalArgumentException("expected non-empty set of trusted certificates");
+      }
+
+      // Create a new key store and input the cert.
+      KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+      keyStore.load(null, DEFAULT_KEYSTORE_PASSWORD);
+      int index = 0;
+      for (Certificate certificate : certificates) {
+        String certificateAlias = Integer.toString(index++);
+        keyStore.setCertificateEntry(certificateAlias, certificate);
+      }
+
+      // Use key store to build an X509 trust manager.
+      KeyManagerFactory keyManagerFactory =
+        KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+      keyManagerFactory.init(keyStore, DEFAULT_KEYSTORE_PASSWORD);
+      TrustManagerFactory trustManagerFactory =
+        TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+      trustManagerFactory.init(keyStore);
+      return create(trustManagerFactory, "TLSv1.2");
+    } catch (GeneralSecurityException | IOException ex) {
+      throw new ConfigurationException("Unable to configure trusted CA certs", ex);
+    }
+  }
+
+  /**
+   * Returns the configuration from SEQTLSCA if it is set, and otherwise one
+   * that trusts the system's CA certificates.
+   * @throws ConfigurationException
+   */
+  static Tls fromEnvOrSystem() throws ConfigurationException {
+    Tls tls = fromEnv();
+    if (tls != null) {
+      return tls;
+    }
+    try {
+      TrustManagerFactory trustManagerFactory =
+        TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+      trustManagerFactory.init((KeyStore) null);
+      return create(trustManagerFactory, "TLS");
+    } catch (GeneralSecurityException ex) {
+      throw new ConfigurationException("Unable to configure TLS", ex);
+    }
+  }
+
+  private static Tls create(TrustManagerFactory trustManagerFactory, String protocol)
+      throws GeneralSecurityException {
+    TrustManager[] trustManagers = trustManagerFactory.getTrustManagers();
+    if (trustManagers.length != 1 || !(trustManagers[0] instanceof X509TrustManager)) {
+      throw new IllegalStateException(
+          "Unexpected default trust managers:" + Arrays.toString(trustManagers));
+    }
+
+    SSLContext sslContext = SSLContext.getInstance(protocol);
+    sslContext.init(null, trustManagers, null);
+    return new Tls(sslContext, (X509TrustManager) trustManagers[0]);
+  }
+}
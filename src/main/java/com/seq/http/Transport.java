@@ -0,0 +1,31 @@
+package com.seq.http;
+
+import okhttp3.Call;
+import okhttp3.Request;
+
+/**
+ * A Transport sends the client's HTTP requests. The client builds each
+ * request, including its headers and body, retries it, and interprets the
+ * response with the same error handling whichever transport is used: the
+ * status code, the Chain-Request-ID and Retry-After headers and the JSON
+ * error body.
+ * <br>
+ * Requests and responses are represented with OkHttp's value classes. A
+ * transport returns a {@link Call} for each request, which the client
+ * either executes on the calling thread or enqueues, and cancels when a
+ * hedge wins or a {@link Deadline} passes. OkHttp therefore remains a
+ * dependency of the SDK whichever transport sends the requests.
+ * <br>
+ * By default the client sends requests with OkHttp, configured by
+ * {@link Client.Builder}. {@link JdkHttpTransport} is an alternative based
+ * on java.net.http, which multiplexes requests over HTTP/2 connections.
+ */
+public interface Transport extends Call.Factory {
+  /**
+   * Prepares a request to be sent.
+   * @param request the request
+   * @return a call that has not yet been executed or enqueued
+   */
+  @Override
+  Call newCall(Request request);
+}
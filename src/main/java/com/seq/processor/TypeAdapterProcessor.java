@@ -0,0 +1,489 @@
+package com.seq.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a Gson TypeAdapter for every API object with fields annotated
+ * with Expose, and a TypeAdapterFactory, com.seq.http.GeneratedTypeAdapters,
+ * that returns them. The adapters map fields exactly as Gson's reflective
+ * adapter would with excludeFieldsWithoutExposeAnnotation: the same names
+ * and alternates, the same serialize and deserialize flags, superclass
+ * fields after the class's own, and the same adapters for field types
+ * other than strings and primitives.
+ * <br>
+ * A Date field with a public long field named after it with a Millis
+ * suffix, such as timestamp and timestampMillis, is decoded into both, or
+ * only into the long if the codec skips Dates.
+ * <br>
+ * A field annotated with com.seq.api.Tags is decoded with the codec's
+ * adapter for that kind of tags, which may bind them to a class.
+ * <br>
+ * Classes that Gson would not map reflectively, or whose fields or no-arg
+ * constructor are not public, are left to reflection.
+ */
+@SupportedAnnotationTypes("com.google.gson.annotations.Expose")
+public class TypeAdapterProcessor extends AbstractProcessor {
+  private static final String EXPOSE = "com.google.gson.annotations.Expose";
+  private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+  private static final String TAGS = "com.seq.api.Tags";
+  private static final String TAG_KIND = "com.seq.api.TagKind";
+  private static final String PACKAGE = "com.seq.http";
+  private static final String FACTORY = "GeneratedTypeAdapters";
+
+  private boolean generated;
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment env) {
+    if (generated || annotations.isEmpty()) {
+      return false;
+    }
+    generated = true;
+
+    List<Model> models = new ArrayList<>();
+    for (Element root : env.getRootElements()) {
+      collect(root, models);
+    }
+    try {
+      write(models);
+    } catch (IOException ex) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Unable to write " + PACKAGE + "." + FACTORY + ": " + ex.getMessage());
+    }
+    return false;
+  }
+
+  /**
+   * A class mapped by a generated adapter.
+   */
+  private static class Model {
+    String type;
+    String simpleName;
+    String adapter;
+    final List<Property> properties = new ArrayList<>();
+  }
+
+  /**
+   * A field of a mapped class.
+   */
+  private static class Property {
+    String field;
+    String name;
+    List<String> alternates = new ArrayList<>();
+    TypeMirror type;
+    String millisField;
+    String tagKind;
+    boolean serialize;
+    boolean deserialize;
+  }
+
+  private void collect(Element element, List<Model> models) {
+    if (element.getKind() != ElementKind.CLASS) {
+      return;
+    }
+    TypeElement type = (TypeElement) element;
+    Model model = model(type);
+    if (model != null) {
+      models.add(model);
+    }
+    for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+      collect(nested, models);
+    }
+  }
+
+  private Model model(TypeElement type) {
+    Types types = processingEnv.getTypeUtils();
+    if (!isAccessible(type) || type.getModifiers().contains(Modifier.ABSTRACT)
+        || !hasPublicNoArgConstructor(type)
+        || isSubtype(type, "java.util.Map") || isSubtype(type, "java.util.Collection")) {
+      return null;
+    }
+
+    Model model = new Model();
+    model.type = types.erasure(type.asType()).toString();
+    String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    model.simpleName = pkg.isEmpty() ? model.type : model.type.substring(pkg.length() + 1);
+    DeclaredType self = (DeclaredType) type.asType();
+    Set<String> longFields = new HashSet<>();
+    for (TypeElement c = type; c != null; c = superclass(c)) {
+      for (VariableElement field : ElementFilter.fieldsIn(c.getEnclosedElements())) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (field.asType().getKind() == TypeKind.LONG && modifiers.contains(Modifier.PUBLIC)
+            && !modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.FINAL)) {
+          longFields.add(field.getSimpleName().toString());
+        }
+      }
+    }
+
+    Set<String> names = new HashSet<>();
+    for (TypeElement c = type; c != null; c = superclass(c)) {
+      for (VariableElement field : ElementFilter.fieldsIn(c.getEnclosedElements())) {
+        Set<Modifier> modifiers = field.getModifiers();
+        AnnotationMirror expose = annotation(field, EXPOSE);
+        if (expose == null || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+          continue;
+        }
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.FINAL)) {
+          return null;
+        }
+
+        Property property = new Property();
+        property.field = field.getSimpleName().toString();
+        property.name = property.field;
+        property.type = types.asMemberOf(self, field);
+        property.serialize = (Boolean) value(expose, "serialize");
+        property.deserialize = (Boolean) value(expose, "deserialize");
+        AnnotationMirror serializedName = annotation(field, SERIALIZED_NAME);
+        if (serializedName != null) {
+          property.name = (String) value(serializedName, "value");
+          Object alternates = value(serializedName, "alternate");
+          if (alternates instanceof List) {
+            for (Object alternate : (List<?>) alternates) {
+              property.alternates.add((String) ((AnnotationValue) alternate).getValue());
+            }
+          }
+        }
+        AnnotationMirror tags = annotation(field, TAGS);
+        if (tags != null) {
+          property.tagKind = ((VariableElement) value(tags, "value")).getSimpleName().toString();
+        }
+        if (property.type.toString().equals("java.util.Date") && longFields.contains(property.field + "Millis")) {
+          property.millisField = property.field + "Millis";
+        }
+        if (hasTypeVariable(property.type) || !names.add(property.name)) {
+          return null;
+        }
+        for (String alternate : property.alternates) {
+          if (!names.add(alternate)) {
+            return null;
+          }
+        }
+        model.properties.add(property);
+      }
+    }
+    if (model.properties.isEmpty()) {
+      return null;
+    }
+    return model;
+  }
+
+  private boolean isAccessible(TypeElement type) {
+    for (Element e = type; e.getKind().isClass() || e.getKind().isInterface(); e = e.getEnclosingElement()) {
+      if (!e.getModifiers().contains(Modifier.PUBLIC)) {
+        return false;
+      }
+      if (e.getEnclosingElement().getKind() != ElementKind.PACKAGE && !e.getModifiers().contains(Modifier.STATIC)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean hasPublicNoArgConstructor(TypeElement type) {
+    for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+      if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isSubtype(TypeElement type, String name) {
+    Types types = processingEnv.getTypeUtils();
+    TypeElement other = processingEnv.getElementUtils().getTypeElement(name);
+    return other != null && types.isSubtype(types.erasure(type.asType()), types.erasure(other.asType()));
+  }
+
+  private TypeElement superclass(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+    return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+  }
+
+  private static boolean hasTypeVariable(TypeMirror type) {
+    switch (type.getKind()) {
+      case TYPEVAR:
+        return true;
+      case ARRAY:
+        return hasTypeVariable(((ArrayType) type).getComponentType());
+      case WILDCARD:
+        WildcardType wildcard = (WildcardType) type;
+        return wildcard.getExtendsBound() != null && hasTypeVariable(wildcard.getExtendsBound())
+            || wildcard.getSuperBound() != null && hasTypeVariable(wildcard.getSuperBound());
+      case DECLARED:
+        for (TypeMirror arg : ((DeclaredType) type).getTypeArguments()) {
+          if (hasTypeVariable(arg)) {
+            return true;
+          }
+        }
+        return false;
+      default:
+        return false;
+    }
+  }
+
+  private static AnnotationMirror annotation(Element element, String name) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+      if (type.getQualifiedName().contentEquals(name)) {
+        return mirror;
+      }
+    }
+    return null;
+  }
+
+  private Object value(AnnotationMirror mirror, String name) {
+    Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+        processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(name)) {
+        return entry.getValue().getValue();
+      }
+    }
+    return null;
+  }
+
+  private void write(List<Model> models) throws IOException {
+    Set<String> adapters = new HashSet<>();
+    for (Model model : models) {
+      String simple = model.simpleName.replace(".", "") + "Adapter";
+      String name = simple;
+      for (int i = 2; !adapters.add(name); i++) {
+        name = simple + i;
+      }
+      model.adapter = name;
+    }
+
+    StringBuilder out = new StringBuilder();
+    out.append("package ").append(PACKAGE).append(";\n\n")
+        .append("import com.google.gson.Gson;\n")
+        .append("import com.google.gson.TypeAdapter;\n")
+        .append("import com.google.gson.TypeAdapterFactory;\n")
+        .append("import com.google.gson.reflect.TypeToken;\n")
+        .append("import com.google.gson.stream.JsonReader;\n")
+        .append("import com.google.gson.stream.JsonWriter;\n\n")
+        .append("import java.io.IOException;\n\n")
+        .append("/**\n")
+        .append(" * Type adapters for the API objects, generated from their Expose\n")
+        .append(" * annotations by ").append(TypeAdapterProcessor.class.getName()).append(".\n")
+        .append(" */\n")
+        .append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+        .append("final class ").append(FACTORY).append(" implements TypeAdapterFactory {\n")
+        .append("  private final TagTypes tags;\n\n")
+        .append("  ").append(FACTORY).append("() {\n")
+        .append("    this(new TagTypes());\n")
+        .append("  }\n\n")
+        .append("  ").append(FACTORY).append("(TagTypes tags) {\n")
+        .append("    this.tags = tags;\n")
+        .append("  }\n\n")
+        .append("  @Override\n")
+        .append("  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {\n")
+        .append("    Class<? super T> raw = type.getRawType();\n")
+        .append("    TypeAdapter<?> adapter;\n");
+    String keyword = "if";
+    for (Model model : models) {
+      out.append("    ").append(keyword).append(" (raw == ").append(model.type).append(".class) {\n")
+          .append("      adapter = new ").append(model.adapter).append("(gson, tags);\n");
+      keyword = "} else if";
+    }
+    if (models.isEmpty()) {
+      out.append("    {\n      return null;\n    }\n");
+    } else {
+      out.append("    } else {\n      return null;\n    }\n");
+    }
+    out.append("    return (TypeAdapter<T>) adapter.nullSafe();\n")
+        .append("  }\n");
+
+    for (Model model : models) {
+      writeAdapter(out, model);
+    }
+    out.append("}\n");
+
+    try (Writer writer = processingEnv.getFiler().createSourceFile(PACKAGE + "." + FACTORY).openWriter()) {
+      writer.write(out.toString());
+    }
+  }
+
+  private void writeAdapter(StringBuilder out, Model model) {
+    Map<String, String> delegates = new LinkedHashMap<>();
+    Map<String, Property> delegated = new LinkedHashMap<>();
+    for (Property property : model.properties) {
+      if (kind(property.type) == null && !delegates.containsKey(delegate(property))) {
+        delegates.put(delegate(property), "a" + delegates.size());
+        delegated.put(delegate(property), property);
+      }
+    }
+
+    out.append("\n  static final class ").append(model.adapter)
+        .append(" extends ApiTypeAdapters.ObjectAdapter<").append(model.type).append("> {\n");
+    for (Map.Entry<String, String> delegate : delegates.entrySet()) {
+      String type = delegated.get(delegate.getKey()).type.toString();
+      out.append("    private final TypeAdapter<").append(boxed(type)).append("> ")
+          .append(delegate.getValue()).append(";\n");
+    }
+    if (!delegates.isEmpty()) {
+      out.append("\n");
+    }
+    out.append("    ").append(model.adapter).append("(Gson gson, TagTypes tags) {\n");
+    for (Map.Entry<String, String> delegate : delegates.entrySet()) {
+      Property property = delegated.get(delegate.getKey());
+      String type = property.type.toString();
+      out.append("      this.").append(delegate.getValue());
+      if (property.tagKind != null) {
+        out.append(" = tags.adapter(gson, ").append(TAG_KIND).append(".").append(property.tagKind).append(");\n");
+      } else {
+        out.append(" = gson.getAdapter(")
+            .append(type.indexOf('<') < 0 ? type + ".class" : "new TypeToken<" + type + ">() {}")
+            .append(");\n");
+      }
+    }
+    out.append("    }\n\n");
+
+    out.append("    ").append(model.type).append(" create() {\n")
+        .append("      return new ").append(model.type).append("();\n")
+        .append("    }\n\n");
+
+    out.append("    boolean readField(JsonReader in, String name, ").append(model.type)
+        .append(" value) throws IOException {\n")
+        .append("      switch (name) {\n");
+    for (Property property : model.properties) {
+      if (!property.deserialize) {
+        continue;
+      }
+      out.append("        case \"").append(property.name).append("\":\n");
+      for (String alternate : property.alternates) {
+        out.append("        case \"").append(alternate).append("\":\n");
+      }
+      String target = "value." + property.field;
+      String kind = kind(property.type);
+      if (property.millisField != null) {
+        String delegate = delegates.get(delegate(property));
+        out.append("          long ").append(property.field).append(" = ApiTypeAdapters.readEpochMillis(")
+            .append(delegate).append(", in);\n")
+            .append("          ").append(target).append(" = ApiTypeAdapters.toDate(").append(delegate)
+            .append(", ").append(property.field).append(");\n")
+            .append("          value.").append(property.millisField).append(" = ApiTypeAdapters.toMillisField(")
+            .append(property.field).append(");\n");
+      } else if (kind == null) {
+        String delegate = delegates.get(delegate(property));
+        if (property.type.getKind().isPrimitive()) {
+          out.append("          ").append(boxed(property.type.toString())).append(" ").append(property.field)
+              .append(" = ").append(delegate).append(".read(in);\n")
+              .append("          if (").append(property.field).append(" != null) {\n")
+              .append("            ").append(target).append(" = ").append(property.field).append(";\n")
+              .append("          }\n");
+        } else {
+          out.append("          ").append(target).append(" = ").append(delegate).append(".read(in);\n");
+        }
+      } else if (kind.equals("String")) {
+        out.append("          ").append(target).append(" = ApiTypeAdapters.readString(in);\n");
+      } else {
+        out.append("          ").append(target).append(" = ApiTypeAdapters.read").append(kind)
+            .append("(in, ").append(target).append(");\n");
+      }
+      out.append("          return true;\n");
+    }
+    out.append("        default:\n")
+        .append("          return false;\n")
+        .append("      }\n")
+        .append("    }\n\n");
+
+    out.append("    void writeFields(JsonWriter out, ").append(model.type)
+        .append(" value) throws IOException {\n");
+    for (Property property : model.properties) {
+      if (!property.serialize) {
+        continue;
+      }
+      String kind = kind(property.type);
+      if (property.millisField != null) {
+        out.append("      ApiTypeAdapters.writeTimestamp(").append(delegates.get(delegate(property)))
+            .append(", out.name(\"").append(property.name).append("\"), value.").append(property.field)
+            .append(", value.").append(property.millisField).append(");\n");
+      } else if (kind == null) {
+        out.append("      ").append(delegates.get(delegate(property))).append(".write(out.name(\"")
+            .append(property.name).append("\"), value.").append(property.field).append(");\n");
+      } else {
+        out.append("      out.name(\"").append(property.name).append("\").value(value.")
+            .append(property.field).append(");\n");
+      }
+    }
+    out.append("    }\n")
+        .append("  }\n");
+  }
+
+  /**
+   * Returns the key of the delegate adapter of a property: its type, and
+   * the kind of tags it holds, if any.
+   */
+  private static String delegate(Property property) {
+    return property.tagKind == null ? property.type.toString() : property.type + " " + property.tagKind;
+  }
+
+  /**
+   * Returns the name of the ApiTypeAdapters helper that reads a field of
+   * the given type, or null if the field is read with Gson's adapter.
+   */
+  private static String kind(TypeMirror type) {
+    switch (type.getKind()) {
+      case LONG:
+        return "Long";
+      case INT:
+        return "Int";
+      case BOOLEAN:
+        return "Boolean";
+      case DECLARED:
+        return type.toString().equals("java.lang.String") ? "String" : null;
+      default:
+        return null;
+    }
+  }
+
+  private static String boxed(String type) {
+    switch (type) {
+      case "byte": return "java.lang.Byte";
+      case "short": return "java.lang.Short";
+      case "int": return "java.lang.Integer";
+      case "long": return "java.lang.Long";
+      case "float": return "java.lang.Float";
+      case "double": return "java.lang.Double";
+      case "char": return "java.lang.Character";
+      case "boolean": return "java.lang.Boolean";
+      default: return type;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.seq.api;
+
+import com.seq.exception.JSONException;
+import com.seq.http.Client;
+import com.seq.http.Transport;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class ItemIterableTest {
+  /**
+   * Serves three pages of two actions each, recording the page requested
+   * by each call. The second item of the given page has an invalid id.
+   */
+  static Dispatcher pages(final List<String> requested, final int invalidPage) {
+    return new Dispatcher() {
+      public MockResponse dispatch(RecordedRequest req) {
+        String body = req.getBody().readUtf8();
+        MockResponse resp = new MockResponse().setHeader("Chain-Request-ID", "req");
+        if (req.getPath().equals("/hello")) {
+          return resp.setBody("{\"team_name\":\"team\",\"addr\":\"ledger\",\"addr_ttl_seconds\":600}");
+        }
+        int page = 0;
+        if (body.contains("\"cursor\":\"")) {
+          page = body.charAt(body.indexOf("\"cursor\":\"") + 10) - '0';
+        }
+        requested.add(String.valueOf(page));
+        String second = page == invalidPage ? "[1]" : "\"b" + page + "\"";
+        return resp.setBody("{\"items\":[{\"id\":\"a" + page + "\"},{\"id\":" + second + "}],"
+            + "\"last_page\":" + (page == 2) + ",\"cursor\":\"" + (page + 1) + "\"}");
+      }
+    };
+  }
+
+  /**
+   * Returns a client that sends the requests for its ledger to the server.
+   */
+  static Client client(final MockWebServer server) throws Exception {
+    final OkHttpClient http = new OkHttpClient();
+    return new Client.Builder()
+        .setLedgerName("ledger")
+        .setCredential("credential")
+        .setTransport(new Transport() {
+          public Call newCall(Request request) {
+            String path = request.url().encodedPath().replace("/team/ledger", "");
+            return http.newCall(request.newBuilder().url(server.url(path)).build());
+          }
+        })
+        .build();
+  }
+
+  @Test
+  public void testPrefetchFetchesEachPageOnce() throws Exception {
+    List<String> requested = new CopyOnWriteArrayList<>();
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(pages(requested, -1));
+    server.start();
+
+    List<String> ids = new ArrayList<>();
+    Action.ItemIterable actions = new Action.ListBuilder().getIterable(client(server));
+    actions.setPrefetch(1);
+    for (Action action : actions) {
+      ids.add(action.id);
+    }
+    server.shutdown();
+
+    assertNull(actions.exception);
+    assertEquals(Arrays.asList("a0", "b0", "a1", "b1", "a2", "b2"), ids);
+    assertEquals(Arrays.asList("0", "1", "2"), requested);
+  }
+
+  @Test
+  public void testStreamingStopsAtInvalidItem() throws Exception {
+    List<String> requested = new CopyOnWriteArrayList<>();
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(pages(requested, 1));
+    server.start();
+
+    List<String> ids = new ArrayList<>();
+    Action.ItemIterable actions = new Action.ListBuilder().getIterable(client(server));
+    actions.setStreaming(true);
+    for (Action action : actions) {
+      ids.add(action.id);
+    }
+    server.shutdown();
+
+    assertTrue(actions.exception instanceof JSONException);
+    assertEquals(Arrays.asList("a0", "b0", "a1"), ids);
+  }
+
+  @Test
+  public void testStreamingClose() throws Exception {
+    List<String> requested = new CopyOnWriteArrayList<>();
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(pages(requested, -1));
+    server.start();
+
+    Action.ItemIterable actions = new Action.ListBuilder().getIterable(client(server));
+    actions.setStreaming(true);
+    Iterator<Action> it = actions.iterator();
+    assertTrue(it.hasNext());
+    assertEquals("a0", it.next().id);
+    actions.close();
+    assertFalse(it.hasNext());
+    server.shutdown();
+
+    assertNull(actions.exception);
+    assertEquals(Arrays.asList("0"), requested);
+  }
+}
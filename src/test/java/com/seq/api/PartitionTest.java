@@ -0,0 +1,108 @@
+package com.seq.api;
+
+import com.google.gson.stream.JsonReader;
+import com.seq.http.GsonCodec;
+import com.seq.http.JsonCodec;
+import com.seq.http.TimestampMode;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class PartitionTest {
+  @Test
+  public void testTimestampRanges() throws Exception {
+    Date start = new Date(0);
+    Date end = new Date(3000);
+    List<Partition> partitions = Partition.timestampRanges(start, end, 3);
+
+    assertEquals(3, partitions.size());
+    assertEquals("timestamp < $1", partitions.get(0).filter);
+    assertEquals(Arrays.asList("1970-01-01T00:00:01Z"), partitions.get(0).filterParams);
+    assertEquals("timestamp >= $1 AND timestamp < $2", partitions.get(1).filter);
+    assertEquals(
+        Arrays.asList("1970-01-01T00:00:01Z", "1970-01-01T00:00:02Z"),
+        partitions.get(1).filterParams);
+    assertEquals("timestamp >= $1", partitions.get(2).filter);
+  }
+
+  @Test
+  public void testValueBuckets() throws Exception {
+    List<Partition> partitions =
+        Partition.valueBuckets("account_id", Arrays.asList("a", "b", "c"), 2);
+
+    assertEquals(2, partitions.size());
+    assertEquals("account_id = $1 OR account_id = $2", partitions.get(0).filter);
+    assertEquals(Arrays.asList("a", "c"), partitions.get(0).filterParams);
+    assertEquals("account_id = $1", partitions.get(1).filter);
+  }
+
+  @Test
+  public void testNarrowRenumbersParameters() throws Exception {
+    Token.ListBuilder builder = new Token.ListBuilder()
+        .setFilter("flavor_id = $1")
+        .addFilterParameter("usd");
+    Token.ListBuilder narrowed = builder.narrow(
+        new Partition("account_id = $1 OR account_id = $2", Arrays.asList("a", "b")));
+
+    assertEquals("(flavor_id = $1) AND (account_id = $2 OR account_id = $3)", narrowed.next.filter);
+    assertEquals(Arrays.<Object>asList("usd", "a", "b"), narrowed.next.filterParams);
+    assertEquals("flavor_id = $1", builder.next.filter);
+  }
+
+  @Test
+  public void testSelectCarriesToNarrowedAndCursorQueries() throws Exception {
+    Action.ListBuilder builder = new Action.ListBuilder().select("amount", "flavor_id");
+    Action.ListBuilder narrowed = builder.narrow(new Partition("", new ArrayList<>()));
+
+    assertEquals(Arrays.asList("amount", "flavor_id"), narrowed.next.select);
+    assertEquals(Arrays.asList("amount", "flavor_id"), narrowed.next.atCursor("c").select);
+    assertEquals("c", narrowed.next.atCursor("c").cursor);
+    assertNull(new Action.ListBuilder().select().next.select);
+  }
+
+  @Test
+  public void testMergeTokenSums() throws Exception {
+    TokenSum a = new TokenSum();
+    a.flavorId = "usd";
+    a.amount = 1;
+    TokenSum b = new TokenSum();
+    b.flavorId = "eur";
+    b.amount = 2;
+    TokenSum c = new TokenSum();
+    c.flavorId = "usd";
+    c.amount = 3;
+
+    List<TokenSum> sums = TokenSum.merge(Arrays.asList(a, b, c));
+    assertEquals(2, sums.size());
+    assertEquals("usd", sums.get(0).flavorId);
+    assertEquals(4, sums.get(0).amount);
+    assertEquals(2, sums.get(1).amount);
+  }
+
+  @Test
+  public void testMergeActionSumsByEpochMillis() throws Exception {
+    // Sums grouped by timestamp, decoded without Dates.
+    JsonCodec codec = new GsonCodec(TimestampMode.EPOCH_MILLIS);
+    List<ActionSum> partials = new ArrayList<>();
+    String[] sums = {
+      "{\"timestamp\":\"2018-08-08T00:00:00Z\",\"amount\":1}",
+      "{\"timestamp\":\"2018-08-09T00:00:00Z\",\"amount\":2}",
+      "{\"timestamp\":\"2018-08-08T00:00:00Z\",\"amount\":3}",
+    };
+    for (String json : sums) {
+      ActionSum sum = codec.decode(new JsonReader(new StringReader(json)), ActionSum.class);
+      assertNull(sum.timestamp);
+      partials.add(sum);
+    }
+
+    List<ActionSum> merged = ActionSum.merge(partials);
+    assertEquals(2, merged.size());
+    assertEquals(1533686400000L, merged.get(0).timestampMillis);
+    assertEquals(4, merged.get(0).amount);
+    assertEquals(1533772800000L, merged.get(1).timestampMillis);
+    assertEquals(2, merged.get(1).amount);
+  }
+}
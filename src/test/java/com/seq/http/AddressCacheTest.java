@@ -0,0 +1,51 @@
+package com.seq.http;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class AddressCacheTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testStoreAndLoad() throws Exception {
+    Path dir = folder.getRoot().toPath().resolve("hello");
+    AddressCache cache = new AddressCache(dir);
+    assertNull(cache.load("my/ledger", "s3cret", 0));
+
+    cache.store("my/ledger", "s3cret", "team", "10.0.0.1:443", 600, 1000);
+    AddressCache.Entry entry = new AddressCache(dir).load("my/ledger", "s3cret", 999);
+    assertEquals("team", entry.teamName);
+    assertEquals("10.0.0.1:443", entry.addr);
+    assertEquals(600, entry.addrTtlSeconds);
+
+    assertNull(cache.load("my/ledger", "s3cret", 1000));
+    assertNull(cache.load("my/ledger", "other", 999));
+    assertNull(cache.load("other", "s3cret", 999));
+
+    String[] files = dir.toFile().list();
+    assertEquals(1, files.length);
+    assertFalse(new String(Files.readAllBytes(dir.resolve(files[0])), StandardCharsets.UTF_8).contains("s3cret"));
+  }
+
+  @Test
+  public void testReplacesAndIgnoresDamagedFiles() throws Exception {
+    File dir = folder.newFolder();
+    AddressCache cache = new AddressCache(dir.toPath());
+    cache.store("ledger", "cred", "team", "a", 600, 1000);
+    cache.store("ledger", "cred", "team", "b", 600, 1000);
+    assertEquals("b", cache.load("ledger", "cred", 0).addr);
+    assertEquals(1, dir.list().length);
+
+    Files.write(dir.toPath().resolve(dir.list()[0]), "{\"addr\":".getBytes(StandardCharsets.UTF_8));
+    assertNull(cache.load("ledger", "cred", 0));
+  }
+}
@@ -0,0 +1,65 @@
+package com.seq.http;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AttemptTimerTest {
+  static class Collector implements RequestTimingsListener {
+    List<RequestTimings> timings = new ArrayList<>();
+
+    public void onTimings(RequestTimings t) {
+      timings.add(t);
+    }
+  }
+
+  @Test
+  public void testReportsPhasesOnce() throws Exception {
+    Collector c = new Collector();
+    AttemptTimer timer = new AttemptTimer(c, "transact", "abc/1", 5);
+    timer.callStart(null);
+    timer.connectStart(null, null, null);
+    Thread.sleep(2);
+    timer.connectEnd(null, null, null, null);
+    timer.connectionAcquired(null, null);
+    timer.requestHeadersStart(null);
+    timer.requestBodyEnd(null, 10);
+    Thread.sleep(2);
+    timer.responseHeadersEnd(null, null);
+    timer.requestId("rid");
+    timer.deserialized(7);
+    timer.report(false);
+    timer.report(true);
+
+    assertEquals(1, c.timings.size());
+    RequestTimings t = c.timings.get(0);
+    assertEquals("transact", t.action);
+    assertEquals("abc/1", t.attemptId);
+    assertEquals("rid", t.requestId);
+    assertEquals(5, t.serializeNanos);
+    assertEquals(7, t.deserializeNanos);
+    assertFalse(t.connectionReused);
+    assertFalse(t.failed);
+    assertTrue(t.connectNanos >= 2000000L);
+    assertTrue(t.timeToFirstByteNanos >= 2000000L);
+    assertTrue(t.totalNanos >= t.connectNanos + t.timeToFirstByteNanos);
+  }
+
+  @Test
+  public void testReusedConnectionOnFailure() {
+    Collector c = new Collector();
+    AttemptTimer timer = new AttemptTimer(c, "hello", "abc/2", 0);
+    timer.callStart(null);
+    timer.connectionAcquired(null, null);
+    timer.callFailed(null, null);
+
+    RequestTimings t = c.timings.get(0);
+    assertTrue(t.connectionReused);
+    assertTrue(t.failed);
+    assertNull(t.requestId);
+    assertEquals(0, t.connectNanos);
+  }
+}
@@ -0,0 +1,41 @@
+package com.seq.http;
+
+import org.junit.Test;
+
+import okhttp3.Dispatcher;
+
+import static org.junit.Assert.*;
+
+public class ClientPoolTest {
+  @Test
+  public void testTenantsHaveTheirOwnQueues() {
+    ClientPool pool = new ClientPool().setMaxRequestsPerTenant(4);
+    Dispatcher a = pool.dispatcherFor("ledger-a");
+    Dispatcher b = pool.dispatcherFor("ledger-b");
+    assertSame(a, pool.dispatcherFor("ledger-a"));
+    assertNotSame(a, b);
+    assertSame(a.executorService(), b.executorService());
+    assertEquals(4, a.getMaxRequests());
+    assertEquals(4, b.getMaxRequestsPerHost());
+  }
+
+  @Test
+  public void testAddressesSharedPerCredential() {
+    ClientPool pool = new ClientPool();
+    ClientPool.AddressState state = pool.addressFor("ledger", "cred-1");
+    assertSame(state, pool.addressFor("ledger", "cred-1"));
+    assertNotSame(state, pool.addressFor("ledger", "cred-2"));
+    assertNotSame(state, pool.addressFor("other", "cred-1"));
+  }
+
+  @Test
+  public void testSharedTls() throws Exception {
+    ClientPool pool = new ClientPool();
+    assertSame(pool.tls().socketFactory, pool.tls().socketFactory);
+
+    // Clients built from the pool share its resources without connecting.
+    Client a = new Client.Builder().setClientPool(pool).setLedgerName("a").setCredential("x").build();
+    Client b = new Client.Builder().setClientPool(pool).setLedgerName("b").setCredential("y").build();
+    assertNotEquals(a, b);
+  }
+}
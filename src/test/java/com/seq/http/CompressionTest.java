@@ -0,0 +1,86 @@
+package com.seq.http;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.GzipSink;
+import okio.GzipSource;
+
+import static org.junit.Assert.*;
+
+public class CompressionTest {
+  static String repetitive() {
+    List<Map<String, String>> actions = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      Map<String, String> tags = new HashMap<>();
+      tags.put("type", "deposit");
+      tags.put("system", "ach");
+      actions.add(tags);
+    }
+    return new Gson().toJson(actions);
+  }
+
+  @Test
+  public void testGzipRequestBody() throws Exception {
+    String json = repetitive();
+    JsonRequestBody body = new JsonRequestBody(new GsonCodec(), new Gson().fromJson(json, List.class));
+    long size = body.contentLength();
+    assertFalse(body.gzipped());
+
+    body.gzip();
+    assertTrue(body.gzipped());
+    assertTrue(body.contentLength() < size / 10);
+
+    Buffer sent = new Buffer();
+    body.writeTo(sent);
+    Buffer decompressed = new Buffer();
+    decompressed.writeAll(new GzipSource(sent));
+    assertEquals(json, decompressed.readUtf8());
+  }
+
+  @Test
+  public void testResponseDecompressedAndMeasured() throws Exception {
+    String json = repetitive();
+    Buffer gzipped = new Buffer();
+    GzipSink sink = new GzipSink(gzipped);
+    sink.write(new Buffer().writeUtf8(json), json.length());
+    sink.close();
+    long compressedSize = gzipped.size();
+
+    MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip").setBody(gzipped));
+    server.start();
+
+    final long[] sizes = new long[2];
+    OkHttpClient client = new OkHttpClient.Builder()
+        .addNetworkInterceptor(new CompressionInterceptor(new MetricsSink() {
+          public void responseCompressed(String action, long compressedBytes, long bytes) {
+            assertEquals("list-actions", action);
+            sizes[0] = compressedBytes;
+            sizes[1] = bytes;
+          }
+        }))
+        .build();
+    try (Response resp = client.newCall(new Request.Builder().url(server.url("/list-actions")).build()).execute()) {
+      assertEquals(json, resp.body().string());
+    }
+    RecordedRequest recorded = server.takeRequest();
+    assertEquals("gzip", recorded.getHeader("Accept-Encoding"));
+    server.shutdown();
+
+    assertEquals(compressedSize, sizes[0]);
+    assertEquals(json.length(), sizes[1]);
+  }
+}
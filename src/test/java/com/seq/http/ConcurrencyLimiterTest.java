@@ -0,0 +1,101 @@
+package com.seq.http;
+
+import com.seq.exception.LimitExceededException;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ConcurrencyLimiterTest {
+  static ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  @Test
+  public void testFailFastOverLimit() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter().setInitialLimit(2).setFailFast(true);
+    ConcurrencyLimiter.Limit limit = limiter.forAction("transact");
+
+    assertTrue(limit.acquire(scheduler).isDone());
+    assertTrue(limit.acquire(scheduler).isDone());
+    CompletableFuture<Void> rejected = limit.acquire(scheduler);
+    try {
+      rejected.get();
+      fail("expected rejection");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof LimitExceededException);
+    }
+    assertEquals(2, limiter.inFlight("transact"));
+    assertEquals(0, limiter.inFlight("list-actions"));
+  }
+
+  @Test
+  public void testQueuedUntilRelease() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter().setInitialLimit(1);
+    ConcurrencyLimiter.Limit limit = limiter.forAction("transact");
+
+    limit.acquire(scheduler).get();
+    CompletableFuture<Void> waiting = limit.acquire(scheduler);
+    assertFalse(waiting.isDone());
+    limit.onIgnored();
+    waiting.get(1, TimeUnit.SECONDS);
+    assertEquals(1, limiter.inFlight("transact"));
+  }
+
+  @Test
+  public void testQueueTimeout() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter().setInitialLimit(1).setQueue(10, 10);
+    ConcurrencyLimiter.Limit limit = limiter.forAction("transact");
+
+    limit.acquire(scheduler).get();
+    try {
+      limit.acquire(scheduler).get(1, TimeUnit.SECONDS);
+      fail("expected timeout");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof LimitExceededException);
+    }
+    limit.onIgnored();
+    assertEquals(0, limiter.inFlight("transact"));
+  }
+
+  @Test
+  public void testAdditiveIncreaseMultiplicativeDecrease() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter().setInitialLimit(10).setBackoffRatio(0.5);
+    ConcurrencyLimiter.Limit limit = limiter.forAction("transact");
+
+    for (int i = 0; i < 10; i++) {
+      limit.acquire(scheduler).get();
+    }
+    for (int i = 0; i < 10; i++) {
+      limit.onSuccess(1000000L);
+    }
+    assertEquals(10, limiter.limit("transact"));
+
+    // Ten fast responses at full utilization grow the cap by about one
+    // request per round trip.
+    for (int round = 0; round < 3; round++) {
+      int n = limiter.limit("transact");
+      for (int i = 0; i < n; i++) {
+        limit.acquire(scheduler).get();
+      }
+      for (int i = 0; i < n; i++) {
+        limit.onSuccess(1000000L);
+      }
+    }
+    assertTrue(limiter.limit("transact") > 10);
+
+    int before = limiter.limit("transact");
+    limit.acquire(scheduler).get();
+    limit.onDropped();
+    assertEquals(before / 2, limiter.limit("transact"), 1);
+
+    // A response much slower than the baseline is also a sign of overload.
+    before = limiter.limit("transact");
+    limit.acquire(scheduler).get();
+    limit.onSuccess(10000000L);
+    assertEquals(before / 2, limiter.limit("transact"), 1);
+  }
+}
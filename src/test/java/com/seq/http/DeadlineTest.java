@@ -0,0 +1,226 @@
+package com.seq.http;
+
+import com.seq.exception.DeadlineExceededException;
+import com.seq.exception.RequestCancelledException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class DeadlineTest {
+  @Test
+  public void testFitsRemainingTime() throws Exception {
+    Deadline deadline = Deadline.after(200, TimeUnit.MILLISECONDS);
+    assertTrue(deadline.fits(50, TimeUnit.MILLISECONDS.toNanos(50)));
+    assertFalse(deadline.fits(150, TimeUnit.MILLISECONDS.toNanos(100)));
+    deadline.check(null);
+
+    Thread.sleep(250);
+    assertTrue(deadline.isExpired());
+    assertTrue(deadline.remaining(TimeUnit.MILLISECONDS) < 0);
+    try {
+      deadline.check(null);
+      fail("expected an expired deadline");
+    } catch (DeadlineExceededException ex) {
+    }
+
+    assertTrue(Deadline.none().fits(Long.MAX_VALUE / 2000000, Long.MAX_VALUE / 2));
+    assertFalse(Deadline.none().isExpired());
+  }
+
+  @Test
+  public void testCancelWakesSleep() throws Exception {
+    final Deadline deadline = Deadline.none();
+    new Thread(new Runnable() {
+      public void run() {
+        try {
+          Thread.sleep(50);
+        } catch (InterruptedException ex) {
+        }
+        deadline.cancel();
+      }
+    }).start();
+
+    long start = System.nanoTime();
+    deadline.sleep(10000);
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    try {
+      deadline.check(null);
+      fail("expected a cancelled deadline");
+    } catch (RequestCancelledException ex) {
+    }
+  }
+
+  @Test
+  public void testExpiryAbortsCall() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      public MockResponse dispatch(RecordedRequest req) throws InterruptedException {
+        release.await(5, TimeUnit.SECONDS);
+        return new MockResponse();
+      }
+    });
+    server.start();
+
+    OkHttpClient client = new OkHttpClient();
+    Call call = client.newCall(new Request.Builder().url(server.url("/list-actions")).build());
+    Deadline deadline = Deadline.after(100, TimeUnit.MILLISECONDS);
+    deadline.register(call);
+
+    long start = System.nanoTime();
+    try {
+      call.execute();
+      fail("expected the call to be aborted");
+    } catch (IOException ex) {
+      assertTrue(call.isCanceled());
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+
+    release.countDown();
+    server.shutdown();
+  }
+
+  @Test
+  public void testDeadlineBoundsFirstHello() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final MockWebServer server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      public MockResponse dispatch(RecordedRequest req) throws InterruptedException {
+        release.await(5, TimeUnit.SECONDS);
+        return new MockResponse();
+      }
+    });
+    server.start();
+
+    final OkHttpClient http = new OkHttpClient();
+    Client client = new Client.Builder()
+        .setLedgerName("ledger")
+        .setCredential("credential")
+        .setTransport(new Transport() {
+          public Call newCall(Request request) {
+            return http.newCall(request.newBuilder().url(server.url(request.url().encodedPath())).build());
+          }
+        })
+        .build();
+
+    long start = System.nanoTime();
+    try {
+      client.request("list-actions", new HashMap<>(), Object.class, Deadline.after(100, TimeUnit.MILLISECONDS));
+      fail("expected an expired deadline");
+    } catch (DeadlineExceededException ex) {
+    }
+    try {
+      client.requestPage("list-actions", new HashMap<>(), Object.class, Long.MAX_VALUE, null,
+          Deadline.after(100, TimeUnit.MILLISECONDS));
+      fail("expected an expired deadline");
+    } catch (DeadlineExceededException ex) {
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+
+    release.countDown();
+    server.shutdown();
+  }
+
+  @Test
+  public void testDeadlineBoundsAsyncWaitForSlot() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final MockWebServer server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      public MockResponse dispatch(RecordedRequest req) throws InterruptedException {
+        MockResponse resp = new MockResponse().setHeader("Chain-Request-ID", "req");
+        if (req.getPath().equals("/hello")) {
+          return resp.setBody("{\"team_name\":\"team\",\"addr\":\"ledger\",\"addr_ttl_seconds\":600}");
+        }
+        release.await(5, TimeUnit.SECONDS);
+        return resp.setBody("{}");
+      }
+    });
+    server.start();
+
+    final OkHttpClient http = new OkHttpClient();
+    Client client = new Client.Builder()
+        .setLedgerName("ledger")
+        .setCredential("credential")
+        .setConcurrencyLimiter(new ConcurrencyLimiter().setLimitRange(1, 1).setInitialLimit(1))
+        .setTransport(new Transport() {
+          public Call newCall(Request request) {
+            String path = request.url().encodedPath().replace("/team/ledger", "");
+            return http.newCall(request.newBuilder().url(server.url(path)).build());
+          }
+        })
+        .build();
+    client.hello();
+
+    // Holds the only slot until the test ends.
+    CompletableFuture<Object> first = client.requestAsync("list-actions", new HashMap<>(), Object.class);
+    long start = System.nanoTime();
+    CompletableFuture<Object> second = client.requestAsync("list-actions", new HashMap<>(), Object.class,
+        Deadline.after(100, TimeUnit.MILLISECONDS));
+    try {
+      second.get(5, TimeUnit.SECONDS);
+      fail("expected an expired deadline");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof DeadlineExceededException);
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    server.shutdown();
+  }
+
+  @Test
+  public void testCancelledDeadlineCancelsCallsAndHooks() {
+    OkHttpClient client = new OkHttpClient();
+    Call call = client.newCall(new Request.Builder().url("http://localhost/list-actions").build());
+    Deadline deadline = Deadline.none();
+    final int[] hooks = new int[1];
+    Runnable hook = new Runnable() {
+      public void run() {
+        hooks[0]++;
+      }
+    };
+    deadline.addHook(hook);
+    deadline.cancel();
+    deadline.cancel();
+    assertEquals(1, hooks[0]);
+
+    deadline.register(call);
+    assertTrue(call.isCanceled());
+    deadline.addHook(hook);
+    assertEquals(2, hooks[0]);
+  }
+
+  @Test
+  public void testAbandonedSlotIsReleased() throws Exception {
+    ConcurrencyLimiter.Limit limit = new ConcurrencyLimiter()
+        .setLimitRange(1, 1)
+        .setInitialLimit(1)
+        .forAction("list-actions");
+    CompletableFuture<Void> first = limit.acquire(HedgingTest.scheduler);
+    assertTrue(first.isDone());
+
+    CompletableFuture<Void> waiter = limit.acquire(HedgingTest.scheduler);
+    assertFalse(waiter.isDone());
+    limit.abandon(waiter);
+    assertTrue(waiter.isCancelled());
+
+    limit.onIgnored();
+    assertTrue(limit.acquire(HedgingTest.scheduler).isDone());
+  }
+}
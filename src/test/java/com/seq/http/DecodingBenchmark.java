@@ -0,0 +1,137 @@
+package com.seq.http;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.seq.api.Action;
+import com.seq.api.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Measures the time and bytes allocated to decode a page of actions and a
+ * page of transactions with {@link GsonCodec}, comparing its defaults
+ * with the reflective decoding they replaced, with decoding timestamps
+ * into epoch milliseconds only, and with decoding only selected fields.
+ * Each configuration is measured in its own JVM, so that none inherits
+ * another's JIT profile. Run with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.seq.http.DecodingBenchmark
+ * </pre>
+ */
+public class DecodingBenchmark {
+  private static final int PAGE_SIZE = 100;
+  private static final int WARMUP = 2000;
+  private static final int ITERATIONS = 10000;
+
+  private static final String[] CONFIGURATIONS = {"reflective", "gson", "epoch-millis", "select"};
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      for (String configuration : CONFIGURATIONS) {
+        String java = System.getProperty("java.home") + "/bin/java";
+        Process p = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+            DecodingBenchmark.class.getName(), configuration).inheritIO().start();
+        p.waitFor();
+      }
+      return;
+    }
+
+    byte[] actions = page(GsonCodecTest.ACTION);
+    byte[] transactions = page(GsonCodecTest.TRANSACTION);
+    // The decoding before the type adapters were generated, mapping the
+    // API objects by reflection and parsing timestamps with SimpleDateFormat.
+    final Gson reflective = new GsonBuilder()
+        .excludeFieldsWithoutExposeAnnotation()
+        .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+        .create();
+    JsonCodec before = new JsonCodec() {
+      public <T> T decode(JsonReader reader, Type type) {
+        return reflective.fromJson(reader, type);
+      }
+
+      public void encode(Object value, Type type, JsonWriter writer) {
+        reflective.toJson(value, type, writer);
+      }
+    };
+    String name = args[0];
+    if (name.equals("select")) {
+      report(new GsonCodec(), name, "actions", actions, Action.class, new HashSet<>(Arrays.asList(
+          "id", "amount", "flavor_id", "source_account_id", "destination_account_id")));
+      report(new GsonCodec(), name, "transactions", transactions, Transaction.class,
+          new HashSet<>(Arrays.asList("id", "sequence_number")));
+      return;
+    }
+    JsonCodec codec;
+    if (name.equals("reflective")) {
+      codec = before;
+    } else if (name.equals("epoch-millis")) {
+      codec = new GsonCodec(TimestampMode.EPOCH_MILLIS);
+    } else {
+      codec = new GsonCodec();
+    }
+    report(codec, name, "actions", actions, Action.class, null);
+    report(codec, name, "transactions", transactions, Transaction.class, null);
+  }
+
+  private static void report(JsonCodec codec, String codecName, String name, byte[] page, Type itemType,
+      Set<String> fields) throws Exception {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+
+    for (int i = 0; i < WARMUP; i++) {
+      decodePage(codec, page, itemType, fields);
+    }
+
+    long bytes = threads.getThreadAllocatedBytes(thread);
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      decodePage(codec, page, itemType, fields);
+    }
+    long nanos = System.nanoTime() - start;
+    bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+    long items = (long) ITERATIONS * PAGE_SIZE;
+    System.out.printf("%-14s %-12s %6d ns/item %6d bytes/item%n",
+        codecName, name, nanos / items, bytes / items);
+  }
+
+  private static void decodePage(JsonCodec codec, byte[] page, Type itemType, Set<String> fields)
+      throws Exception {
+    InputStreamReader in = new InputStreamReader(new ByteArrayInputStream(page), StandardCharsets.UTF_8);
+    JsonReader reader = fields == null ? new JsonReader(in) : new ProjectingJsonReader(in, fields);
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (reader.nextName().equals("items")) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          codec.decode(reader, itemType);
+        }
+        reader.endArray();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+  }
+
+  private static byte[] page(String item) {
+    StringBuilder sb = new StringBuilder("{\"items\":[");
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      sb.append(i == 0 ? "" : ",").append(item);
+    }
+    sb.append("],\"cursor\":\"next\",\"last_page\":false}");
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
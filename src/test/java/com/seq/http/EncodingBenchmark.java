@@ -0,0 +1,151 @@
+package com.seq.http;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.seq.api.Transaction;
+
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.Random;
+import java.util.UUID;
+
+
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+/**
+ * Measures the bytes allocated to encode one transact request, comparing
+ * the previous String-based path with the current streaming path. Each
+ * path is measured in its own JVM: both run through Gson's reflective
+ * adapters, and the path measured second would otherwise inherit a JIT
+ * profile that stops its allocations from being optimized away. Run with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.seq.http.EncodingBenchmark
+ * </pre>
+ */
+public class EncodingBenchmark {
+  private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+  private static final String URL = "https://api.seq.com/team/ledger/transact";
+  private static final int WARMUP = 20000;
+  private static final int ITERATIONS = 100000;
+
+  interface Encoder {
+    void encode(Buffer sink) throws Exception;
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      for (String path : new String[] {"before", "after"}) {
+        String java = System.getProperty("java.home") + "/bin/java";
+        Process p = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+            EncodingBenchmark.class.getName(), path).inheritIO().start();
+        p.waitFor();
+      }
+      return;
+    }
+
+    final Gson serializer = new GsonBuilder()
+        .excludeFieldsWithoutExposeAnnotation()
+        .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX")
+        .create();
+    final Client client = new Client.Builder()
+        .setLedgerName("ledger")
+        .setCredential("credential")
+        .build();
+    final JsonCodec codec = new GsonCodec();
+    final HttpUrl url = HttpUrl.parse(URL);
+    final Transaction.Builder body = transaction();
+
+    Encoder before = new Encoder() {
+      public void encode(Buffer sink) throws Exception {
+        RequestBody requestBody = RequestBody.create(JSON, serializer.toJson(body));
+        byte[] bytes = new byte[10];
+        new Random().nextBytes(bytes);
+        String requestId = hex(bytes);
+        String idempotencyKey = UUID.randomUUID().toString();
+        Request req = new Request.Builder()
+            .header("User-Agent", "sequence-sdk-java/" + Client.getVersion())
+            .header("Credential", "credential")
+            .header("Idempotency-Key", idempotencyKey)
+            .header("Name-Set", "camel")
+            .header("Id", requestId + "/1")
+            .url(new URL(URL))
+            .method("POST", requestBody)
+            .build();
+        req.body().writeTo(sink);
+      }
+    };
+
+    Encoder after = new Encoder() {
+      public void encode(Buffer sink) throws Exception {
+        Request req = client.buildRequest(
+            url,
+            new JsonRequestBody(codec, body),
+            Client.newIdempotencyKey(),
+            Client.newRequestId() + "/1",
+            null);
+        req.body().writeTo(sink);
+      }
+    };
+
+    if (args[0].equals("before")) {
+      System.out.printf("before: %d bytes/transact%n", allocatedPerCall(before));
+    } else {
+      System.out.printf("after:  %d bytes/transact%n", allocatedPerCall(after));
+    }
+  }
+
+  private static long allocatedPerCall(Encoder encoder) throws Exception {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+    Buffer sink = new Buffer();
+
+    for (int i = 0; i < WARMUP; i++) {
+      encoder.encode(sink);
+      sink.clear();
+    }
+
+    long start = threads.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < ITERATIONS; i++) {
+      encoder.encode(sink);
+      sink.clear();
+    }
+    return (threads.getThreadAllocatedBytes(thread) - start) / ITERATIONS;
+  }
+
+  private static Transaction.Builder transaction() {
+    Transaction.Builder builder = new Transaction.Builder()
+        .addTransactionTagsField("batch", "2018-08-08")
+        .addTransactionTagsField("source", "payments");
+    for (int i = 0; i < 10; i++) {
+      builder.addAction(
+          new Transaction.Builder.Action.Transfer()
+              .setSourceAccountId("alice-" + i)
+              .setDestinationAccountId("bob-" + i)
+              .setFlavorId("usd")
+              .setAmount(100 + i)
+              .addActionTagsField("invoice", "inv-" + i)
+              .addTokenTagsField("settled", false));
+    }
+    return builder;
+  }
+
+  /**
+   * Encodes bytes with the client's hex digits, as request IDs were before
+   * they were generated from thread-local randomness.
+   */
+  private static String hex(byte[] bytes) {
+    char[] digits = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      digits[2 * i] = Client.HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+      digits[2 * i + 1] = Client.HEX_DIGITS[bytes[i] & 0xf];
+    }
+    return new String(digits);
+  }
+}
@@ -0,0 +1,65 @@
+package com.seq.http;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.seq.api.Account;
+import com.seq.api.Action;
+import com.seq.api.Flavor;
+import com.seq.api.Query;
+import com.seq.api.Token;
+import com.seq.api.Transaction;
+import com.seq.exception.APIException;
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class GeneratedTypeAdaptersTest {
+  static final Gson reflective = new GsonBuilder()
+      .excludeFieldsWithoutExposeAnnotation()
+      .registerTypeAdapter(Date.class, new Iso8601DateAdapter(TimestampMode.DATE))
+      .create();
+
+  static final Gson generated = new GsonCodec().gson();
+
+  @Test
+  public void testMatchesReflection() {
+    assertSame(GsonCodecTest.ACTION, Action.class);
+    assertSame(GsonCodecTest.TRANSACTION, Transaction.class);
+    assertSame(GsonCodecTest.TOKEN, Token.class);
+    assertSame(GsonCodecTest.ERROR, APIException.class);
+    assertSame("{\"items\":[" + GsonCodecTest.ACTION + "],\"cursor\":\"c\",\"last_page\":true}",
+        Action.Page.class);
+    assertSame("{\"id\":\"alice\",\"key_ids\":[\"k1\"],\"quorum\":1,\"tags\":{\"a\":[1]}}",
+        Account.class);
+    assertSame("{\"id\":\"usd\",\"key_ids\":[],\"quorum\":\"2\",\"tags\":null}", Flavor.class);
+    assertSame("{\"filter\":\"id=$1\",\"filter_params\":[\"a\"],\"page_size\":5,\"cursor\":\"c\"}",
+        Query.class);
+  }
+
+  @Test
+  public void testCoversPublicModels() {
+    GeneratedTypeAdapters factory = new GeneratedTypeAdapters();
+    Class<?>[] covered = {
+      Action.class, Action.Snapshot.class, Action.Page.class,
+      Transaction.class, Transaction.Action.class, Transaction.Action.Snapshot.class,
+      Token.class, Account.class, Flavor.class, Query.class,
+      APIException.class, APIException.APIExceptionData.class,
+    };
+    for (Class<?> cls : covered) {
+      assertNotNull(cls.getName(), factory.create(generated, TypeToken.get(cls)));
+    }
+    // Builders keep their fields private and are mapped by reflection.
+    assertNull(factory.create(generated, TypeToken.get(Transaction.Builder.class)));
+  }
+
+  private static void assertSame(String json, Type type) {
+    Object expected = reflective.fromJson(json, type);
+    Object actual = generated.fromJson(json, type);
+    assertEquals(reflective.toJson(expected, type), generated.toJson(actual, type));
+    assertEquals(reflective.toJson(expected, type), reflective.toJson(actual, type));
+  }
+}
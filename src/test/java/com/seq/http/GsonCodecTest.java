@@ -0,0 +1,97 @@
+package com.seq.http;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.seq.api.Action;
+import com.seq.api.ActionSum;
+import com.seq.api.Feed;
+import com.seq.api.Token;
+import com.seq.api.TokenSum;
+import com.seq.api.Transaction;
+import com.seq.exception.APIException;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+
+import static org.junit.Assert.*;
+
+public class GsonCodecTest {
+  static final String ACTION = "{\"amount\":100,\"type\":\"transfer\",\"id\":\"a1\","
+      + "\"transaction_id\":\"t1\",\"timestamp\":\"2018-08-08T10:11:12.123Z\",\"flavor_id\":\"usd\","
+      + "\"snapshot\":{\"action_tags\":{\"invoice\":\"inv-1\"},\"flavor_tags\":{},"
+      + "\"source_account_tags\":{\"type\":\"checking\",\"limits\":{\"daily\":500}},"
+      + "\"destination_account_tags\":null,\"token_tags\":{\"settled\":false},"
+      + "\"transaction_tags\":{\"batch\":[1,2.5,\"x\"]}},"
+      + "\"source_account_id\":\"alice\",\"destination_account_id\":\"bob\","
+      + "\"tags\":{\"n\":1},\"unknown\":{\"nested\":[true]}}";
+
+  static final String TRANSACTION = "{\"id\":\"t1\",\"timestamp\":\"2018-08-08T10:11:12.123+02:00\","
+      + "\"sequence_number\":42,\"actions\":[{\"id\":\"a1\",\"type\":\"issue\",\"flavor_id\":\"usd\","
+      + "\"snapshot\":{\"token_tags\":{\"k\":\"v\"}},\"amount\":7,\"source_account_id\":null,"
+      + "\"destination_account_id\":\"bob\",\"tags\":{}}],\"tags\":{\"source\":\"payments\"}}";
+
+  static final String TOKEN = "{\"amount\":3,\"flavor_id\":\"usd\",\"flavor_tags\":{\"a\":1},"
+      + "\"account_id\":\"alice\",\"account_tags\":{\"b\":\"c\"},\"tags\":{\"d\":null}}";
+
+  static final String FEED = "{\"id\":\"f1\",\"type\":\"action\",\"filter\":\"amount > $1\","
+      + "\"filter_params\":[10,\"x\"],\"cursor\":\"c1\"}";
+
+  static final String ERROR = "{\"seq_code\":\"SEQ702\",\"message\":\"invalid action\","
+      + "\"detail\":\"d\",\"retriable\":true,\"data\":{\"actions\":[{\"seq_code\":\"SEQ703\","
+      + "\"message\":\"m\",\"data\":{\"index\":1,\"missing_fields\":[\"amount\"]}}]}}";
+
+  @Test
+  public void testRoundTrips() {
+    assertRoundTrips(ACTION, Action.class);
+    assertRoundTrips(ACTION, ActionSum.class);
+    assertRoundTrips(TRANSACTION, Transaction.class);
+    assertRoundTrips(TOKEN, Token.class);
+    assertRoundTrips(TOKEN, TokenSum.class);
+    assertRoundTrips(FEED, Feed.class);
+    assertRoundTrips(ERROR, APIException.class);
+    assertRoundTrips("null", Action.class);
+  }
+
+  @Test
+  public void testDecodesFields() {
+    Action action = decode(new GsonCodec(), ACTION, Action.class);
+    assertEquals(100, action.amount);
+    assertEquals("alice", action.sourceAccountId);
+    assertEquals("inv-1", action.snapshot.actionTags.get("invoice"));
+    assertNull(action.snapshot.destinationAccountTags);
+    assertEquals(1533723072123L, action.timestamp.getTime());
+
+    APIException err = decode(new GsonCodec(), ERROR, APIException.class);
+    assertTrue(err.retriable);
+    assertEquals("SEQ703", err.data.actions.get(0).seqCode);
+    assertEquals(Integer.valueOf(1), err.data.actions.get(0).data.index);
+    // Decoded without a stack trace; the client copies it with one when it
+    // is not retried.
+    assertEquals(0, err.getStackTrace().length);
+    APIException copy = new APIException(err);
+    assertTrue(copy.getStackTrace().length > 0);
+    assertEquals(err.getMessage(), copy.getMessage());
+  }
+
+  static <T> T decode(JsonCodec codec, String json, Type type) {
+    return codec.decode(new JsonReader(new StringReader(json)), type);
+  }
+
+  static String encode(JsonCodec codec, Object value, Type type) {
+    StringWriter out = new StringWriter();
+    codec.encode(value, type, new JsonWriter(out));
+    return out.toString();
+  }
+
+  /**
+   * Asserts that re-decoding the encoding of a decoded value gives the
+   * same encoding.
+   */
+  private static void assertRoundTrips(String json, Type type) {
+    GsonCodec codec = new GsonCodec();
+    String expected = encode(codec, decode(codec, json, type), type);
+    assertEquals(expected, encode(codec, decode(codec, expected, type), type));
+  }
+}
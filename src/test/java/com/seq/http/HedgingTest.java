@@ -0,0 +1,88 @@
+package com.seq.http;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class HedgingTest {
+  static ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsWrites() {
+    new HedgingPolicy().setActions("list-actions", "transact");
+  }
+
+  @Test
+  public void testDelayFollowsPercentile() {
+    HedgingPolicy policy = new HedgingPolicy().setMinDelay(1).setMinSamples(10);
+    assertNull(policy.forAction("transact"));
+    assertNull(policy.forAction("update-account-tags"));
+
+    HedgingPolicy.Stats stats = policy.forAction("list-actions");
+    assertEquals(-1, stats.delayNanos());
+    for (int i = 1; i <= 100; i++) {
+      stats.record(i * 1000000L);
+    }
+    assertEquals(95000000L, stats.delayNanos(), 95000000L * 0.04);
+  }
+
+  @Test
+  public void testHedgeWinsOverSlowPrimary() throws Exception {
+    // Holds back the response to the original request until the test ends.
+    final CountDownLatch release = new CountDownLatch(1);
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      public MockResponse dispatch(RecordedRequest req) throws InterruptedException {
+        if (!req.getHeader("Id").endsWith("-hedge")) {
+          release.await(5, TimeUnit.SECONDS);
+        }
+        return new MockResponse().setBody(req.getHeader("Id"));
+      }
+    });
+    server.start();
+
+    OkHttpClient client = new OkHttpClient();
+    Request req = new Request.Builder().url(server.url("/list-actions")).header("Id", "abc/1").build();
+    Request hedge = req.newBuilder().header("Id", "abc/1-hedge").build();
+    HedgingPolicy.Stats stats = new HedgingPolicy().forAction("list-actions");
+
+    final CompletableFuture<String> result = new CompletableFuture<>();
+    final int[] hedges = new int[1];
+    HedgedCall call = new HedgedCall(client.newCall(req), client.newCall(hedge), stats, new Callback() {
+      public void onResponse(Call call, Response response) throws IOException {
+        result.complete(response.body().string());
+      }
+
+      public void onFailure(Call call, IOException ex) {
+        result.completeExceptionally(ex);
+      }
+    }, new Runnable() {
+      public void run() {
+        hedges[0]++;
+      }
+    });
+    call.start(TimeUnit.MILLISECONDS.toNanos(20), scheduler);
+
+    assertEquals("abc/1-hedge", result.get(2, TimeUnit.SECONDS));
+    assertEquals(1, hedges[0]);
+    release.countDown();
+    server.shutdown();
+  }
+}
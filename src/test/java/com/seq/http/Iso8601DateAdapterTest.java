@@ -0,0 +1,92 @@
+package com.seq.http;
+
+import com.google.gson.JsonSyntaxException;
+import com.seq.api.Action;
+import org.junit.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Iso8601DateAdapterTest {
+  @Test
+  public void testParse() {
+    String[] timestamps = {
+      "2018-08-08T10:11:12.123Z",
+      "2018-08-08T10:11:12.123+02:00",
+      "2018-08-08T10:11:12.123-05:30",
+      "2000-02-29T23:59:59.999Z",
+      "1969-12-31T23:59:59.001Z",
+      "2018-08-08T10:11:12Z",
+      "2018-08-08T10:11:12.1Z",
+      "2018-08-08T10:11:12.123456789Z",
+    };
+    for (String s : timestamps) {
+      long expected = OffsetDateTime.parse(s).toInstant().toEpochMilli();
+      assertEquals(s, expected, Iso8601DateAdapter.parseMillis(s));
+    }
+    assertEquals(1533723072123L, Iso8601DateAdapter.parseMillis("2018-08-08T10:11:12.123+0000"));
+  }
+
+  @Test
+  public void testRejectsMalformed() {
+    String[] timestamps = {
+      "", "2018-08-08", "2018-08-08T10:11:12.123", "2018-13-08T10:11:12.123Z",
+      "2018-02-30T10:11:12.123Z", "2018-08-08T10:11:12.Z", "2018-08-08T10:11:12.123Zx",
+      "2018-08-08X10:11:12.123Z", "2018-08-08T10:1a:12.123Z",
+    };
+    for (String s : timestamps) {
+      try {
+        Iso8601DateAdapter.parseMillis(s);
+        fail("expected " + s + " to be rejected");
+      } catch (IllegalArgumentException ex) {
+      }
+    }
+  }
+
+  @Test
+  public void testFormatRoundTrips() {
+    Random random = new Random(1);
+    for (int i = 0; i < 10000; i++) {
+      long millis = (long) (random.nextDouble() * 8e12) - 2000000000000L;
+      String s = Iso8601DateAdapter.format(millis);
+      assertEquals(OffsetDateTime.parse(s).toInstant().toEpochMilli(), millis);
+      assertEquals(millis, Iso8601DateAdapter.parseMillis(s));
+    }
+    assertEquals("1970-01-01T00:00:00.000Z", Iso8601DateAdapter.format(0));
+  }
+
+  @Test
+  public void testEpochMillisMode() {
+    String json = "{\"id\":\"a1\",\"timestamp\":\"2018-08-08T10:11:12.123Z\"}";
+    JsonCodec codec = new GsonCodec(TimestampMode.EPOCH_MILLIS);
+    Action action = GsonCodecTest.decode(codec, json, Action.class);
+    assertNull(action.timestamp);
+    assertEquals(1533723072123L, action.timestampMillis);
+    assertTrue(GsonCodecTest.encode(codec, action, Action.class)
+        .contains("\"timestamp\":\"2018-08-08T10:11:12.123Z\""));
+
+    action = GsonCodecTest.decode(new GsonCodec(), json, Action.class);
+    assertEquals(1533723072123L, action.timestamp.getTime());
+    assertEquals(1533723072123L, action.timestampMillis);
+  }
+
+  @Test
+  public void testEpochIsNotNull() {
+    Action action = GsonCodecTest.decode(new GsonCodec(), "{\"timestamp\":\"1970-01-01T00:00:00Z\"}", Action.class);
+    assertEquals(0, action.timestamp.getTime());
+    assertEquals(0, action.timestampMillis);
+    assertTrue(GsonCodecTest.encode(new GsonCodec(), action, Action.class)
+        .contains("\"timestamp\":\"1970-01-01T00:00:00.000Z\""));
+
+    action = GsonCodecTest.decode(new GsonCodec(), "{\"timestamp\":null}", Action.class);
+    assertNull(action.timestamp);
+    assertEquals(0, action.timestampMillis);
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void testMalformedJson() {
+    GsonCodecTest.decode(new GsonCodec(), "{\"timestamp\":\"yesterday\"}", Action.class);
+  }
+}
@@ -0,0 +1,98 @@
+package com.seq.http;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class JdkHttpTransportTest {
+  private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+  @Test
+  public void testExecute() throws Exception {
+    MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse()
+        .setResponseCode(400)
+        .setHeader("Content-Type", "application/json")
+        .setHeader("Chain-Request-Id", "req-1")
+        .setBody("{\"code\":\"CH002\"}"));
+    server.start();
+
+    Transport transport = new JdkHttpTransport();
+    Request req = new Request.Builder()
+        .url(server.url("/list-actions"))
+        .header("Credential", "s3cret")
+        .header("Connection", "close")
+        .post(RequestBody.create(JSON, "{\"page_size\":1}"))
+        .build();
+    try (Response resp = transport.newCall(req).execute()) {
+      assertEquals(400, resp.code());
+      assertEquals("req-1", resp.header("Chain-Request-Id"));
+      assertEquals("application/json", resp.body().contentType().toString());
+      assertEquals("{\"code\":\"CH002\"}", resp.body().string());
+    }
+
+    RecordedRequest recorded = server.takeRequest();
+    assertEquals("POST", recorded.getMethod());
+    assertEquals("/list-actions", recorded.getPath());
+    assertEquals("s3cret", recorded.getHeader("Credential"));
+    assertEquals("application/json; charset=utf-8", recorded.getHeader("Content-Type"));
+    assertEquals("{\"page_size\":1}", recorded.getBody().readUtf8());
+    server.shutdown();
+  }
+
+  @Test
+  public void testCancelEnqueuedCall() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    MockWebServer server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      public MockResponse dispatch(RecordedRequest req) throws InterruptedException {
+        release.await(5, TimeUnit.SECONDS);
+        return new MockResponse();
+      }
+    });
+    server.start();
+
+    Transport transport = new JdkHttpTransport();
+    Call call = transport.newCall(new Request.Builder().url(server.url("/list-actions")).build());
+    final CompletableFuture<IOException> failure = new CompletableFuture<>();
+    call.enqueue(new Callback() {
+      public void onResponse(Call call, Response response) {
+        response.close();
+        failure.complete(null);
+      }
+
+      public void onFailure(Call call, IOException ex) {
+        failure.complete(ex);
+      }
+    });
+    server.takeRequest(5, TimeUnit.SECONDS);
+    call.cancel();
+
+    assertNotNull(failure.get(2, TimeUnit.SECONDS));
+    assertTrue(call.isCanceled());
+    try {
+      call.execute();
+      fail("expected a call to run once");
+    } catch (IllegalStateException ex) {
+    }
+
+    release.countDown();
+    server.shutdown();
+  }
+}
@@ -0,0 +1,26 @@
+package com.seq.http;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+public class JsonRequestBodyTest {
+  @Test
+  public void testEncodesSurrogatesLikeGetBytes() throws Exception {
+    List<String> values = Arrays.asList(
+        "a\uD83D\uDE00b", "\uD83D\"", "\uD83D", "\uDE00x", "x\uD83D\uD83D\uDE00", "\uD83D\n");
+    for (String value : values) {
+      Buffer encoded = new Buffer();
+      new JsonRequestBody(new GsonCodec(), Arrays.asList(value)).writeTo(encoded);
+      String json = new Gson().toJson(Arrays.asList(value));
+      assertArrayEquals(value, json.getBytes(StandardCharsets.UTF_8), encoded.readByteArray());
+    }
+  }
+}
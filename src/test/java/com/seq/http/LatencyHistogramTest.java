@@ -0,0 +1,122 @@
+package com.seq.http;
+
+import com.seq.exception.ConnectivityException;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+  @Test
+  public void testBucketsCoverTheirValues() {
+    long[] values = {0, 1, 31, 32, 33, 1000, 123456789L, 1L << 40};
+    for (long v : values) {
+      int b = LatencyHistogram.bucket(v);
+      assertTrue(v <= LatencyHistogram.bucketUpperBound(b));
+      if (b > 0) {
+        assertTrue(v > LatencyHistogram.bucketUpperBound(b - 1));
+      }
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram h = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      h.record(i * 1000000L);
+    }
+
+    LatencyHistogram.Snapshot s = h.snapshot();
+    assertEquals(1000, s.count);
+    assertEquals(1000000000L, s.maxNanos);
+    assertEquals(500000000L, s.valueAtPercentile(50), 500000000L * 0.04);
+    assertEquals(990000000L, s.valueAtPercentile(99), 990000000L * 0.04);
+    assertEquals(500500000L, s.meanNanos(), 1);
+  }
+
+  @Test
+  public void testClientMetricsPerAction() {
+    ClientMetrics m = new ClientMetrics();
+    m.bytesSent("transact", 100);
+    m.requestRetried("transact", new ConnectivityException(PageReaderTest.response("")));
+    m.bytesSent("transact", 100);
+    m.bytesReceived("transact", 50);
+    m.requestCompleted("transact", 2000000L, null);
+    m.requestCompleted("list-actions", 1000000L, null);
+
+    Map<String, ClientMetrics.ActionStats> stats = m.snapshot();
+    ClientMetrics.ActionStats transact = stats.get("transact");
+    assertEquals(1, transact.requests);
+    assertEquals(0, transact.errors);
+    assertEquals(1, transact.retries);
+    assertEquals(1, transact.connectivityErrors);
+    assertEquals(200, transact.bytesSent);
+    assertEquals(50, transact.bytesReceived);
+    assertEquals(1, stats.get("list-actions").latency.count);
+  }
+
+  @Test
+  public void testUnexpectedFailuresCountAsErrors() throws Exception {
+    final MockWebServer server = new MockWebServer();
+    server.setDispatcher(new Dispatcher() {
+      public MockResponse dispatch(RecordedRequest req) {
+        return new MockResponse().setHeader("Chain-Request-ID", "req")
+            .setBody("{\"team_name\":\"team\",\"addr\":\"ledger\",\"addr_ttl_seconds\":600}");
+      }
+    });
+    server.start();
+
+    // Fails every request but the hello with an unchecked exception.
+    final OkHttpClient http = new OkHttpClient();
+    ClientMetrics m = new ClientMetrics();
+    Client client = new Client.Builder()
+        .setLedgerName("ledger")
+        .setCredential("credential")
+        .setMetricsSink(m)
+        .setTransport(new Transport() {
+          public Call newCall(Request request) {
+            String path = request.url().encodedPath();
+            if (!path.equals("/hello")) {
+              throw new IllegalStateException("unexpected");
+            }
+            return http.newCall(request.newBuilder().url(server.url(path)).build());
+          }
+        })
+        .build();
+    client.hello();
+
+    try {
+      client.request("list-actions", new HashMap<>(), Object.class);
+      fail("expected an unchecked exception");
+    } catch (IllegalStateException ex) {
+    }
+    try {
+      client.requestPage("list-actions", new HashMap<>(), Object.class, Long.MAX_VALUE);
+      fail("expected an unchecked exception");
+    } catch (IllegalStateException ex) {
+    }
+    try {
+      client.requestAsync("list-actions", new HashMap<>(), Object.class).get(5, TimeUnit.SECONDS);
+      fail("expected an unchecked exception");
+    } catch (ExecutionException ex) {
+      assertTrue(ex.getCause() instanceof IllegalStateException);
+    }
+    server.shutdown();
+
+    ClientMetrics.ActionStats stats = m.snapshot().get("list-actions");
+    assertEquals(3, stats.requests);
+    assertEquals(3, stats.errors);
+  }
+}
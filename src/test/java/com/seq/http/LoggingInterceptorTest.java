@@ -0,0 +1,183 @@
+package com.seq.http;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+public class LoggingInterceptorTest {
+  static final MediaType JSON = MediaType.parse("application/json");
+
+  static Response post(MockWebServer server, LoggingInterceptor interceptor, String action) throws Exception {
+    OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+    Request req = new Request.Builder()
+        .url(server.url("/" + action))
+        .header("Id", "abc/1")
+        .post(RequestBody.create(JSON, "{\"filter\":\"\"}"))
+        .build();
+    return client.newCall(req).execute();
+  }
+
+  @Test
+  public void testJsonLineTruncatesBody() throws Exception {
+    MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setHeader("Chain-Request-ID", "rid").setBody("0123456789"));
+    server.start();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    LoggingInterceptor interceptor = new LoggingInterceptor(out, LoggingInterceptor.Level.ALL)
+        .setFormat(LoggingInterceptor.Format.JSON)
+        .setMaxBodyBytes(4);
+    try (Response resp = post(server, interceptor, "list-actions")) {
+      // The caller still receives the whole body.
+      assertEquals("0123456789", resp.body().string());
+    }
+    server.shutdown();
+
+    String line = new String(out.toByteArray(), StandardCharsets.UTF_8);
+    assertTrue(line.endsWith("\n"));
+    assertEquals(1, line.split("\n").length);
+    JsonObject entry = new JsonParser().parse(line).getAsJsonObject();
+    assertEquals("rid", entry.get("request_id").getAsString());
+    assertEquals("abc/1", entry.get("id").getAsString());
+    assertEquals("list-actions", entry.get("action").getAsString());
+    assertEquals(200, entry.get("code").getAsInt());
+    assertEquals("0123", entry.get("response").getAsString());
+    assertTrue(entry.get("response_truncated").getAsBoolean());
+    assertEquals("{\"fi", entry.get("request").getAsString());
+  }
+
+  @Test
+  public void testBodyOfMaxSizeNotTruncated() throws Exception {
+    MockWebServer server = new MockWebServer();
+    // Chunked, so the length is only known by reading the body.
+    server.enqueue(new MockResponse().setHeader("Chain-Request-ID", "rid").setChunkedBody("0123", 2));
+    server.enqueue(new MockResponse().setHeader("Chain-Request-ID", "rid").setChunkedBody("01234", 2));
+    server.start();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    LoggingInterceptor interceptor = new LoggingInterceptor(out, LoggingInterceptor.Level.ALL)
+        .setFormat(LoggingInterceptor.Format.JSON)
+        .setMaxBodyBytes(4);
+    post(server, interceptor, "list-actions").close();
+    post(server, interceptor, "list-actions").close();
+    server.shutdown();
+
+    String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+    JsonObject exact = new JsonParser().parse(lines[0]).getAsJsonObject();
+    assertEquals("0123", exact.get("response").getAsString());
+    assertNull(exact.get("response_truncated"));
+    JsonObject longer = new JsonParser().parse(lines[1]).getAsJsonObject();
+    assertEquals("0123", longer.get("response").getAsString());
+    assertTrue(longer.get("response_truncated").getAsBoolean());
+  }
+
+  @Test
+  public void testSamplingPerAction() throws Exception {
+    MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{}"));
+    server.enqueue(new MockResponse().setBody("{}"));
+    server.enqueue(new MockResponse().setResponseCode(500).setBody("{}"));
+    server.start();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    LoggingInterceptor interceptor = new LoggingInterceptor(out, LoggingInterceptor.Level.ALL)
+        .setFormat(LoggingInterceptor.Format.JSON)
+        .setSampleRate("list-actions", 0);
+    post(server, interceptor, "list-actions").close();
+    post(server, interceptor, "transact").close();
+    post(server, interceptor, "list-actions").close();
+    server.shutdown();
+
+    String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].contains("\"transact\""));
+    // Errors are logged regardless of sampling.
+    assertTrue(lines[1].contains("\"code\":500"));
+  }
+
+  @Test
+  public void testAsyncWriter() throws Exception {
+    MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{}"));
+    server.start();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    LoggingInterceptor interceptor = new LoggingInterceptor(out, LoggingInterceptor.Level.ALL).setAsync(16);
+    post(server, interceptor, "transact").close();
+    server.shutdown();
+
+    for (int i = 0; i < 100 && out.size() == 0; i++) {
+      Thread.sleep(10);
+    }
+    assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).startsWith("chain-request:"));
+    assertEquals(0, interceptor.dropped());
+  }
+
+  @Test
+  public void testCloseDrainsQueue() throws Exception {
+    MockWebServer server = new MockWebServer();
+    for (int i = 0; i < 3; i++) {
+      server.enqueue(new MockResponse().setBody("{}"));
+    }
+    server.start();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    LoggingInterceptor interceptor = new LoggingInterceptor(out, LoggingInterceptor.Level.ALL)
+        .setFormat(LoggingInterceptor.Format.JSON)
+        .setAsync(16);
+    try {
+      interceptor.setAsync(16);
+      fail("expected a single writer thread");
+    } catch (IllegalStateException ex) {
+    }
+    post(server, interceptor, "transact").close();
+    post(server, interceptor, "transact").close();
+    interceptor.close();
+    assertEquals(2, new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n").length);
+
+    // Once closed, entries are written synchronously.
+    post(server, interceptor, "transact").close();
+    server.shutdown();
+    assertEquals(3, new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n").length);
+  }
+
+  @Test
+  public void testGzipRequestBodyTruncated() throws Exception {
+    MockWebServer server = new MockWebServer();
+    server.enqueue(new MockResponse().setBody("{}"));
+    server.start();
+
+    JsonRequestBody body = new JsonRequestBody(new GsonCodec(), new JsonParser().parse(CompressionTest.repetitive()));
+    body.gzip();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    LoggingInterceptor interceptor = new LoggingInterceptor(out, LoggingInterceptor.Level.ALL)
+        .setFormat(LoggingInterceptor.Format.JSON)
+        .setMaxBodyBytes(10);
+    OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+    Request req = new Request.Builder()
+        .url(server.url("/transact"))
+        .header("Content-Encoding", "gzip")
+        .post(body)
+        .build();
+    client.newCall(req).execute().close();
+    server.shutdown();
+
+    JsonObject entry = new JsonParser().parse(new String(out.toByteArray(), StandardCharsets.UTF_8))
+        .getAsJsonObject();
+    assertEquals(CompressionTest.repetitive().substring(0, 10), entry.get("request").getAsString());
+    assertTrue(entry.get("request_truncated").getAsBoolean());
+  }
+}
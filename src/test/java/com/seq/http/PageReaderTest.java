@@ -0,0 +1,76 @@
+package com.seq.http;
+
+import com.seq.api.Action;
+import com.seq.exception.ChainException;
+import org.junit.Test;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import static org.junit.Assert.*;
+
+public class PageReaderTest {
+  static JsonCodec codec = new GsonCodec();
+
+  static Response response(String body) {
+    return new Response.Builder()
+        .request(new Request.Builder().url("https://example.com/list-actions").build())
+        .protocol(Protocol.HTTP_1_1)
+        .code(200)
+        .message("OK")
+        .header("Chain-Request-ID", "test")
+        .body(ResponseBody.create(MediaType.parse("application/json"), body))
+        .build();
+  }
+
+  @Test
+  public void testReadsItemsThenTrailingFields() throws Exception {
+    PageReader<Action> reader = new PageReader<>(
+        response("{\"items\":[{\"id\":\"a1\",\"amount\":1},{\"id\":\"a2\",\"amount\":2}],"
+            + "\"cursor\":\"next\",\"last_page\":false}"),
+        codec, Action.class, Long.MAX_VALUE);
+
+    assertTrue(reader.hasNext());
+    assertEquals("a1", reader.next().id);
+    assertTrue(reader.hasNext());
+    assertEquals(2, reader.next().amount);
+    assertFalse(reader.hasNext());
+    assertEquals("next", reader.cursor);
+    assertFalse(reader.lastPage);
+  }
+
+  @Test
+  public void testReadsLeadingFields() throws Exception {
+    PageReader<Action> reader = new PageReader<>(
+        response("{\"last_page\":true,\"cursor\":\"c\",\"items\":[]}"),
+        codec, Action.class, Long.MAX_VALUE);
+
+    assertFalse(reader.hasNext());
+    assertTrue(reader.lastPage);
+    assertEquals("c", reader.cursor);
+  }
+
+  @Test
+  public void testMaxPageBytes() throws Exception {
+    StringBuilder body = new StringBuilder("{\"items\":[");
+    for (int i = 0; i < 1000; i++) {
+      body.append(i == 0 ? "" : ",").append("{\"id\":\"action-").append(i).append("\"}");
+    }
+    body.append("],\"last_page\":true}");
+
+    PageReader<Action> reader = new PageReader<>(
+        response(body.toString()), codec, Action.class, 1024);
+    try {
+      while (reader.hasNext()) {
+        reader.next();
+      }
+    } catch (ChainException e) {
+      assertTrue(e.getMessage().contains("maximum size"));
+      return;
+    }
+    fail("expected page size guard to trip");
+  }
+}
@@ -0,0 +1,65 @@
+package com.seq.http;
+
+import com.seq.api.Action;
+import com.seq.api.Token;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ProjectingJsonReaderTest {
+  static final String PAGE = "{\"items\":[" + GsonCodecTest.ACTION + "," + GsonCodecTest.ACTION
+      + "],\"cursor\":\"c\",\"last_page\":true}";
+
+  @Test
+  public void testDecodesSelectedFields() {
+    Action.Page page = decode(new GsonCodec(), PAGE, Action.Page.class, "amount", "flavor_id", "snapshot");
+    assertEquals("c", page.cursor);
+    assertTrue(page.lastPage);
+    assertEquals(2, page.items.size());
+
+    Action action = page.items.get(1);
+    assertEquals(100, action.amount);
+    assertEquals("usd", action.flavorId);
+    assertEquals(500.0, ((Map) action.snapshot.sourceAccountTags.get("limits")).get("daily"));
+    assertNull(action.id);
+    assertNull(action.sourceAccountId);
+    assertNull(action.timestamp);
+    assertNull(action.tags);
+  }
+
+  @Test
+  public void testSelectsNoFields() {
+    Token.Page page = decode(new GsonCodec(),
+        "{\"items\":[" + GsonCodecTest.TOKEN + "],\"last_page\":false}", Token.Page.class, "missing");
+    assertEquals(1, page.items.size());
+    assertEquals(0, page.items.get(0).amount);
+    assertNull(page.items.get(0).tags);
+    assertFalse(page.lastPage);
+  }
+
+  @Test
+  public void testPageReader() throws Exception {
+    PageReader<Action> reader = new PageReader<>(PageReaderTest.response(PAGE), new GsonCodec(),
+        Action.class, Long.MAX_VALUE, null, MetricsSink.NONE, new HashSet<>(Arrays.asList("id", "tags")));
+    assertTrue(reader.hasNext());
+    Action action = reader.next();
+    assertEquals("a1", action.id);
+    assertEquals(1.0, action.tags.get("n"));
+    assertEquals(0, action.amount);
+    assertTrue(reader.hasNext());
+    reader.next();
+    assertFalse(reader.hasNext());
+    assertEquals("c", reader.cursor);
+  }
+
+  private static <T> T decode(JsonCodec codec, String json, Type type, String... fields) {
+    return codec.decode(new ProjectingJsonReader(
+        new StringReader(json), new HashSet<>(Arrays.asList(fields))), type);
+  }
+}
@@ -0,0 +1,48 @@
+package com.seq.http;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.*;
+
+public class RequestLaneTest {
+  @Test
+  public void testClassForAction() {
+    assertEquals(RequestClass.INTERACTIVE, RequestClass.forAction("transact"));
+    assertEquals(RequestClass.INTERACTIVE, RequestClass.forAction("create-account"));
+    assertEquals(RequestClass.INTERACTIVE, RequestClass.forAction("hello"));
+    assertEquals(RequestClass.FEED, RequestClass.forAction("stream-feed-items"));
+    assertEquals(RequestClass.BULK, RequestClass.forAction("list-actions"));
+    assertEquals(RequestClass.BULK, RequestClass.forAction("sum-tokens"));
+  }
+
+  @Test
+  public void testLaneInheritsUnsetSettings() {
+    OkHttpClient base = new OkHttpClient.Builder()
+        .readTimeout(30, TimeUnit.SECONDS)
+        .connectionPool(new ConnectionPool(50, 2, TimeUnit.MINUTES))
+        .addNetworkInterceptor(new CompressionInterceptor(MetricsSink.NONE))
+        .build();
+
+    OkHttpClient lane = new RequestLane().setReadTimeout(5, TimeUnit.MINUTES).build(base);
+    assertNotSame(base.dispatcher(), lane.dispatcher());
+    assertSame(base.connectionPool(), lane.connectionPool());
+    assertEquals(base.dispatcher().getMaxRequestsPerHost(), lane.dispatcher().getMaxRequestsPerHost());
+    assertEquals(TimeUnit.MINUTES.toMillis(5), lane.readTimeoutMillis());
+    assertEquals(base.writeTimeoutMillis(), lane.writeTimeoutMillis());
+    assertEquals(base.networkInterceptors(), lane.networkInterceptors());
+  }
+
+  @Test
+  public void testLaneBudget() {
+    OkHttpClient base = new OkHttpClient();
+    OkHttpClient lane = new RequestLane().setMaxRequests(4).setMaxIdleConnections(4).build(base);
+    assertEquals(4, lane.dispatcher().getMaxRequests());
+    assertEquals(4, lane.dispatcher().getMaxRequestsPerHost());
+    assertNotSame(base.connectionPool(), lane.connectionPool());
+  }
+}
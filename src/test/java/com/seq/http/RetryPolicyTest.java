@@ -0,0 +1,92 @@
+package com.seq.http;
+
+import com.seq.exception.CircuitOpenException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+  @Test
+  public void testRetryBudgetFollowsSuccesses() {
+    RetryBudget budget = new RetryBudget(0.5, 0);
+    assertFalse(budget.tryRetry());
+
+    for (int i = 0; i < 4; i++) {
+      budget.onSuccess();
+    }
+    assertTrue(budget.tryRetry());
+    assertTrue(budget.tryRetry());
+    assertFalse(budget.tryRetry());
+  }
+
+  @Test
+  public void testRetryBudgetMinimumPerSecond() {
+    RetryBudget budget = new RetryBudget(0, 3);
+    assertTrue(budget.tryRetry());
+    assertTrue(budget.tryRetry());
+    assertTrue(budget.tryRetry());
+    assertFalse(budget.tryRetry());
+  }
+
+  @Test
+  public void testCircuitOpensAndProbes() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("ledger", 2, 20);
+    breaker.acquire();
+    breaker.onFailure();
+    breaker.acquire();
+    breaker.onFailure();
+
+    try {
+      breaker.acquire();
+      fail("expected open circuit");
+    } catch (CircuitOpenException ex) {
+      assertEquals(0, ex.getStackTrace().length);
+    }
+
+    Thread.sleep(30);
+    breaker.acquire();
+    try {
+      breaker.acquire();
+      fail("expected a single trial request");
+    } catch (CircuitOpenException ex) {
+    }
+    breaker.onSuccess();
+    breaker.acquire();
+    breaker.acquire();
+  }
+
+  @Test
+  public void testFailedProbeReopens() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("ledger", 1, 20);
+    breaker.onFailure();
+    Thread.sleep(30);
+    breaker.acquire();
+    breaker.onFailure();
+    try {
+      breaker.acquire();
+      fail("expected open circuit");
+    } catch (CircuitOpenException ex) {
+    }
+  }
+
+  @Test
+  public void testDisabledBreakerHonorsRetryAfter() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("ledger", 0, 0);
+    for (int i = 0; i < 100; i++) {
+      breaker.onFailure();
+    }
+    breaker.acquire();
+
+    assertEquals(0, breaker.retryAfterMillis());
+    breaker.retryAfter(5000);
+    assertTrue(breaker.retryAfterMillis() > 4000);
+  }
+
+  @Test
+  public void testParseRetryAfter() {
+    assertEquals(0, Client.parseRetryAfterMillis(null));
+    assertEquals(0, Client.parseRetryAfterMillis("soon"));
+    assertEquals(120000, Client.parseRetryAfterMillis(" 120 "));
+    assertEquals(0, Client.parseRetryAfterMillis("Wed, 21 Oct 2015 07:28:00 GMT"));
+  }
+}
@@ -0,0 +1,75 @@
+package com.seq.http;
+
+import com.seq.api.Account;
+import com.seq.api.Action;
+import com.seq.api.TagKind;
+import com.seq.api.Token;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TagBindingTest {
+  static final String TOKEN = "{\"amount\":3,\"flavor_id\":\"usd\",\"account_id\":\"alice\","
+      + "\"tags\":{\"big\":12345678901234567,\"price\":0.1}}";
+
+  static class AccountTags {
+    String type;
+    Limits limits;
+
+    static class Limits {
+      long daily;
+    }
+  }
+
+  static class ActionTags {
+    String invoice;
+    long n;
+  }
+
+  static class TokenTags {
+    long big;
+    BigDecimal price;
+  }
+
+  @Test
+  public void testDecodesIntoRegisteredClasses() {
+    GsonCodec codec = new GsonCodec();
+    codec.setTagType(TagKind.ACCOUNT, AccountTags.class).setTagType(TagKind.ACTION, ActionTags.class);
+    Action action = GsonCodecTest.decode(codec, GsonCodecTest.ACTION, Action.class);
+
+    assertTrue(action.snapshot.sourceAccountTags instanceof BoundTagMap);
+    AccountTags account = TagBinding.bind(action.snapshot.sourceAccountTags, AccountTags.class);
+    assertEquals("checking", account.type);
+    assertEquals(500, account.limits.daily);
+    assertNull(action.snapshot.destinationAccountTags);
+    assertEquals(1, action.getTags(ActionTags.class).n);
+    assertEquals("inv-1", TagBinding.bind(action.snapshot.actionTags, ActionTags.class).invoice);
+    assertEquals(false, action.snapshot.tokenTags.get("settled"));
+
+    assertEquals("checking", action.snapshot.sourceAccountTags.get("type"));
+    String json = GsonCodecTest.encode(codec, action, Action.class);
+    assertTrue(json, json.contains("\"source_account_tags\":{\"type\":\"checking\",\"limits\":{\"daily\":500}}"));
+  }
+
+  @Test
+  public void testKeepsPrecision() {
+    GsonCodec codec = new GsonCodec().setTagType(TagKind.TOKEN, TokenTags.class);
+    TokenTags tags = GsonCodecTest.<Token>decode(codec, TOKEN, Token.class).getTags(TokenTags.class);
+    assertEquals(12345678901234567L, tags.big);
+    assertEquals(new BigDecimal("0.1"), tags.price);
+  }
+
+  @Test
+  public void testConvertsMaps() {
+    Account account = GsonCodecTest.decode(new GsonCodec(),
+        "{\"id\":\"alice\",\"tags\":{\"type\":\"savings\",\"limits\":{\"daily\":20}}}", Account.class);
+    assertTrue(account.tags instanceof Map);
+    AccountTags tags = account.getTags(AccountTags.class);
+    assertEquals("savings", tags.type);
+    assertEquals(20, tags.limits.daily);
+    assertNull(new Account().getTags(AccountTags.class));
+  }
+}
@@ -0,0 +1,75 @@
+package com.seq.integration;
+
+import com.seq.TestUtils;
+import com.seq.api.*;
+import com.seq.http.Client;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncTest {
+  static Client client;
+  static Key key;
+
+  @Test
+  public void testTransactAsync() throws Exception {
+    client = TestUtils.generateClient();
+    key = new Key.Builder().createAsync(client).get();
+    String alice = "AsyncTest-testTransactAsync-alice";
+    String flavorId = "AsyncTest-testTransactAsync-flavor";
+    String test = UUID.randomUUID().toString();
+
+    new Account.Builder().setId(alice).addKeyId(key.id).createAsync(client).get();
+    new Flavor.Builder().setId(flavorId).addKeyId(key.id).createAsync(client).get();
+
+    List<CompletableFuture<Transaction>> futures = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      futures.add(
+          new Transaction.Builder()
+              .addAction(
+                  new Transaction.Builder.Action.Issue()
+                      .setFlavorId(flavorId)
+                      .setAmount(1)
+                      .setDestinationAccountId(alice)
+                      .addActionTagsField("test", test))
+              .transactAsync(client));
+    }
+    for (CompletableFuture<Transaction> future : futures) {
+      assertNotNull(future.get().id);
+    }
+
+    Action.Page page =
+        new Action.ListBuilder()
+            .setFilter("tags.test=$1")
+            .addFilterParameter(test)
+            .getPageAsync(client)
+            .get();
+    assertEquals(10, page.items.size());
+  }
+
+  @Test
+  public void testTransactAsyncFailure() throws Exception {
+    client = TestUtils.generateClient();
+    try {
+      new Transaction.Builder()
+          .addAction(
+              new Transaction.Builder.Action.Issue()
+                  .setFlavorId("unobtanium")
+                  .setAmount(1)
+                  .setDestinationAccountId("unknown"))
+          .transactAsync(client)
+          .get();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof com.seq.exception.APIException);
+      return;
+    }
+    throw new Exception("expecting APIException");
+  }
+}
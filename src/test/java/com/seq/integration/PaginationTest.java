@@ -158,4 +158,34 @@ public class PaginationTest {
     assertEquals(feeds.items.get(0).id, f2.id);
     assertEquals(feeds.lastPage, false);
   }
+
+  @Test
+  public void testPrefetchIterable() throws Exception {
+    client = TestUtils.generateClient();
+    key = new Key.Builder().create(client);
+
+    String testFilter = UUID.randomUUID().toString();
+    for (int i = 0; i < PAGE_SIZE * 3 + 1; i++) {
+      new Account.Builder()
+        .setId(UUID.randomUUID().toString())
+        .addKeyId(key.id)
+        .addTag("filter", testFilter)
+        .create(client);
+    }
+
+    BaseItemIterable<Account> accounts = new Account.ListBuilder()
+      .setFilter("tags.filter = $1")
+      .addFilterParameter(testFilter)
+      .setPageSize(PAGE_SIZE)
+      .getIterable(client)
+      .setPrefetch(2);
+
+    int count = 0;
+    for (Account account : accounts) {
+      assertEquals(testFilter, account.tags.get("filter"));
+      count++;
+    }
+    assertEquals(PAGE_SIZE * 3 + 1, count);
+    assertEquals(null, accounts.exception);
+  }
 }
@@ -0,0 +1,41 @@
+package com.seq.integration;
+
+import com.seq.TestUtils;
+import com.seq.api.*;
+import com.seq.http.Client;
+import com.seq.http.RequestTimings;
+import com.seq.http.RequestTimingsListener;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+public class WarmupTest {
+  @Test
+  public void testWarmupReusesConnections() throws Exception {
+    String ledgerName = System.getenv("LEDGER_NAME");
+    if (ledgerName == null || ledgerName.isEmpty()) {
+      ledgerName = "test";
+    }
+
+    final List<RequestTimings> timings = Collections.synchronizedList(new ArrayList<RequestTimings>());
+    Client client = new Client.Builder()
+        .setCredential(System.getenv("SEQCRED"))
+        .setLedgerName(ledgerName)
+        .setRequestTimingsListener(new RequestTimingsListener() {
+          public void onTimings(RequestTimings t) {
+            timings.add(t);
+          }
+        })
+        .build();
+    client.warmup(3);
+
+    timings.clear();
+    new Flavor.ListBuilder().getPage(client);
+    assertTrue(timings.get(0).connectionReused);
+  }
+}